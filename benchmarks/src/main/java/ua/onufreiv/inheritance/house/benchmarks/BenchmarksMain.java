@@ -0,0 +1,38 @@
+package ua.onufreiv.inheritance.house.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of the benchmarks jar. Passes arguments to the JMH {@code Main},
+ * adding {@code -rf json -rff jmh-result.json}, if the result format or file
+ * isn't specified, so results of different runs could be compared
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+public class BenchmarksMain {
+
+    /** Default file of results */
+    private static final String RESULT_FILE = "jmh-result.json";
+
+    /**
+     * Runs JMH with the passed arguments
+     *
+     * @param args JMH command line options
+     * @throws Exception if JMH fails
+     */
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        if (!arguments.contains("-rf")) {
+            arguments.add(0, "-rf");
+            arguments.add(1, "json");
+        }
+        if (!arguments.contains("-rff")) {
+            arguments.add(0, "-rff");
+            arguments.add(1, RESULT_FILE);
+        }
+        org.openjdk.jmh.Main.main(arguments.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,71 @@
+package ua.onufreiv.inheritance.house.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ua.onufreiv.inheritance.house.House;
+import ua.onufreiv.inheritance.house.openings.LockableDoor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of house building with {@code addWindows} and {@code addRoomDoors}
+ * for 10 to 10^6 openings. Every invocation builds the new house
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BuilderBenchmark {
+
+    /** Amount of openings added to the house */
+    @Param({"10", "1000", "100000", "1000000"})
+    public int amount;
+
+    /**
+     * Builds house with the specified amount of windows
+     *
+     * @return built house
+     */
+    @Benchmark
+    public House addWindows() {
+        House.HouseBuilder builder = newBuilder();
+        builder.addWindows(amount);
+        return builder.getHouse();
+    }
+
+    /**
+     * Builds house with the specified amount of room doors
+     *
+     * @return built house
+     */
+    @Benchmark
+    public House addRoomDoors() {
+        House.HouseBuilder builder = newBuilder();
+        builder.addRoomDoors(amount);
+        return builder.getHouse();
+    }
+
+    /**
+     * Creates builder of the empty house with entry door
+     *
+     * @return house builder
+     */
+    private static House.HouseBuilder newBuilder() {
+        House.HouseBuilder builder = new House.HouseBuilder("Kyiv, Khreschatyk", 75, 3, 1);
+        builder.setEntryDoor(new LockableDoor());
+        return builder;
+    }
+}
@@ -0,0 +1,139 @@
+package ua.onufreiv.inheritance.house.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ua.onufreiv.inheritance.house.openings.Direction;
+import ua.onufreiv.inheritance.house.openings.Door;
+import ua.onufreiv.inheritance.house.openings.LockableDoor;
+import ua.onufreiv.inheritance.house.openings.OpenableWindow;
+import ua.onufreiv.inheritance.house.openings.Window;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@code equals} and {@code hashCode} of {@link Door}, {@link LockableDoor},
+ * {@link Window} and {@link OpenableWindow}. Every pair consists of distinct equal objects
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EqualityBenchmark {
+
+    /** Door */
+    private final Door door =
+            new Door("Oak", "White", Door.OpeningType.CASUAL, true);
+    /** Door, that is equal to {@code door} */
+    private final Door equalDoor =
+            new Door("Oak", "White", Door.OpeningType.CASUAL, true);
+    /** Lockable door */
+    private final LockableDoor lockableDoor =
+            new LockableDoor("Metal", "Brown", Door.OpeningType.SLIDING, false);
+    /** Lockable door, that is equal to {@code lockableDoor} */
+    private final LockableDoor equalLockableDoor =
+            new LockableDoor("Metal", "Brown", Door.OpeningType.SLIDING, false);
+    /** Window */
+    private final Window window =
+            new Window("Wood", "Brown", Window.WindowType.DOUBLE, Direction.SOUTH);
+    /** Window, that is equal to {@code window} */
+    private final Window equalWindow =
+            new Window("Wood", "Brown", Window.WindowType.DOUBLE, Direction.SOUTH);
+    /** Openable window */
+    private final OpenableWindow openableWindow =
+            new OpenableWindow("Plastic", "White", Window.WindowType.SINGLE, Direction.EAST);
+    /** Openable window, that is equal to {@code openableWindow} */
+    private final OpenableWindow equalOpenableWindow =
+            new OpenableWindow("Plastic", "White", Window.WindowType.SINGLE, Direction.EAST);
+
+    /**
+     * Compares two equal doors
+     *
+     * @return result of comparison
+     */
+    @Benchmark
+    public boolean doorEquals() {
+        return door.equals(equalDoor);
+    }
+
+    /**
+     * Computes hash code of door
+     *
+     * @return hash code
+     */
+    @Benchmark
+    public int doorHashCode() {
+        return door.hashCode();
+    }
+
+    /**
+     * Compares two equal lockable doors
+     *
+     * @return result of comparison
+     */
+    @Benchmark
+    public boolean lockableDoorEquals() {
+        return lockableDoor.equals(equalLockableDoor);
+    }
+
+    /**
+     * Computes hash code of lockable door
+     *
+     * @return hash code
+     */
+    @Benchmark
+    public int lockableDoorHashCode() {
+        return lockableDoor.hashCode();
+    }
+
+    /**
+     * Compares two equal windows
+     *
+     * @return result of comparison
+     */
+    @Benchmark
+    public boolean windowEquals() {
+        return window.equals(equalWindow);
+    }
+
+    /**
+     * Computes hash code of window
+     *
+     * @return hash code
+     */
+    @Benchmark
+    public int windowHashCode() {
+        return window.hashCode();
+    }
+
+    /**
+     * Compares two equal openable windows
+     *
+     * @return result of comparison
+     */
+    @Benchmark
+    public boolean openableWindowEquals() {
+        return openableWindow.equals(equalOpenableWindow);
+    }
+
+    /**
+     * Computes hash code of openable window
+     *
+     * @return hash code
+     */
+    @Benchmark
+    public int openableWindowHashCode() {
+        return openableWindow.hashCode();
+    }
+}
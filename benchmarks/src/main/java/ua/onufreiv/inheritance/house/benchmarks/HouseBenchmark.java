@@ -0,0 +1,100 @@
+package ua.onufreiv.inheritance.house.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ua.onufreiv.inheritance.house.House;
+import ua.onufreiv.inheritance.house.KeyGenerator;
+import ua.onufreiv.inheritance.house.openings.LockableDoor;
+import ua.onufreiv.inheritance.house.openings.OpenableWindow;
+import ua.onufreiv.inheritance.house.openings.Window;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the house hot paths: {@code openSomeWindow},
+ * {@code lockWithKey} and {@code unlockWithKey}
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HouseBenchmark {
+
+    /** Amount of windows in the house; every second one could be opened */
+    @Param({"16", "1024"})
+    public int windowsAmount;
+
+    /** House, whose windows are opened; all the openable windows except the last one are opened */
+    private House windowsHouse;
+    /** The only closed openable window of {@code windowsHouse} */
+    private OpenableWindow lastWindow;
+    /** House without opened windows, that is locked and unlocked */
+    private House lockHouse;
+
+    /**
+     * Builds the houses
+     */
+    @Setup
+    public void setUp() {
+        windowsHouse = newHouse();
+        List<Window> windows = windowsHouse.findWindows(null, null);
+        lastWindow = (OpenableWindow) windows.get(windows.size() - 1);
+        while (windowsHouse.openSomeWindow()) {
+            // opens the next closed window
+        }
+        lastWindow.close();
+
+        lockHouse = newHouse();
+    }
+
+    /**
+     * Opens the only closed window, that is found after all the opened ones,
+     * and closes it back for the next invocation
+     *
+     * @return result of opening
+     */
+    @Benchmark
+    public boolean openSomeWindow() {
+        boolean isOpened = windowsHouse.openSomeWindow();
+        lastWindow.close();
+        return isOpened;
+    }
+
+    /**
+     * Locks the house and unlocks it with the issued key
+     *
+     * @return result of unlocking
+     */
+    @Benchmark
+    public boolean lockAndUnlock() {
+        KeyGenerator.Key key = lockHouse.lockWithKey();
+        return lockHouse.unlockWithKey(key);
+    }
+
+    /**
+     * Builds house with the specified amount of windows
+     *
+     * @return built house
+     */
+    private House newHouse() {
+        House.HouseBuilder builder = new House.HouseBuilder("Kyiv, Khreschatyk", 75, 3, 1);
+        builder.setEntryDoor(new LockableDoor());
+        builder.addWindows(windowsAmount);
+        return builder.getHouse();
+    }
+}
@@ -0,0 +1,101 @@
+package ua.onufreiv.inheritance.house.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ua.onufreiv.inheritance.house.House;
+import ua.onufreiv.inheritance.house.KeyGenerator;
+import ua.onufreiv.inheritance.house.openings.LockableDoor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of keys forming and validation. Throughput is reported in operations
+ * per second for one thread; allocation of validation is measured with {@code -prof gc}
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyBenchmark {
+
+    /** House that hosts the door */
+    private House house;
+    /** Entry door of house */
+    private LockableDoor door;
+    /** Key of the current lock epoch of door */
+    private KeyGenerator.Key key;
+    /** Another house, whose keys are validated alternately with the keys of {@code house} */
+    private House otherHouse;
+    /** Entry door of {@code otherHouse} */
+    private LockableDoor otherDoor;
+    /** Key of the current lock epoch of {@code otherDoor} */
+    private KeyGenerator.Key otherKey;
+
+    /**
+     * Builds the houses and forms their keys
+     */
+    @Setup
+    public void setUp() {
+        door = new LockableDoor();
+        house = newHouse(door);
+        key = KeyGenerator.generateKey(house, door);
+        otherDoor = new LockableDoor();
+        otherHouse = newHouse(otherDoor);
+        otherKey = KeyGenerator.generateKey(otherHouse, otherDoor);
+    }
+
+    /**
+     * Forms the key of door
+     *
+     * @return formed key
+     */
+    @Benchmark
+    public KeyGenerator.Key generateKey() {
+        return KeyGenerator.generateKey(house, door);
+    }
+
+    /**
+     * Validates the key of door
+     *
+     * @return result of validation
+     */
+    @Benchmark
+    public boolean isValidForDoor() {
+        return key.isValidForDoor(house, door);
+    }
+
+    /**
+     * Validates keys of two houses one after another, so the secret of MAC changes every call
+     *
+     * @return result of validation
+     */
+    @Benchmark
+    public boolean isValidForDoorAlternating() {
+        return key.isValidForDoor(house, door) & otherKey.isValidForDoor(otherHouse, otherDoor);
+    }
+
+    /**
+     * Builds house with the specified entry door
+     *
+     * @param door entry door
+     * @return built house
+     */
+    private static House newHouse(LockableDoor door) {
+        House.HouseBuilder builder = new House.HouseBuilder("Kyiv, Khreschatyk", 75, 3, 1);
+        builder.setEntryDoor(door);
+        return builder.getHouse();
+    }
+}
@@ -0,0 +1,90 @@
+package ua.onufreiv.inheritance.house.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ua.onufreiv.inheritance.house.House;
+import ua.onufreiv.inheritance.house.KeyGenerator;
+import ua.onufreiv.inheritance.house.ShardedHouseStore;
+import ua.onufreiv.inheritance.house.openings.LockableDoor;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link ShardedHouseStore} scaling: eight client threads lock and
+ * unlock random houses of the store with 1 to 64 shards
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class ShardedStoreBenchmark {
+
+    /** Amount of houses in the store */
+    private static final int HOUSES_AMOUNT = 4096;
+
+    /** Amount of shards of the store */
+    @Param({"1", "2", "4", "8", "16", "32", "64"})
+    public int shardsAmount;
+
+    /** Store of houses */
+    private ShardedHouseStore store;
+    /** Addresses of houses in the store */
+    private String[] addresses;
+
+    /**
+     * Creates the store and fills it with houses
+     */
+    @Setup
+    public void setUp() {
+        store = new ShardedHouseStore(shardsAmount);
+        addresses = new String[HOUSES_AMOUNT];
+        for (int i = 0; i < HOUSES_AMOUNT; i++) {
+            addresses[i] = "Kyiv, Khreschatyk, " + i;
+            House.HouseBuilder builder = new House.HouseBuilder(addresses[i], 75, 3, 1);
+            builder.setEntryDoor(new LockableDoor());
+            builder.addWindows(4);
+            store.add(builder.getHouse());
+        }
+        store.size().join();
+    }
+
+    /**
+     * Stops the threads of shards
+     */
+    @TearDown
+    public void tearDown() {
+        store.close();
+    }
+
+    /**
+     * Locks random house and unlocks it with the issued key in one operation of its shard
+     *
+     * @return result of unlocking
+     */
+    @Benchmark
+    public Boolean lockAndUnlock() {
+        String address = addresses[ThreadLocalRandom.current().nextInt(HOUSES_AMOUNT)];
+        return store.execute(address, house -> {
+            KeyGenerator.Key key = house.lockWithKey();
+            return key != null && house.unlockWithKey(key);
+        }).join();
+    }
+}
@@ -1,9 +1,13 @@
 package ua.onufreiv.inheritance;
 
 import ua.onufreiv.inheritance.house.House;
+import ua.onufreiv.inheritance.house.HouseRegistry;
 import ua.onufreiv.inheritance.house.KeyGenerator;
+import ua.onufreiv.inheritance.house.KeyRegistry;
+import ua.onufreiv.inheritance.house.metrics.HouseMetrics;
 import ua.onufreiv.inheritance.house.openings.Door;
 import ua.onufreiv.inheritance.house.openings.LockableDoor;
+import ua.onufreiv.inheritance.house.warnings.WarningChannel;
 
 /**
  * Runner class for demonstrating of solution for the following task:
@@ -12,17 +16,22 @@ import ua.onufreiv.inheritance.house.openings.LockableDoor;
  */
 public class Runner {
     public static void main(String[] args) {
+        // registry of keys, which are valid during one hour
+        KeyRegistry keyRegistry = new KeyRegistry(60 * 60 * 1000);
+
         // create house in Kyiv
         House.HouseBuilder kyivBuilder = new House.HouseBuilder("Kyiv, Khreschatyk", 75, 3, 1);
         kyivBuilder.setEntryDoor(new LockableDoor());
         kyivBuilder.addRoomDoors(5);
         kyivBuilder.addWindows(12);
+        kyivBuilder.setKeyRegistry(keyRegistry);
 
         // create house in Lviv
         House.HouseBuilder lvivBuilder = new House.HouseBuilder("Lviv, prosp. Svobody", 125, 2, 5);
         lvivBuilder.setEntryDoor(new LockableDoor("Metal", "Brown", Door.OpeningType.SLIDING, true));
         lvivBuilder.addRoomDoors(8);
         lvivBuilder.addWindows(16);
+        lvivBuilder.setKeyRegistry(keyRegistry);
 
         // get created house objects
         House kyivHouse = kyivBuilder.getHouse();
@@ -43,12 +52,23 @@ public class Runner {
         System.out.println("kyivHouse.getDoorsAmount(): " + kyivHouse.getDoorsAmount());
 
         System.out.println("\nlvivHouse.getWindowsAmount(): " + lvivHouse.getWindowsAmount());
-        System.out.println("lvivHouse.getDoorsAmount(): " + lvivHouse.getDoorsAmount() + "\n");
+        System.out.println("lvivHouse.getDoorsAmount(): " + lvivHouse.getDoorsAmount());
+
+        // register both houses and print aggregated amounts
+        HouseRegistry registry = new HouseRegistry();
+        registry.add(kyivHouse);
+        registry.add(lvivHouse);
+        System.out.println("\nregistry.getTotalWindowsAmount(): " + registry.getTotalWindowsAmount());
+        System.out.println("registry.getTotalDoorsAmount(): " + registry.getTotalDoorsAmount());
+        System.out.println("registry.findByFloors(2, 10): " + registry.findByFloors(2, 10) + "\n");
 
         // lock both houses with key
         kyivHouse.openSomeWindow();
+        System.out.println("kyivHouse.getOpenedWindowsCount(): " + kyivHouse.getOpenedWindowsCount());
         KeyGenerator.Key kyivKey = kyivHouse.lockWithKey();
         KeyGenerator.Key lvivKey = lvivHouse.lockWithKey();
+        // wait for the warnings about opened windows
+        WarningChannel.getDefault().flush();
 
         // print obtained keys
         System.out.println("\nkyivKey: " + kyivKey);
@@ -58,5 +78,13 @@ public class Runner {
         System.out.println("\nkyivHouse.unlockWithKey(lvivKey): " + kyivHouse.unlockWithKey(lvivKey));
         // unlock Kyiv house with key from Kyiv house
         System.out.println("kyivHouse.unlockWithKey(kyivKey): " + kyivHouse.unlockWithKey(kyivKey));
+
+        // revoke key from Lviv house and try to unlock it
+        System.out.println("\nkeyRegistry.revoke(lvivKey): " + keyRegistry.revoke(lvivKey));
+        System.out.println("lvivHouse.unlockWithKey(lvivKey): " + lvivHouse.unlockWithKey(lvivKey));
+        System.out.println("keyRegistry: " + keyRegistry);
+
+        // print metrics of house operations
+        System.out.println("\n" + HouseMetrics.getDefault().toText());
     }
 }
@@ -0,0 +1,149 @@
+package ua.onufreiv.inheritance.house;
+
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class represents vector of bits, that could be set and cleared
+ * from different threads without locking (with the help of compare-and-set
+ * operations on 64-bit words).
+ * <p/>Growing of the vector is not thread-safe and must be performed
+ * only while the vector is not shared, e.g. during house building
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+class AtomicBitSet {
+
+    /** Words of the vector, 64 bits in each */
+    private volatile AtomicLongArray words;
+
+    /**
+     * Default constructor.
+     * <p/> Creates empty bit vector
+     */
+    AtomicBitSet() {
+        words = new AtomicLongArray(1);
+    }
+
+    /**
+     * Grows the vector, so it could contain at least specified amount of bits
+     *
+     * @param bitsAmount required amount of bits
+     */
+    void ensureCapacity(int bitsAmount) {
+        int required = wordIndex(bitsAmount - 1) + 1;
+        AtomicLongArray current = words;
+        if (required <= current.length()) {
+            return;
+        }
+
+        AtomicLongArray grown = new AtomicLongArray(Math.max(required, current.length() * 2));
+        for (int i = 0; i < current.length(); i++) {
+            grown.set(i, current.get(i));
+        }
+        words = grown;
+    }
+
+    /**
+     * Returns the value of bit with the specified index
+     *
+     * @param index index of bit
+     * @return true if the bit is set, false otherwise
+     */
+    boolean get(int index) {
+        int wordIndex = wordIndex(index);
+        AtomicLongArray current = words;
+        return wordIndex < current.length()
+                && (current.get(wordIndex) & (1L << index)) != 0;
+    }
+
+    /**
+     * Atomically sets the bit with the specified index to the specified value
+     *
+     * @param index index of bit
+     * @param value new value of bit
+     * @return true, if the bit was changed by this call, false if it already had the value
+     */
+    boolean set(int index, boolean value) {
+        AtomicLongArray current = words;
+        int wordIndex = wordIndex(index);
+        long mask = 1L << index;
+        long word;
+        long next;
+        do {
+            word = current.get(wordIndex);
+            next = value ? word | mask : word & ~mask;
+            if (word == next) {
+                return false;
+            }
+        } while (!current.compareAndSet(wordIndex, word, next));
+        return true;
+    }
+
+    /**
+     * Returns the index of the first set bit that occurs on or after the specified index
+     *
+     * @param fromIndex index to start checking from (inclusive)
+     * @return index of the next set bit, or -1 if there is no such bit
+     */
+    int nextSetBit(int fromIndex) {
+        AtomicLongArray current = words;
+        int wordIndex = wordIndex(fromIndex);
+        if (wordIndex >= current.length()) {
+            return -1;
+        }
+
+        long word = current.get(wordIndex) & (-1L << fromIndex);
+        while (true) {
+            if (word != 0) {
+                return wordIndex * Long.SIZE + Long.numberOfTrailingZeros(word);
+            }
+            if (++wordIndex == current.length()) {
+                return -1;
+            }
+            word = current.get(wordIndex);
+        }
+    }
+
+    /**
+     * Returns word of 64 bits with the specified index
+     *
+     * @param wordIndex index of word
+     * @return word value; zero for words beyond the capacity
+     */
+    long getWord(int wordIndex) {
+        AtomicLongArray current = words;
+        return wordIndex < current.length() ? current.get(wordIndex) : 0;
+    }
+
+    /**
+     * Returns copy of the vector. Every word is read atomically, so the copy takes
+     * time proportional to the amount of words, not the amount of set bits.
+     * Bits changed during copying could be taken either with the old or the new value
+     *
+     * @return bit set with the same bits
+     */
+    BitSet copy() {
+        AtomicLongArray current = words;
+        int length = current.length();
+        while (length > 0 && current.get(length - 1) == 0) {
+            length--;
+        }
+        long[] copy = new long[length];
+        for (int i = 0; i < length; i++) {
+            copy[i] = current.get(i);
+        }
+        return BitSet.valueOf(copy);
+    }
+
+    /**
+     * Returns index of word, that contains specified bit
+     *
+     * @param bitIndex index of bit
+     * @return index of word
+     */
+    private static int wordIndex(int bitIndex) {
+        return bitIndex >> 6;
+    }
+}
@@ -0,0 +1,382 @@
+package ua.onufreiv.inheritance.house;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class performs locking and unlocking of many houses at once.
+ * Houses are processed concurrently in the own fork-join pool with
+ * configurable parallelism. Failure of one house doesn't stop the batch: it gets
+ * the {@link Status#FAILED} outcome with the thrown exception, so outcomes of
+ * all the other houses, including the issued keys, are always returned.
+ * <p/> Has {@link Status}, {@link Outcome} and {@link Result} nested classes in it.
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+public class BatchLocker implements AutoCloseable {
+
+    /** Amount of houses, that are processed by one task without splitting */
+    private static final int SPLIT_THRESHOLD = 64;
+    /** Percentile of latency that is reported */
+    private static final double LATENCY_PERCENTILE = 0.99;
+
+    /**
+     * This enum represents possible outcomes of locking/unlocking of one house
+     */
+    public enum Status {
+        LOCKED, ALREADY_LOCKED, UNLOCKED, NOT_UNLOCKED, FAILED
+    }
+
+    /** Pool, in which houses are processed */
+    private final ForkJoinPool pool;
+
+    /**
+     * Default constructor.
+     * <p/> Uses parallelism equal to the amount of available processors
+     */
+    public BatchLocker() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Parametrized constructor.
+     *
+     * @param parallelism amount of threads that process houses
+     */
+    public BatchLocker(int parallelism) {
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Locks all the specified houses with the help of {@link House#lockWithKey()}
+     *
+     * @param houses houses for locking
+     * @return outcomes of locking in order of houses, throughput and latency
+     */
+    public Result lockAll(Collection<House> houses) {
+        List<House> list = new ArrayList<>(houses);
+        return run(list, (index, house) -> {
+            KeyGenerator.Key key = house.lockWithKey();
+            return new Outcome(house, key != null ? Status.LOCKED : Status.ALREADY_LOCKED,
+                    key, house.getOpenedWindowsCount());
+        });
+    }
+
+    /**
+     * Unlocks the houses of outcomes with their keys with the help of
+     * {@link House#unlockWithKey(KeyGenerator.Key)}, e.g. the outcomes of {@link #lockAll}.
+     * Every outcome is processed separately, so distinct houses with equal addresses
+     * are all unlocked; outcomes without key get {@link Status#NOT_UNLOCKED}
+     *
+     * @param locked outcomes with houses and keys for unlocking
+     * @return outcomes of unlocking in order of the passed ones, throughput and latency
+     */
+    public Result unlockAll(List<Outcome> locked) {
+        List<House> list = new ArrayList<>(locked.size());
+        for (Outcome outcome : locked) {
+            list.add(outcome.getHouse());
+        }
+        return run(list, (index, house) -> {
+            KeyGenerator.Key key = locked.get(index).getKey();
+            boolean isUnlocked = key != null && house.unlockWithKey(key);
+            return new Outcome(house, isUnlocked ? Status.UNLOCKED : Status.NOT_UNLOCKED,
+                    key, house.getOpenedWindowsCount());
+        });
+    }
+
+    /**
+     * Shuts down the pool
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Processes houses in the pool and measures the processing
+     *
+     * @param houses    houses for processing
+     * @param operation operation that is performed on every house
+     * @return outcomes of operation, throughput and latency
+     */
+    private Result run(List<House> houses, Operation operation) {
+        Outcome[] outcomes = new Outcome[houses.size()];
+        long[] latencies = new long[houses.size()];
+
+        long start = System.nanoTime();
+        pool.invoke(new BatchTask(houses, 0, houses.size(), operation, outcomes, latencies));
+        long elapsed = System.nanoTime() - start;
+
+        return new Result(outcomes, elapsed, latencies);
+    }
+
+    /**
+     * This interface represents operation, that is performed on every house of batch
+     */
+    private interface Operation {
+        Outcome apply(int index, House house);
+    }
+
+    /**
+     * This class represents task, that processes range of houses
+     * and splits itself when the range is large
+     */
+    private static class BatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /** All the houses of batch */
+        private final List<House> houses;
+        /** Beginning of range (inclusive) */
+        private final int from;
+        /** End of range (exclusive) */
+        private final int to;
+        /** Operation that is performed on every house */
+        private final Operation operation;
+        /** Outcomes of operation by indexes of houses */
+        private final Outcome[] outcomes;
+        /** Latencies of operation by indexes of houses */
+        private final long[] latencies;
+
+        /**
+         * Parametrized constructor.
+         *
+         * @param houses     all the houses of batch
+         * @param from       beginning of range (inclusive)
+         * @param to         end of range (exclusive)
+         * @param operation  operation that is performed on every house
+         * @param outcomes   outcomes of operation by indexes of houses
+         * @param latencies  latencies of operation by indexes of houses
+         */
+        BatchTask(List<House> houses, int from, int to, Operation operation,
+                  Outcome[] outcomes, long[] latencies) {
+            this.houses = houses;
+            this.from = from;
+            this.to = to;
+            this.operation = operation;
+            this.outcomes = outcomes;
+            this.latencies = latencies;
+        }
+
+        /**
+         * Processes the range of houses or splits it into two halves
+         */
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    House house = houses.get(i);
+                    long start = System.nanoTime();
+                    try {
+                        outcomes[i] = operation.apply(i, house);
+                    } catch (RuntimeException e) {
+                        outcomes[i] = new Outcome(house, e);
+                    }
+                    latencies[i] = System.nanoTime() - start;
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new BatchTask(houses, from, middle, operation, outcomes, latencies),
+                    new BatchTask(houses, middle, to, operation, outcomes, latencies));
+        }
+    }
+
+    /**
+     * This class represents outcome of locking/unlocking of one house
+     */
+    public static class Outcome {
+        /** House, that was processed */
+        private final House house;
+        /** Status of operation */
+        private final Status status;
+        /** Key, that was obtained by locking or used for unlocking */
+        private final KeyGenerator.Key key;
+        /** Amount of opened windows in the house after operation */
+        private final int openedWindowsCount;
+        /** Exception thrown by operation; {@code null} if it didn't fail */
+        private final RuntimeException failure;
+
+        /**
+         * Parametrized constructor.
+         *
+         * @param house              house that was processed
+         * @param status             status of operation
+         * @param key                key of operation or {@code null}
+         * @param openedWindowsCount amount of opened windows in the house after operation
+         */
+        Outcome(House house, Status status, KeyGenerator.Key key, int openedWindowsCount) {
+            this.house = house;
+            this.status = status;
+            this.key = key;
+            this.openedWindowsCount = openedWindowsCount;
+            this.failure = null;
+        }
+
+        /**
+         * Parametrized constructor.
+         * <p/>Creates outcome of failed operation
+         *
+         * @param house   house that was processed
+         * @param failure exception thrown by operation
+         */
+        Outcome(House house, RuntimeException failure) {
+            this.house = house;
+            this.status = Status.FAILED;
+            this.key = null;
+            this.openedWindowsCount = house.getOpenedWindowsCount();
+            this.failure = failure;
+        }
+
+        /**
+         * Getter for {@code house} field
+         *
+         * @return house that was processed
+         */
+        public House getHouse() {
+            return house;
+        }
+
+        /**
+         * Getter for {@code status} field
+         *
+         * @return status of operation
+         */
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * Getter for {@code key} field
+         *
+         * @return key of operation or {@code null}
+         */
+        public KeyGenerator.Key getKey() {
+            return key;
+        }
+
+        /**
+         * Getter for {@code openedWindowsCount} field. The value is read after
+         * the operation; non-zero value after locking means that windows were
+         * opened when the open-window warning was checked
+         *
+         * @return amount of opened windows in the house after operation
+         */
+        public int getOpenedWindowsCount() {
+            return openedWindowsCount;
+        }
+
+        /**
+         * Getter for {@code failure} field
+         *
+         * @return exception thrown by operation or {@code null} if it didn't fail
+         */
+        public RuntimeException getFailure() {
+            return failure;
+        }
+
+        /**
+         * Returns a {@code String} object representing this {@code Outcome} object's value.
+         * Includes it's class name, address of house, {@code status}, {@code key},
+         * {@code openedWindowsCount} and {@code failure} values
+         *
+         * @return a string representation of fields values of this object
+         */
+        @Override
+        public String toString() {
+            return "Outcome[" +
+                    "address='" + house.getAddress() + '\'' +
+                    ", status=" + status +
+                    ", key=" + key +
+                    ", openedWindows=" + openedWindowsCount +
+                    (failure != null ? ", failure=" + failure : "") +
+                    ']';
+        }
+    }
+
+    /**
+     * This class represents result of batch: outcomes in order of houses, throughput and latency.
+     * Outcomes are kept by positions, so the same house passed twice has two outcomes
+     */
+    public static class Result {
+        /** Outcomes of operation in order of houses */
+        private final List<Outcome> outcomes;
+        /** Duration of batch in nanoseconds */
+        private final long elapsedNanos;
+        /** 99th percentile of latency of one house processing in nanoseconds */
+        private final long p99LatencyNanos;
+
+        /**
+         * Parametrized constructor.
+         *
+         * @param outcomes     outcomes of operation in order of houses
+         * @param elapsedNanos duration of batch in nanoseconds
+         * @param latencies    latencies of operation; the array is sorted in place
+         */
+        Result(Outcome[] outcomes, long elapsedNanos, long[] latencies) {
+            this.outcomes = Collections.unmodifiableList(Arrays.asList(outcomes));
+            this.elapsedNanos = elapsedNanos;
+
+            Arrays.sort(latencies);
+            p99LatencyNanos = latencies.length == 0 ? 0
+                    : latencies[(int) Math.ceil(latencies.length * LATENCY_PERCENTILE) - 1];
+        }
+
+        /**
+         * Getter for {@code outcomes} field
+         *
+         * @return unmodifiable list of outcomes in order of houses
+         */
+        public List<Outcome> getOutcomes() {
+            return outcomes;
+        }
+
+        /**
+         * Getter for {@code elapsedNanos} field
+         *
+         * @return duration of batch in nanoseconds
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Getter for {@code p99LatencyNanos} field
+         *
+         * @return 99th percentile of latency of one house processing in nanoseconds
+         */
+        public long getP99LatencyNanos() {
+            return p99LatencyNanos;
+        }
+
+        /**
+         * Returns amount of houses processed per second
+         *
+         * @return throughput of batch
+         */
+        public double getThroughput() {
+            return elapsedNanos == 0 ? 0 : outcomes.size() * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * Returns a {@code String} object representing this {@code Result} object's value.
+         * Includes it's class name, amount of houses, throughput and latency values
+         *
+         * @return a string representation of fields values of this object
+         */
+        @Override
+        public String toString() {
+            return "Result[" +
+                    "houses=" + outcomes.size() +
+                    ", throughput=" + Math.round(getThroughput()) + "/s" +
+                    ", p99Latency=" + p99LatencyNanos + "ns" +
+                    ']';
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package ua.onufreiv.inheritance.house;
+
+/**
+ * This class represents keys, issued when all the entrances of house are
+ * locked at once: master key, that unlocks all of them together, and
+ * keys of every entrance, that unlock them one by one.
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+public final class EntranceKeys {
+    /** Key for unlocking all the entrances locked together */
+    private final KeyGenerator.Key masterKey;
+    /** Keys of entrances by their positions; {@code null} for entrances that were already locked */
+    private final KeyGenerator.Key[] entranceKeys;
+    /** Amount of entrances locked together */
+    private final int lockedAmount;
+
+    /**
+     * Parametrized constructor.
+     *
+     * @param masterKey    key for unlocking all the entrances locked together
+     * @param entranceKeys keys of entrances by their positions
+     * @param lockedAmount amount of entrances locked together
+     */
+    EntranceKeys(KeyGenerator.Key masterKey, KeyGenerator.Key[] entranceKeys, int lockedAmount) {
+        this.masterKey = masterKey;
+        this.entranceKeys = entranceKeys;
+        this.lockedAmount = lockedAmount;
+    }
+
+    /**
+     * Getter for {@code masterKey} field
+     *
+     * @return key for unlocking all the entrances locked together
+     */
+    public KeyGenerator.Key getMasterKey() {
+        return masterKey;
+    }
+
+    /**
+     * Returns key of entrance at the specified position
+     *
+     * @param index position of entrance in the house
+     * @return key of entrance or {@code null} if it was already locked
+     */
+    public KeyGenerator.Key getEntranceKey(int index) {
+        return entranceKeys[index];
+    }
+
+    /**
+     * This method return the total amount of entrances of house at the moment of locking
+     *
+     * @return amount of entrances
+     */
+    public int getEntrancesAmount() {
+        return entranceKeys.length;
+    }
+
+    /**
+     * Getter for {@code lockedAmount} field
+     *
+     * @return amount of entrances locked together
+     */
+    public int getLockedAmount() {
+        return lockedAmount;
+    }
+
+    /**
+     * Returns entrance keys array; is used by house for unlocking with the master key
+     *
+     * @return keys of entrances by their positions
+     */
+    KeyGenerator.Key[] getEntranceKeys() {
+        return entranceKeys;
+    }
+
+    /**
+     * Returns a {@code String} object representing this {@code EntranceKeys} object's value.
+     * Includes it's class name, {@code masterKey}, amount of locked entrances
+     * and the total amount of entrances
+     *
+     * @return a string representation of fields values of this object
+     */
+    @Override
+    public String toString() {
+        return "EntranceKeys[" +
+                "masterKey=" + masterKey +
+                ", locked=" + lockedAmount +
+                ", entrances=" + entranceKeys.length +
+                ']';
+    }
+}
@@ -1,38 +1,91 @@
 package ua.onufreiv.inheritance.house;
 
+import ua.onufreiv.inheritance.house.metrics.HouseMetrics;
+import ua.onufreiv.inheritance.house.openings.Direction;
 import ua.onufreiv.inheritance.house.openings.Door;
+import ua.onufreiv.inheritance.house.openings.DoorArray;
+import ua.onufreiv.inheritance.house.openings.ILockable;
+import ua.onufreiv.inheritance.house.openings.IOpenStateListener;
 import ua.onufreiv.inheritance.house.openings.LockableDoor;
 import ua.onufreiv.inheritance.house.openings.OpenableWindow;
 import ua.onufreiv.inheritance.house.openings.Window;
+import ua.onufreiv.inheritance.house.text.IRenderable;
+import ua.onufreiv.inheritance.house.text.Rendering;
+import ua.onufreiv.inheritance.house.warnings.OpenWindowWarning;
+import ua.onufreiv.inheritance.house.warnings.WarningChannel;
 
+import javax.crypto.spec.SecretKeySpec;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * This class represents house containing it's address, square, amount of rooms,
- * amount of floors, entry door, room doors and windows.
+ * amount of floors, entrances, room doors and windows.
+ * <p/> The entry door is the first of entrances; the amount of locked entrances is
+ * maintained on every locking/unlocking, so the check of full locking takes constant time.
  * <p/> Has {@link HouseBuilder} inner class in it.
+ * <p/> Once built, the house could be shared between threads: locking, unlocking
+ * and windows opening are performed without blocking. Building operations
+ * must not run concurrently with them.
  *
  * @author Yurii Onufreiv
  * @version 1.0
  */
-public class House {
+public class House implements IRenderable {
 
     /** Address of house */
     private final String address;
+    /** Secret of house that is used for keys forming */
+    private final SecretKeySpec secret;
     /** Square of house */
     private double square;
     /** Amount of rooms in the house */
     private int roomsAmount;
     /** Amount of floors in the house */
     private int floorsAmount;
-    /** Entry door of house */
-    private LockableDoor entryDoor;
-    /** List of room doors in the house */
-    private List<Door> roomDoors;
-    /** List of windows in the house */
-    private List<Window> windows;
+    /** Entry door of house; is published to the readers, that don't lock the house */
+    private volatile LockableDoor entryDoor;
+    /**
+     * Lockable entrances of house; the entry door is the first of them.
+     * Is copied on write, so readers never see the list in the middle of change
+     */
+    private CopyOnWriteArrayList<ILockable> entrances;
+    /** Amount of entrances that are in 'locked' state */
+    private AtomicInteger lockedEntrancesCount;
+    /** Counter of master keys issued by the house */
+    private AtomicInteger masterEpoch;
+    /** Keys of the latest locking of all entrances, until they're unlocked with the master key */
+    private AtomicReference<EntranceKeys> entranceKeys;
+    /** Room doors in the house with the bitmap of their states */
+    private DoorArray roomDoors;
+    /** List of windows in the house; default windows added in bulk are created on demand */
+    private WindowList windows;
+    /** Positions of {@link OpenableWindow} objects in the {@code windows} list */
+    private BitSet openableWindows;
+    /** Positions of openable windows that are in 'opened' state */
+    private AtomicBitSet openedWindows;
+    /** Amount of windows that are in 'opened' state */
+    private AtomicInteger openedWindowsCount;
+    /** Positions of windows in {@code windows} list by their direction and type */
+    private EnumMap<Direction, EnumMap<Window.WindowType, BitSet>> windowsByOrientation;
+    /** Listeners, that are notified when windows of new direction and type are added */
+    private CopyOnWriteArrayList<IWindowsOrientationListener> orientationListeners;
+    /** Registry of issued keys; if {@code null}, keys never expire */
+    private volatile KeyRegistry keyRegistry;
+    /** Channel of warnings about opened windows; if {@code null}, the default one is used */
+    private volatile WarningChannel warningChannel;
+    /** Journal of state transitions; if {@code null}, transitions aren't journaled */
+    private volatile StateJournal journal;
+    /** Identifier of house in the {@code journal} */
+    private volatile int journalId;
 
     /**
      * Parametrized constructor.
@@ -44,13 +97,199 @@ public class House {
      * @param floorsAmount amount of floors in the house
      */
     private House(String address, double square, int roomsAmount, int floorsAmount) {
+        this(address, square, roomsAmount, floorsAmount, KeyGenerator.newSecret());
+    }
+
+    /**
+     * Parametrized constructor.
+     * <p/> Creates new house object with the specified secret; is used for
+     * restoring of persisted houses, so keys issued before stay valid
+     *
+     * @param address      address of house
+     * @param square       square of house
+     * @param roomsAmount  amount of rooms in the house
+     * @param floorsAmount amount of floors in the house
+     * @param secret       secret of house that is used for keys forming
+     */
+    House(String address, double square, int roomsAmount, int floorsAmount, SecretKeySpec secret) {
         this.address = address;
         this.roomsAmount = roomsAmount;
         this.floorsAmount = floorsAmount;
         this.square = square;
+        this.secret = secret;
+
+        entrances = new CopyOnWriteArrayList<>();
+        lockedEntrancesCount = new AtomicInteger();
+        masterEpoch = new AtomicInteger();
+        entranceKeys = new AtomicReference<>();
+        roomDoors = new DoorArray();
+        roomDoors.setStateListener(this::journalRoomDoor);
+        windows = new WindowList((window, index) -> attachWindow(index, window));
+        openableWindows = new BitSet();
+        openedWindows = new AtomicBitSet();
+        openedWindowsCount = new AtomicInteger();
+        windowsByOrientation = new EnumMap<>(Direction.class);
+        orientationListeners = new CopyOnWriteArrayList<>();
+    }
 
-        roomDoors = new ArrayList<>();
-        windows = new ArrayList<>();
+    /**
+     * Getter for {@code secret} field
+     *
+     * @return secret of house that is used for keys forming
+     */
+    SecretKeySpec getSecret() {
+        return secret;
+    }
+
+    /**
+     * Getter for {@code address} field
+     *
+     * @return address of house
+     */
+    public String getAddress() {
+        return address;
+    }
+
+    /**
+     * Getter for {@code square} field
+     *
+     * @return square of house
+     */
+    public double getSquare() {
+        return square;
+    }
+
+    /**
+     * Getter for {@code roomsAmount} field
+     *
+     * @return amount of rooms in the house
+     */
+    public int getRoomsAmount() {
+        return roomsAmount;
+    }
+
+    /**
+     * Getter for {@code floorsAmount} field
+     *
+     * @return amount of floors in the house
+     */
+    public int getFloorsAmount() {
+        return floorsAmount;
+    }
+
+    /**
+     * Checks whether the entry door of house is in 'locked' state
+     *
+     * @return true, if the house is locked, false otherwise
+     */
+    public boolean isLocked() {
+        return entryDoor.isLocked();
+    }
+
+    /**
+     * Checks whether all the entrances of house are in 'locked' state.
+     * Takes constant time whatever the amount of entrances
+     *
+     * @return true, if the house has entrances and all of them are locked, false otherwise
+     */
+    public boolean isFullyLocked() {
+        int amount = entrances.size();
+        return amount > 0 && lockedEntrancesCount.get() == amount;
+    }
+
+    /**
+     * This method return the total amount of entrances in the house
+     *
+     * @return amount of entrances
+     */
+    public int getEntrancesAmount() {
+        return entrances.size();
+    }
+
+    /**
+     * This method return the amount of entrances that are in 'locked' state.
+     * The value is maintained on every locking/unlocking, so no scanning is performed
+     *
+     * @return amount of locked entrances
+     */
+    public int getLockedEntrancesCount() {
+        return lockedEntrancesCount.get();
+    }
+
+    /**
+     * Getter for {@code entryDoor} field
+     *
+     * @return entry door of house
+     */
+    LockableDoor getEntryDoor() {
+        return entryDoor;
+    }
+
+    /**
+     * Returns entrances of house except the entry door, in order of adding;
+     * is used for persisting of house
+     *
+     * @return list of entrances
+     * @throws IllegalStateException if some entrance isn't {@link LockableDoor},
+     *                               so it couldn't be persisted
+     */
+    List<LockableDoor> getOtherEntrances() {
+        List<LockableDoor> result = new ArrayList<>(entrances.size());
+        for (ILockable entrance : entrances) {
+            if (entrance == entryDoor) {
+                continue;
+            }
+            if (!(entrance instanceof LockableDoor)) {
+                throw new IllegalStateException("Entrance isn't a lockable door");
+            }
+            result.add((LockableDoor) entrance);
+        }
+        return result;
+    }
+
+    /**
+     * Getter for {@code roomDoors} field.
+     * <p/> Doors, that are stored without objects, are returned as temporary read-only
+     * doors, so reading of all the doors doesn't make the array keep their views
+     *
+     * @return unmodifiable list of room doors
+     */
+    List<Door> getRoomDoors() {
+        return roomDoors.peekView();
+    }
+
+    /**
+     * Getter for {@code windows} field.
+     * <p/> Default windows, whose objects aren't created yet, are represented by shared
+     * windows with the same attributes and state, so reading of all the windows doesn't
+     * create their objects. Windows of the list must not be changed
+     *
+     * @return unmodifiable list of windows
+     */
+    List<Window> getWindows() {
+        return windows.peekView();
+    }
+
+    /**
+     * Returns amount of consecutive room doors, starting from the specified position,
+     * that are stored without objects with the default attributes and the same state
+     *
+     * @param index position of room door
+     * @return amount of such doors or 0
+     */
+    int getRoomDoorDefaultsAt(int index) {
+        return roomDoors.defaultsAt(index);
+    }
+
+    /**
+     * Returns amount of consecutive default windows, starting from the specified position,
+     * that still have the default attributes and state and could be added back as the run
+     *
+     * @param index position of window
+     * @return amount of such windows or 0
+     */
+    int getWindowDefaultsAt(int index) {
+        return windows.defaultsAt(index);
     }
 
     /**
@@ -62,66 +301,767 @@ public class House {
     }
 
     /**
-     * This method return the total amount of room doors in the house
-     * @return amount of room doors
+     * This method return the amount of windows that are in 'opened' state.
+     * The value is maintained on every window opening/closing, so no scanning is performed
+     *
+     * @return amount of opened windows
+     */
+    public int getOpenedWindowsCount() {
+        return openedWindowsCount.get();
+    }
+
+    /**
+     * This method return the windows that are in 'opened' state
+     *
+     * @return list of opened windows
+     */
+    public List<OpenableWindow> getOpenedWindows() {
+        List<OpenableWindow> result = new ArrayList<>(openedWindowsCount.get());
+        for (int i = openedWindows.nextSetBit(0); i >= 0; i = openedWindows.nextSetBit(i + 1)) {
+            result.add(getOpenableWindow(i));
+        }
+        return result;
+    }
+
+    /**
+     * This method return the positions of windows in the 'opened' state.
+     * Takes time proportional to the amount of windows divided by 64
+     *
+     * @return bit set of positions of opened windows
+     */
+    public BitSet getOpenedWindowPositions() {
+        return openedWindows.copy();
+    }
+
+    /**
+     * This method return the openable windows at the specified positions;
+     * positions of windows, that couldn't be opened, are skipped
+     *
+     * @param positions positions of windows in the house
+     * @return list of openable windows
+     */
+    public List<OpenableWindow> getOpenableWindows(BitSet positions) {
+        List<OpenableWindow> result = new ArrayList<>(positions.cardinality());
+        for (int i = positions.nextSetBit(0); i >= 0 && i < windows.size(); i = positions.nextSetBit(i + 1)) {
+            if (openableWindows.get(i)) {
+                result.add(getOpenableWindow(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds windows with the specified direction and type.
+     * Takes time proportional to the amount of found windows
+     *
+     * @param direction direction of windows or {@code null} for any direction
+     * @param type      type of windows or {@code null} for any type
+     * @return list of found windows
+     */
+    public List<Window> findWindows(Direction direction, Window.WindowType type) {
+        BitSet positions = orientationPositions(direction, type);
+        List<Window> result = new ArrayList<>(positions.cardinality());
+        for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1)) {
+            result.add(windows.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Finds windows with the specified direction and type, that are in 'opened' state.
+     * The positions of such windows are found by intersection of orientation and
+     * opened windows bitmaps
+     *
+     * @param direction direction of windows or {@code null} for any direction
+     * @param type      type of windows or {@code null} for any type
+     * @return list of found windows
+     */
+    public List<OpenableWindow> findOpenedWindows(Direction direction, Window.WindowType type) {
+        long[] words = orientationPositions(direction, type).toLongArray();
+        List<OpenableWindow> result = new ArrayList<>();
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i] & openedWindows.getWord(i);
+            while (word != 0) {
+                result.add(getOpenableWindow(i * Long.SIZE + Long.numberOfTrailingZeros(word)));
+                word &= word - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * This method return the amount of windows with the specified direction
+     * and type, that are in 'opened' state
+     *
+     * @param direction direction of windows or {@code null} for any direction
+     * @param type      type of windows or {@code null} for any type
+     * @return amount of opened windows
+     */
+    public int countOpenedWindows(Direction direction, Window.WindowType type) {
+        long[] words = orientationPositions(direction, type).toLongArray();
+        int count = 0;
+        for (int i = 0; i < words.length; i++) {
+            count += Long.bitCount(words[i] & openedWindows.getWord(i));
+        }
+        return count;
+    }
+
+    /**
+     * This method return the total amount of doors in the house: room doors and entrances
+     * @return amount of doors
      */
     public int getDoorsAmount() {
-        return roomDoors.size() + 1;
+        return roomDoors.size() + entrances.size();
+    }
+
+    /**
+     * This method return the amount of room doors in the 'opened' state
+     * @return amount of opened room doors
+     */
+    public int getOpenedRoomDoorsCount() {
+        return roomDoors.getOpenedCount();
+    }
+
+    /**
+     * Switches all the room doors to the 'opened' state
+     * @return amount of room doors, that were opened by this call
+     */
+    public int openAllRoomDoors() {
+        return roomDoors.openAll();
+    }
+
+    /**
+     * Switches all the room doors to the 'closed' state
+     * @return amount of room doors, that were closed by this call
+     */
+    public int closeAllRoomDoors() {
+        return roomDoors.closeAll();
     }
 
     /**
      * Switches the state of arbitrary window to the 'opened'
-     * @return true, if some window was opened, false otherwise
+     * @return true, if some window was opened by this call, false otherwise
      */
     public boolean openSomeWindow() {
-        for (Window window : windows) {
-            if (window instanceof OpenableWindow) {
-                OpenableWindow openableWindow = (OpenableWindow) window;
-                if (!openableWindow.isOpened()) {
-                    openableWindow.open();
+        HouseMetrics metrics = HouseMetrics.getDefault();
+        long startTime = metrics.startTimer();
+        try {
+            for (int i = openableWindows.nextSetBit(0); i >= 0; i = openableWindows.nextSetBit(i + 1)) {
+                if (!openedWindows.get(i) && getOpenableWindow(i).tryOpen()) {
                     return true;
                 }
             }
+            return false;
+        } finally {
+            metrics.stopTimer(HouseMetrics.Timer.OPEN_WINDOW, startTime);
         }
-        return false;
     }
 
     /**
-     * Switches the entry door into 'locked' state if it's in 'unlocked' one.
+     * Closes the entry door and switches it into 'locked' state if it's in 'unlocked' one.
      * Returns the generated the key for the door.
-     * <p/> Prints warning message to the console in case there some window in the opened state
+     * <p/> Publishes {@link OpenWindowWarning} into the warning channel in case there some
+     * window in the opened state. The warning carries only the amount of opened windows;
+     * their positions are copied by the consumer thread of the channel, so the locking
+     * takes constant time regardless of the amount of windows.
+     * <p/> If the house has key registry, the key is registered in it
      *
      * @return key object if the door locking was successful; null if it is already locked
      */
     public KeyGenerator.Key lockWithKey() {
-        if (entryDoor.isLocked()) {
+        HouseMetrics metrics = HouseMetrics.getDefault();
+        long startTime = metrics.startTimer();
+        KeyGenerator.Key key = entryDoor.lock(this);
+        if (key == null) {
+            metrics.increment(HouseMetrics.Counter.LOCK_FAILURE);
+            metrics.stopTimer(HouseMetrics.Timer.LOCK, startTime);
             return null;
         }
 
-        if (entryDoor.isOpened()) {
-            entryDoor.close();
+        KeyRegistry registry = keyRegistry;
+        if (registry != null) {
+            registry.register(key);
         }
+        journalLock(0);
 
-        for (Window window : windows) {
-            if (window instanceof OpenableWindow
-                    && ((OpenableWindow) window).isOpened()) {
-                System.out.printf("WARNING!!! There is opened window: %s%n", window.toString());
-            }
+        if (openedWindowsCount.get() > 0) {
+            WarningChannel channel = warningChannel;
+            (channel != null ? channel : WarningChannel.getDefault())
+                    .publish(new OpenWindowWarning(this, openedWindowsCount.get()));
+            metrics.increment(HouseMetrics.Counter.WARNING_EMITTED);
         }
 
-        return entryDoor.lock(this);
+        metrics.increment(HouseMetrics.Counter.LOCK_SUCCESS);
+        metrics.stopTimer(HouseMetrics.Timer.LOCK, startTime);
+        return key;
     }
 
     /**
      * Switches the door into 'unlocked' state if two conditions are satisfied:
      * <p/>1. it is in 'locked' state
      * <p/>2. passed key object is valid for this doors
+     * <p/>If the house has key registry, the key also must be valid in it;
+     * after successful unlocking the key is released from the registry
      *
      * @param key key for unlocking the door
      * @return {@code true} if door where successfully unlocked, {@code false} otherwise
      */
     public boolean unlockWithKey(KeyGenerator.Key key) {
-        return (entryDoor.isLocked() && entryDoor.unlock(this, key));
+        HouseMetrics metrics = HouseMetrics.getDefault();
+        long startTime = metrics.startTimer();
+        boolean isUnlocked = unlock(key);
+        metrics.increment(isUnlocked
+                ? HouseMetrics.Counter.UNLOCK_SUCCESS : HouseMetrics.Counter.UNLOCK_FAILURE);
+        metrics.stopTimer(HouseMetrics.Timer.UNLOCK, startTime);
+        return isUnlocked;
+    }
+
+    /**
+     * Switches the entrance at the specified position into 'unlocked' state,
+     * see {@link #unlockWithKey(KeyGenerator.Key)}
+     *
+     * @param index position of entrance; the entry door is at position 0
+     * @param key   key for unlocking the entrance
+     * @return {@code true} if entrance where successfully unlocked, {@code false} otherwise
+     */
+    public boolean unlockEntrance(int index, KeyGenerator.Key key) {
+        HouseMetrics metrics = HouseMetrics.getDefault();
+        long startTime = metrics.startTimer();
+        boolean isUnlocked = unlock(index, key);
+        metrics.increment(isUnlocked
+                ? HouseMetrics.Counter.UNLOCK_SUCCESS : HouseMetrics.Counter.UNLOCK_FAILURE);
+        metrics.stopTimer(HouseMetrics.Timer.UNLOCK, startTime);
+        return isUnlocked;
+    }
+
+    /**
+     * Closes all the entrances and switches them into 'locked' state in one batch.
+     * Returns master key, that unlocks all the entrances locked by this call, together
+     * with the key of every such entrance. Entrances that are already locked are skipped.
+     * <p/> The warning about opened windows is published once for the whole batch.
+     * <p/> If the house has key registry, the master key and keys of entrances are
+     * registered in it. Master key of the previous batch becomes invalid, while
+     * keys of its entrances stay valid
+     *
+     * @return keys of locked entrances; null if all of them are already locked
+     */
+    public EntranceKeys lockAllEntrances() {
+        HouseMetrics metrics = HouseMetrics.getDefault();
+        long startTime = metrics.startTimer();
+        KeyRegistry registry = keyRegistry;
+        KeyGenerator.Key[] keys = new KeyGenerator.Key[entrances.size()];
+        int lockedAmount = 0;
+        for (int i = 0; i < keys.length; i++) {
+            ILockable entrance = entrances.get(i);
+            keys[i] = entrance.lock(this);
+            if (keys[i] == null) {
+                continue;
+            }
+
+            lockedAmount++;
+            if (registry != null) {
+                registry.register(keys[i]);
+            }
+            journalLock(i);
+            metrics.increment(HouseMetrics.Counter.LOCK_SUCCESS);
+        }
+
+        if (lockedAmount == 0) {
+            metrics.increment(HouseMetrics.Counter.LOCK_FAILURE);
+            metrics.stopTimer(HouseMetrics.Timer.LOCK, startTime);
+            return null;
+        }
+
+        KeyGenerator.Key masterKey = KeyGenerator.generateMasterKey(this, masterEpoch.incrementAndGet());
+        if (registry != null) {
+            registry.register(masterKey);
+        }
+        EntranceKeys result = new EntranceKeys(masterKey, keys, lockedAmount);
+        EntranceKeys previous = entranceKeys.getAndSet(result);
+        if (previous != null && registry != null) {
+            registry.revoke(previous.getMasterKey());
+        }
+
+        if (openedWindowsCount.get() > 0) {
+            WarningChannel channel = warningChannel;
+            (channel != null ? channel : WarningChannel.getDefault())
+                    .publish(new OpenWindowWarning(this, openedWindowsCount.get()));
+            metrics.increment(HouseMetrics.Counter.WARNING_EMITTED);
+        }
+
+        metrics.stopTimer(HouseMetrics.Timer.LOCK, startTime);
+        return result;
+    }
+
+    /**
+     * Switches all the entrances, locked together with the specified master key,
+     * into 'unlocked' state. The master key could be used only once. Entrances that
+     * were already unlocked with their own keys are skipped
+     *
+     * @param masterKey master key of the latest {@link #lockAllEntrances()} call
+     * @return amount of unlocked entrances; 0 if the master key isn't valid
+     */
+    public int unlockAllEntrances(KeyGenerator.Key masterKey) {
+        HouseMetrics metrics = HouseMetrics.getDefault();
+        long startTime = metrics.startTimer();
+        KeyRegistry registry = keyRegistry;
+        EntranceKeys keys = entranceKeys.get();
+        if (keys == null || !keys.getMasterKey().equals(masterKey)
+                || (registry != null && !registry.isValid(masterKey))
+                || !entranceKeys.compareAndSet(keys, null)) {
+            metrics.increment(HouseMetrics.Counter.KEY_VALIDATION_FAILURE);
+            metrics.increment(HouseMetrics.Counter.UNLOCK_FAILURE);
+            metrics.stopTimer(HouseMetrics.Timer.UNLOCK, startTime);
+            return 0;
+        }
+
+        if (registry != null) {
+            registry.release(masterKey);
+        }
+        KeyGenerator.Key[] keysArray = keys.getEntranceKeys();
+        int unlockedAmount = 0;
+        for (int i = 0; i < keysArray.length; i++) {
+            if (keysArray[i] != null && unlock(i, keysArray[i])) {
+                unlockedAmount++;
+                metrics.increment(HouseMetrics.Counter.UNLOCK_SUCCESS);
+            }
+        }
+        metrics.stopTimer(HouseMetrics.Timer.UNLOCK, startTime);
+        return unlockedAmount;
+    }
+
+    /**
+     * Performs unlocking of the entry door, see {@link #unlockWithKey(KeyGenerator.Key)}
+     *
+     * @param key key for unlocking the door
+     * @return {@code true} if door where successfully unlocked, {@code false} otherwise
+     */
+    private boolean unlock(KeyGenerator.Key key) {
+        return unlock(0, key);
+    }
+
+    /**
+     * Performs unlocking of the entrance and journals its lock state
+     *
+     * @param index position of entrance; the entry door is at position 0
+     * @param key   key for unlocking the entrance
+     * @return {@code true} if entrance where successfully unlocked, {@code false} otherwise
+     */
+    private boolean unlock(int index, KeyGenerator.Key key) {
+        ILockable entrance = entrances.get(index);
+        KeyRegistry registry = keyRegistry;
+        if (registry != null && !registry.isValid(key)) {
+            HouseMetrics.getDefault().increment(HouseMetrics.Counter.KEY_VALIDATION_FAILURE);
+            return false;
+        }
+
+        if (!entrance.unlock(this, key)) {
+            return false;
+        }
+        if (registry != null) {
+            registry.release(key);
+        }
+        journalLock(index);
+        return true;
+    }
+
+    /**
+     * Appends entrance, starts counting of its lock state and
+     * journaling of its state transitions
+     *
+     * @param entrance entrance for adding
+     */
+    private void appendEntrance(ILockable entrance) {
+        entrances.add(entrance);
+        attachEntrance(entrance);
+        attachEntranceJournaling(entrances.size() - 1);
+    }
+
+    /**
+     * Starts journaling of opening and closing of entrance at the specified position,
+     * if it's a door. The entry door is journaled by {@link #replaceEntryDoor}
+     *
+     * @param index position of entrance
+     */
+    private void attachEntranceJournaling(int index) {
+        ILockable entrance = entrances.get(index);
+        if (entrance instanceof Door && entrance != entryDoor) {
+            ((Door) entrance).setStateListener(doorJournaling(StateJournal.entranceDoorIndex(index)));
+        }
+    }
+
+    /**
+     * Replaces the entry door, which is the first of entrances, and
+     * starts journaling of its state transitions
+     *
+     * @param lockableDoor new entry door
+     */
+    private void replaceEntryDoor(LockableDoor lockableDoor) {
+        lockableDoor.setStateListener(doorJournaling(StateJournal.ENTRY_DOOR_INDEX));
+        if (entryDoor == null) {
+            entrances.add(0, lockableDoor);
+            for (int i = 1; i < entrances.size(); i++) {
+                attachEntranceJournaling(i);
+            }
+        } else {
+            detachEntrance(entryDoor);
+            entrances.set(0, lockableDoor);
+        }
+        attachEntrance(lockableDoor);
+        entryDoor = lockableDoor;
+    }
+
+    /**
+     * Starts counting of entrance lock state in {@code lockedEntrancesCount}
+     *
+     * @param entrance entrance of house
+     */
+    private void attachEntrance(ILockable entrance) {
+        entrance.setLockStateListener(this::onLockStateChanged);
+        if (entrance.isLocked()) {
+            lockedEntrancesCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Stops counting of entrance lock state in {@code lockedEntrancesCount}
+     *
+     * @param entrance entrance that is removed from house
+     */
+    private void detachEntrance(ILockable entrance) {
+        entrance.setLockStateListener(null);
+        if (entrance.isLocked()) {
+            lockedEntrancesCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Updates {@code lockedEntrancesCount} when some entrance switches its lock state
+     *
+     * @param source   entrance that switched its lock state
+     * @param isLocked new lock state of entrance
+     */
+    private void onLockStateChanged(ILockable source, boolean isLocked) {
+        lockedEntrancesCount.addAndGet(isLocked ? 1 : -1);
+    }
+
+    /**
+     * Returns openable window stored at the specified position of {@code windows} list.
+     * The position must be marked in {@code openableWindows}
+     *
+     * @param index position of window
+     * @return openable window object
+     */
+    private OpenableWindow getOpenableWindow(int index) {
+        return (OpenableWindow) windows.get(index);
+    }
+
+    /**
+     * Grows storage of windows, so it could hold specified amount of
+     * additional windows without reallocation
+     *
+     * @param amount amount of windows that are going to be added
+     */
+    private void ensureWindowsCapacity(int amount) {
+        int capacity = windows.size() + amount;
+        windows.ensureCapacity(capacity);
+        openedWindows.ensureCapacity(capacity);
+    }
+
+    /**
+     * Checks whether the house has some windows with the specified direction and type
+     *
+     * @param direction direction of windows or {@code null} for any direction
+     * @param type      type of windows or {@code null} for any type
+     * @return true if there is such window, false otherwise
+     */
+    boolean hasWindows(Direction direction, Window.WindowType type) {
+        return !orientationPositions(direction, type).isEmpty();
+    }
+
+    /**
+     * Adds listener, that is notified every time the house gets the first
+     * window with some direction and type, e.g. by {@link HouseBuilder#addWindow(Window)}
+     * called after the house was indexed
+     *
+     * @param listener listener for adding
+     */
+    public void addWindowsOrientationListener(IWindowsOrientationListener listener) {
+        if (listener == null) {
+            throw new NullPointerException("Parameter 'listener' is null");
+        }
+        orientationListeners.add(listener);
+    }
+
+    /**
+     * Removes listener of windows orientations
+     *
+     * @param listener listener for removing
+     */
+    public void removeWindowsOrientationListener(IWindowsOrientationListener listener) {
+        orientationListeners.remove(listener);
+    }
+
+    /**
+     * Marks positions of windows with the specified direction and type in the
+     * orientation index and notifies listeners, if there were no such windows before
+     *
+     * @param direction direction of windows
+     * @param type      type of windows
+     * @param from      first position (inclusive)
+     * @param to        last position (exclusive)
+     */
+    private void markOrientation(Direction direction, Window.WindowType type, int from, int to) {
+        BitSet positions = windowsByOrientation
+                .computeIfAbsent(direction, key -> new EnumMap<>(Window.WindowType.class))
+                .computeIfAbsent(type, key -> new BitSet());
+        boolean isNew = positions.isEmpty();
+        positions.set(from, to);
+        if (isNew) {
+            for (IWindowsOrientationListener listener : orientationListeners) {
+                listener.windowsOrientationAdded(this, direction, type);
+            }
+        }
+    }
+
+    /**
+     * Returns positions of windows with the specified direction and type.
+     * For wildcard values the union of matching bitmaps is formed
+     *
+     * @param direction direction of windows or {@code null} for any direction
+     * @param type      type of windows or {@code null} for any type
+     * @return bitmap of positions; must not be modified
+     */
+    private BitSet orientationPositions(Direction direction, Window.WindowType type) {
+        if (direction != null && type != null) {
+            EnumMap<Window.WindowType, BitSet> byType = windowsByOrientation.get(direction);
+            BitSet positions = byType == null ? null : byType.get(type);
+            return positions == null ? new BitSet() : positions;
+        }
+
+        BitSet union = new BitSet();
+        for (Map.Entry<Direction, EnumMap<Window.WindowType, BitSet>> byDirection
+                : windowsByOrientation.entrySet()) {
+            if (direction != null && byDirection.getKey() != direction) {
+                continue;
+            }
+            for (Map.Entry<Window.WindowType, BitSet> byType : byDirection.getValue().entrySet()) {
+                if (type == null || byType.getKey() == type) {
+                    union.or(byType.getValue());
+                }
+            }
+        }
+        return union;
+    }
+
+    /**
+     * Appends window to the {@code windows} list, marks its position
+     * in {@code openableWindows} if it could be opened and in the orientation
+     * index. Windows without direction or type aren't present in the orientation index
+     *
+     * @param window window for adding
+     */
+    private void appendWindow(Window window) {
+        final int index = windows.size();
+        if (window instanceof OpenableWindow) {
+            openableWindows.set(index);
+            openedWindows.ensureCapacity(index + 1);
+        }
+        attachWindow(index, window);
+        windows.add(window);
+
+        if (window.getLookAtDirection() != null && window.getType() != null) {
+            markOrientation(window.getLookAtDirection(), window.getType(), index, index + 1);
+        }
+    }
+
+    /**
+     * Appends run of the specified amount of default windows to the {@code windows}
+     * list and marks their positions the same way as {@link #appendWindow(Window)} does.
+     * Window objects aren't created; attributes of default windows are taken from the
+     * single prototype object
+     *
+     * @param amount amount of windows for adding
+     */
+    private void appendDefaultWindows(int amount) {
+        if (amount == 0) {
+            return;
+        }
+
+        final int index = windows.size();
+        for (int i = index + 1; i < index + amount; i += 2) {
+            openableWindows.set(i);
+        }
+        openedWindows.ensureCapacity(index + amount);
+        windows.addDefaults(amount);
+
+        Window prototype = new Window();
+        markOrientation(prototype.getLookAtDirection(), prototype.getType(), index, index + amount);
+    }
+
+    /**
+     * Starts tracking of state transitions of window at the specified position,
+     * if it could be opened: updates {@code openedWindows} index and writes
+     * transitions into the {@code journal}
+     *
+     * @param index  position of window
+     * @param window window object
+     */
+    private void attachWindow(int index, Window window) {
+        if (window instanceof OpenableWindow) {
+            final OpenableWindow openableWindow = (OpenableWindow) window;
+            openableWindow.setStateListener((source, isOpened) -> {
+                onWindowStateChanged(index, openableWindow);
+                StateJournal currentJournal = journal;
+                if (currentJournal != null) {
+                    currentJournal.recordWindow(journalId, index, openableWindow);
+                }
+            });
+            onWindowStateChanged(index, openableWindow);
+        }
+    }
+
+    /**
+     * Appends door to the {@code roomDoors} array, which journals its state transitions
+     *
+     * @param door door for adding
+     */
+    private void appendRoomDoor(Door door) {
+        roomDoors.add(door);
+    }
+
+    /**
+     * Writes state transition of room door into the {@code journal}
+     *
+     * @param index    index of room door
+     * @param isOpened state of room door
+     */
+    private void journalRoomDoor(int index, boolean isOpened) {
+        StateJournal currentJournal = journal;
+        if (currentJournal != null) {
+            currentJournal.recordDoor(journalId, index, isOpened);
+        }
+    }
+
+    /**
+     * Returns listener that writes state transitions of door into the {@code journal}
+     *
+     * @param index index of door, {@code StateJournal.ENTRY_DOOR_INDEX} for entry door
+     * @return listener of door state
+     */
+    private IOpenStateListener doorJournaling(int index) {
+        return (source, isOpened) -> {
+            StateJournal currentJournal = journal;
+            if (currentJournal != null) {
+                currentJournal.recordDoor(journalId, index, source);
+            }
+        };
+    }
+
+    /**
+     * Writes the current lock state of entrance at the specified position into the
+     * {@code journal}. Only lockable doors are journaled, other entrances couldn't be restored
+     *
+     * @param index position of entrance; the entry door is at position 0
+     */
+    private void journalLock(int index) {
+        StateJournal currentJournal = journal;
+        if (currentJournal == null) {
+            return;
+        }
+
+        ILockable entrance = entrances.get(index);
+        if (entrance == entryDoor) {
+            currentJournal.recordLock(journalId, entryDoor);
+        } else if (entrance instanceof LockableDoor) {
+            currentJournal.recordEntranceLock(journalId, index, (LockableDoor) entrance);
+        }
+    }
+
+    /**
+     * Restores state of window from the journal. Windows, that couldn't be opened
+     * or are already in the restored state, are skipped, so default windows aren't created
+     *
+     * @param index    index of window
+     * @param isOpened state of window
+     */
+    void restoreWindowState(int index, boolean isOpened) {
+        if (!openableWindows.get(index) || openedWindows.get(index) == isOpened) {
+            return;
+        }
+
+        OpenableWindow window = getOpenableWindow(index);
+        if (isOpened) {
+            window.open();
+        } else {
+            window.close();
+        }
+    }
+
+    /**
+     * Restores state of door from the journal
+     *
+     * @param index    index of room door or negative index of entrance,
+     *                 see {@link StateJournal#entranceDoorIndex(int)}
+     * @param isOpened state of door
+     */
+    void restoreDoorState(int index, boolean isOpened) {
+        if (index >= 0) {
+            if (isOpened) {
+                roomDoors.open(index);
+            } else {
+                roomDoors.close(index);
+            }
+            return;
+        }
+
+        ILockable entrance = entrances.get(StateJournal.entranceDoorIndex(index));
+        if (!(entrance instanceof Door)) {
+            return;
+        }
+        if (isOpened) {
+            ((Door) entrance).open();
+        } else {
+            ((Door) entrance).close();
+        }
+    }
+
+    /**
+     * Restores lock state of entrance from the journal. The state of the existing
+     * lockable door is changed atomically, so the house isn't changed structurally
+     * and could be read concurrently, e.g. by queries to the replica
+     *
+     * @param index     position of entrance; the entry door is at position 0
+     * @param isLocked  lock state of entrance
+     * @param lockEpoch lock epoch of entrance
+     */
+    void restoreLockState(int index, boolean isLocked, int lockEpoch) {
+        ILockable entrance = entrances.get(index);
+        if (entrance instanceof LockableDoor) {
+            ((LockableDoor) entrance).restoreLockState(lockEpoch, isLocked);
+        }
+    }
+
+    /**
+     * Updates {@code openedWindows} index and {@code openedWindowsCount}
+     * when window at the specified position switches its state.
+     * <p/>The state is re-read after the update, so concurrent notifications
+     * that arrive out of order still leave the index consistent with the window
+     *
+     * @param index  position of window
+     * @param window window that switched its state
+     */
+    private void onWindowStateChanged(int index, OpenableWindow window) {
+        boolean isOpened;
+        do {
+            isOpened = window.isOpened();
+            if (openedWindows.set(index, isOpened)) {
+                openedWindowsCount.addAndGet(isOpened ? 1 : -1);
+                if (isOpened) {
+                    HouseMetrics.getDefault().increment(HouseMetrics.Counter.WINDOW_OPENED);
+                }
+            }
+        } while (window.isOpened() != isOpened);
     }
 
     /**
@@ -154,7 +1094,7 @@ public class House {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(address);
+        return Objects.hashCode(address);
     }
 
     /**
@@ -167,15 +1107,27 @@ public class House {
      */
     @Override
     public String toString() {
-        return "House[" +
-                "address='" + address + '\'' +
-                ", square=" + square +
-                ", rooms=" + roomsAmount +
-                ", floors=" + floorsAmount +
-                ", entryDoorLocked=" + entryDoor.isLocked() +
-                ", roomDoors=" + roomDoors.size() +
-                ", windows=" + windows.size() +
-                ']';
+        return Rendering.toString(this);
+    }
+
+    /**
+     * Appends the representation of this {@code House} object, the same as
+     * {@link #toString()} returns, to the builder
+     *
+     * @param builder builder to append to
+     * @return the passed builder
+     */
+    @Override
+    public StringBuilder render(StringBuilder builder) {
+        return builder.append("House[")
+                .append("address='").append(address).append('\'')
+                .append(", square=").append(square)
+                .append(", rooms=").append(roomsAmount)
+                .append(", floors=").append(floorsAmount)
+                .append(", entryDoorLocked=").append(entryDoor.isLocked())
+                .append(", roomDoors=").append(roomDoors.size())
+                .append(", windows=").append(windows.size())
+                .append(']');
     }
 
     /**
@@ -213,7 +1165,7 @@ public class House {
         }
 
         /**
-         * Sets the entry door of house.
+         * Sets the entry door of house, which is the first of its entrances.
          * <p/>If the existing entry door is in 'locked' state - IllegalStateException is thrown
          *
          * @param lockableDoor new lockable door object
@@ -224,7 +1176,52 @@ public class House {
             } else if (lockableDoor == null) {
                 throw new NullPointerException("Parameter 'lockableDoor' is null");
             }
-            house.entryDoor = lockableDoor;
+            house.replaceEntryDoor(lockableDoor);
+        }
+
+        /**
+         * Adds passed lockable object to the entrances of house, after the entry door
+         *
+         * @param entrance entrance for adding
+         */
+        public void addEntrance(ILockable entrance) {
+            if (entrance == null) {
+                throw new NullPointerException("Parameter 'entrance' is null");
+            }
+            house.appendEntrance(entrance);
+        }
+
+        /**
+         * Sets the channel, into which warnings about opened windows are published
+         *
+         * @param warningChannel channel of warnings or {@code null} to use the default one
+         */
+        public void setWarningChannel(WarningChannel warningChannel) {
+            house.warningChannel = warningChannel;
+        }
+
+        /**
+         * Sets the journal, into which state transitions of doors, windows and
+         * entry door lock are written. Transitions are journaled only when they're
+         * made through the house: its openings or {@code lockWithKey}/{@code unlockWithKey}
+         *
+         * @param journal journal of state transitions or {@code null} to stop journaling
+         */
+        public void setJournal(StateJournal journal) {
+            if (journal != null) {
+                house.journalId = journal.register(house);
+            }
+            house.journal = journal;
+        }
+
+        /**
+         * Sets the registry, in which keys of the house entry door are registered.
+         * Keys issued before aren't registered, so they become invalid
+         *
+         * @param keyRegistry registry of keys or {@code null} for keys that never expire
+         */
+        public void setKeyRegistry(KeyRegistry keyRegistry) {
+            house.keyRegistry = keyRegistry;
         }
 
         /**
@@ -233,7 +1230,7 @@ public class House {
          * @param door door for adding
          */
         public void addRoomDoor(Door door) {
-            house.roomDoors.add(door);
+            house.appendRoomDoor(door);
         }
 
         /**
@@ -242,12 +1239,39 @@ public class House {
          * @param window window for adding
          */
         public void addWindow(Window window) {
-            house.windows.add(window);
+            house.appendWindow(window);
         }
 
         /**
-         * Adds specified amount of room doors using the
-         * default constructor of {@link Door} class
+         * Adds all the passed door objects to the doors list.
+         * The storage is grown once for the whole collection
+         *
+         * @param doors doors for adding
+         */
+        public void addRoomDoors(Collection<? extends Door> doors) {
+            house.roomDoors.ensureCapacity(house.roomDoors.size() + doors.size());
+            for (Door door : doors) {
+                house.appendRoomDoor(door);
+            }
+        }
+
+        /**
+         * Adds all the passed window objects to the windows list.
+         * The storage is grown once for the whole collection
+         *
+         * @param windows windows for adding
+         */
+        public void addWindows(Collection<? extends Window> windows) {
+            house.ensureWindowsCapacity(windows.size());
+            for (Window window : windows) {
+                house.appendWindow(window);
+            }
+        }
+
+        /**
+         * Adds specified amount of room doors with the default
+         * attributes of {@link Door} class in the 'closed' state.
+         * Door objects aren't created, the doors are kept in the bitmap
          *
          * @param amount amount of doors to add
          */
@@ -256,14 +1280,26 @@ public class House {
                 throw new IllegalArgumentException("Negative value");
             }
 
-            for (int i = 0; i < amount; i++) {
-                house.roomDoors.add(new Door());
-            }
+            house.roomDoors.addDefaults(amount);
+        }
+
+        /**
+         * Adds specified amount of room doors with the default attributes of
+         * {@link Door} class in the specified state without creating objects.
+         * Is used for restoring of doors, so the state changes aren't journaled
+         *
+         * @param amount   amount of doors to add
+         * @param isOpened state of doors
+         */
+        void addRoomDoors(int amount, boolean isOpened) {
+            house.roomDoors.addDefaults(amount, isOpened);
         }
 
         /**
-         * Adds specified amount of windows using the
-         * default constructor of {@link Window} or {@link OpenableWindow} class
+         * Adds specified amount of windows with the default attributes:
+         * {@link Window} and {@link OpenableWindow} one after another.
+         * Window objects are created only when they're accessed,
+         * e.g. opened, modified or iterated
          *
          * @param amount amount of windows to add
          */
@@ -272,13 +1308,7 @@ public class House {
                 throw new IllegalArgumentException("Negative value");
             }
 
-            for (int i = 0; i < amount; i++) {
-                if (i % 2 == 0) {
-                    house.windows.add(new Window());
-                } else {
-                    house.windows.add(new OpenableWindow());
-                }
-            }
+            house.appendDefaultWindows(amount);
         }
 
         /**
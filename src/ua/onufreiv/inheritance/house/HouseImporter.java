@@ -0,0 +1,930 @@
+package ua.onufreiv.inheritance.house;
+
+import ua.onufreiv.inheritance.house.openings.LockableDoor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * This class imports houses from CSV or JSON Lines files in the streaming manner.
+ * <p/> Every line describes one house. CSV lines contain comma-separated
+ * {@code address,square,rooms,floors[,doors[,windows]]} fields, the address could be
+ * double-quoted; the header line is skipped. JSON Lines contain flat objects with
+ * the same keys. Missing {@code doors} and {@code windows} are considered zero.
+ * Every imported house gets default {@link LockableDoor} as the entry door.
+ * <p/> The file is processed by the pipeline of three stages: parsing, validation and
+ * building. The stages run in separate threads and pass batches of rows through
+ * bounded queues, so the memory usage doesn't depend on the size of file.
+ * Fields are parsed straight from the read bytes; only the address becomes a {@code String}.
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+public class HouseImporter {
+
+    /**
+     * This enum represents supported formats of files
+     */
+    public enum Format {
+        CSV, JSON_LINES
+    }
+
+    /** Default capacity of queues between stages, in batches */
+    private static final int DEFAULT_QUEUE_CAPACITY = 16;
+    /** Default amount of rows in one batch */
+    private static final int DEFAULT_BATCH_SIZE = 512;
+    /** Initial size of read buffer; is grown for lines that don't fit it */
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    /** Batch that marks the end of rows */
+    private static final List<Row> END = new ArrayList<>(0);
+
+    /** Format of imported files */
+    private final Format format;
+    /** Capacity of queues between stages, in batches */
+    private final int queueCapacity;
+    /** Amount of rows in one batch */
+    private final int batchSize;
+    /** Listener of rejected rows or {@code null} */
+    private BiConsumer<Long, String> rejectListener;
+
+    /**
+     * Parametrized constructor.
+     *
+     * @param format format of imported files
+     */
+    public HouseImporter(Format format) {
+        this(format, DEFAULT_QUEUE_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Parametrized constructor.
+     *
+     * @param format        format of imported files
+     * @param queueCapacity capacity of queues between stages, in batches
+     * @param batchSize     amount of rows in one batch
+     */
+    public HouseImporter(Format format, int queueCapacity, int batchSize) {
+        if (format == null) {
+            throw new NullPointerException("Parameter 'format' is null");
+        } else if (queueCapacity <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Non-positive value");
+        }
+
+        this.format = format;
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sets the listener of rejected rows. It's called in the thread of
+     * {@link #importFrom(Path, Consumer)} with line number and the reason of rejection
+     *
+     * @param rejectListener listener of rejected rows or {@code null}
+     */
+    public void setRejectListener(BiConsumer<Long, String> rejectListener) {
+        this.rejectListener = rejectListener;
+    }
+
+    /**
+     * Imports houses from the file. Houses are passed to the consumer in the
+     * thread of this call and in the order of lines
+     *
+     * @param path     path of file
+     * @param consumer consumer of imported houses
+     * @return amounts of imported and rejected rows
+     * @throws IOException if the file couldn't be read
+     */
+    public Result importFrom(Path path, Consumer<House> consumer) throws IOException {
+        if (path == null || consumer == null) {
+            throw new NullPointerException("Null value(-s)");
+        }
+        return new Pipeline(path).run(consumer);
+    }
+
+    /**
+     * This class represents one run of import: stages threads and queues between them
+     */
+    private class Pipeline {
+        /** Path of imported file */
+        private final Path path;
+        /** Batches of parsed rows */
+        private final BlockingQueue<List<Row>> parsed = new ArrayBlockingQueue<>(queueCapacity);
+        /** Batches of validated rows */
+        private final BlockingQueue<List<Row>> validated = new ArrayBlockingQueue<>(queueCapacity);
+        /** Failure of parsing or validation stage */
+        private volatile Throwable failure;
+
+        /**
+         * Parametrized constructor.
+         *
+         * @param path path of imported file
+         */
+        Pipeline(Path path) {
+            this.path = path;
+        }
+
+        /**
+         * Starts parsing and validation stages and performs building stage
+         *
+         * @param consumer consumer of imported houses
+         * @return amounts of imported and rejected rows
+         * @throws IOException if the file couldn't be read
+         */
+        Result run(Consumer<House> consumer) throws IOException {
+            Thread parser = new Thread(this::parseStage, "house-import-parser");
+            Thread validator = new Thread(this::validateStage, "house-import-validator");
+            parser.setDaemon(true);
+            validator.setDaemon(true);
+            parser.start();
+            validator.start();
+
+            try {
+                return buildStage(consumer);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Import is interrupted", e);
+            } finally {
+                parser.interrupt();
+                validator.interrupt();
+            }
+        }
+
+        /**
+         * Reads the file and parses its lines into batches of rows
+         */
+        private void parseStage() {
+            LineParser lineParser = format == Format.CSV ? new CsvParser() : new JsonLinesParser();
+            List<Row> batch = new ArrayList<>(batchSize);
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                byte[] buffer = new byte[READ_BUFFER_SIZE];
+                int start = 0;
+                int scanned = 0;
+                int limit = 0;
+                long lineNumber = 0;
+                boolean isEnd = false;
+
+                while (true) {
+                    int lineEnd = scanned;
+                    while (lineEnd < limit && buffer[lineEnd] != '\n') {
+                        lineEnd++;
+                    }
+
+                    if (lineEnd == limit) {
+                        if (isEnd) {
+                            if (start < limit) {
+                                batch = addRow(lineParser, buffer, start, limit, ++lineNumber, batch);
+                            }
+                            break;
+                        }
+
+                        if (start > 0) {
+                            System.arraycopy(buffer, start, buffer, 0, limit - start);
+                            limit -= start;
+                            start = 0;
+                        } else if (limit == buffer.length) {
+                            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                        }
+                        scanned = limit;
+
+                        int read = channel.read(ByteBuffer.wrap(buffer, limit, buffer.length - limit));
+                        if (read < 0) {
+                            isEnd = true;
+                        } else {
+                            limit += read;
+                        }
+                        continue;
+                    }
+
+                    batch = addRow(lineParser, buffer, start, lineEnd, ++lineNumber, batch);
+                    start = lineEnd + 1;
+                    scanned = start;
+                }
+
+                if (!batch.isEmpty()) {
+                    parsed.put(batch);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                failure = e;
+            }
+
+            try {
+                parsed.put(END);
+            } catch (InterruptedException e) {
+                // the import is already stopped
+            }
+        }
+
+        /**
+         * Parses the line and adds the row to the batch; passes the full batch to the next stage
+         *
+         * @param lineParser parser of lines
+         * @param buffer     buffer with the line
+         * @param from       beginning of line (inclusive)
+         * @param to         end of line (exclusive)
+         * @param lineNumber number of line, starting from 1
+         * @param batch      current batch
+         * @return batch for the next rows
+         * @throws InterruptedException if the import is stopped
+         */
+        private List<Row> addRow(LineParser lineParser, byte[] buffer, int from, int to,
+                                 long lineNumber, List<Row> batch) throws InterruptedException {
+            if (to > from && buffer[to - 1] == '\r') {
+                to--;
+            }
+            Row row = lineParser.parse(buffer, from, to, lineNumber);
+            if (row == null) {
+                return batch;
+            }
+
+            batch.add(row);
+            if (batch.size() < batchSize) {
+                return batch;
+            }
+            parsed.put(batch);
+            return new ArrayList<>(batchSize);
+        }
+
+        /**
+         * Checks values of parsed rows
+         */
+        private void validateStage() {
+            try {
+                List<Row> batch;
+                while ((batch = parsed.take()) != END) {
+                    for (Row row : batch) {
+                        if (row.error != null) {
+                            continue;
+                        }
+                        if (row.address.isEmpty()) {
+                            row.error = "Empty address";
+                        } else if (row.square < 0 || row.roomsAmount < 0 || row.floorsAmount < 0
+                                || row.doorsAmount < 0 || row.windowsAmount < 0) {
+                            row.error = "Negative value";
+                        }
+                    }
+                    validated.put(batch);
+                }
+                validated.put(END);
+            } catch (InterruptedException e) {
+                // the import is stopped
+            }
+        }
+
+        /**
+         * Builds houses of validated rows and passes them to the consumer
+         *
+         * @param consumer consumer of imported houses
+         * @return amounts of imported and rejected rows
+         * @throws IOException          if the file couldn't be read
+         * @throws InterruptedException if the import is interrupted
+         */
+        private Result buildStage(Consumer<House> consumer) throws IOException, InterruptedException {
+            BiConsumer<Long, String> listener = rejectListener;
+            long imported = 0;
+            long rejected = 0;
+
+            List<Row> batch;
+            while ((batch = validated.take()) != END) {
+                for (Row row : batch) {
+                    if (row.error != null) {
+                        rejected++;
+                        if (listener != null) {
+                            listener.accept(row.lineNumber, row.error);
+                        }
+                        continue;
+                    }
+
+                    House.HouseBuilder builder = new House.HouseBuilder(
+                            row.address, row.square, row.roomsAmount, row.floorsAmount);
+                    builder.setEntryDoor(new LockableDoor());
+                    builder.addRoomDoors(row.doorsAmount);
+                    builder.addWindows(row.windowsAmount);
+                    consumer.accept(builder.getHouse());
+                    imported++;
+                }
+            }
+
+            Throwable cause = failure;
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause != null) {
+                throw new IOException("Unable to import houses", cause);
+            }
+            return new Result(imported, rejected);
+        }
+    }
+
+    /**
+     * This class represents one parsed line of file
+     */
+    private static class Row {
+        /** Number of line, starting from 1 */
+        final long lineNumber;
+        /** Address of house */
+        String address;
+        /** Square of house */
+        double square;
+        /** Amount of rooms in the house */
+        int roomsAmount;
+        /** Amount of floors in the house */
+        int floorsAmount;
+        /** Amount of room doors in the house */
+        int doorsAmount;
+        /** Amount of windows in the house */
+        int windowsAmount;
+        /** Reason of rejection or {@code null} if the row is valid */
+        String error;
+
+        /**
+         * Parametrized constructor.
+         *
+         * @param lineNumber number of line, starting from 1
+         */
+        Row(long lineNumber) {
+            this.lineNumber = lineNumber;
+        }
+    }
+
+    /**
+     * This class represents parser of lines, that reads values straight from the bytes
+     */
+    private abstract static class LineParser {
+        /** Length of number, that is parsed without allocation; fits {@code double} exactly */
+        private static final int FAST_NUMBER_DIGITS = 15;
+        /** Exact powers of ten */
+        private static final double[] POWERS_OF_TEN = {
+                1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+        };
+
+        /** Bytes of the current line */
+        byte[] bytes;
+        /** Beginning of the current line */
+        int lineStart;
+        /** Position of the next byte */
+        int position;
+        /** End of the current line (exclusive) */
+        int end;
+
+        /**
+         * Parses the line
+         *
+         * @param bytes      buffer with the line
+         * @param from       beginning of line (inclusive)
+         * @param to         end of line (exclusive)
+         * @param lineNumber number of line, starting from 1
+         * @return parsed row or {@code null} if the line must be skipped
+         */
+        final Row parse(byte[] bytes, int from, int to, long lineNumber) {
+            this.bytes = bytes;
+            lineStart = from;
+            position = from;
+            end = to;
+            skipSpaces();
+            if (position == end) {
+                return null;
+            }
+
+            Row row = new Row(lineNumber);
+            try {
+                return parseRow(row) ? row : null;
+            } catch (IllegalArgumentException e) {
+                row.error = e.getMessage();
+                return row;
+            }
+        }
+
+        /**
+         * Parses fields of the current line into the row
+         *
+         * @param row row for filling
+         * @return true if the row contains house, false if the line must be skipped
+         */
+        abstract boolean parseRow(Row row);
+
+        /**
+         * Returns column of the position in the current line, starting from 1
+         *
+         * @param index position in the buffer
+         * @return column in the line
+         */
+        final int columnOf(int index) {
+            return index - lineStart + 1;
+        }
+
+        /**
+         * Skips spaces and tabs
+         */
+        final void skipSpaces() {
+            while (position < end && (bytes[position] == ' ' || bytes[position] == '\t')) {
+                position++;
+            }
+        }
+
+        /**
+         * Checks that the next non-space byte is the specified one and skips it
+         *
+         * @param expected expected byte
+         */
+        final void expect(char expected) {
+            skipSpaces();
+            if (position == end || bytes[position] != expected) {
+                throw new IllegalArgumentException("Expected '" + expected + "' at column " + columnOf(position));
+            }
+            position++;
+        }
+
+        /**
+         * Reads integer number
+         *
+         * @return value of number
+         */
+        final int readInt() {
+            skipSpaces();
+            boolean isNegative = position < end && bytes[position] == '-';
+            if (isNegative || position < end && bytes[position] == '+') {
+                position++;
+            }
+
+            int start = position;
+            long value = 0;
+            while (position < end && bytes[position] >= '0' && bytes[position] <= '9') {
+                value = value * 10 + (bytes[position++] - '0');
+                if (value > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("Too large number");
+                }
+            }
+            if (position == start) {
+                throw new IllegalArgumentException("Expected number at column " + columnOf(position));
+            }
+            return (int) (isNegative ? -value : value);
+        }
+
+        /**
+         * Reads decimal number. Numbers with up to 15 digits and without exponent are
+         * parsed without allocation, others are passed to {@link Double#parseDouble(String)}
+         *
+         * @return value of number
+         */
+        final double readDouble() {
+            skipSpaces();
+            int start = position;
+            while (position < end && isNumberByte(bytes[position])) {
+                position++;
+            }
+            if (position == start) {
+                throw new IllegalArgumentException("Expected number at column " + columnOf(position));
+            }
+
+            int index = start;
+            boolean isNegative = bytes[index] == '-';
+            if (isNegative || bytes[index] == '+') {
+                index++;
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int fractionDigits = -1;
+            for (; index < position; index++) {
+                byte current = bytes[index];
+                if (current >= '0' && current <= '9') {
+                    mantissa = mantissa * 10 + (current - '0');
+                    digits++;
+                    if (fractionDigits >= 0) {
+                        fractionDigits++;
+                    }
+                } else if (current == '.' && fractionDigits < 0) {
+                    fractionDigits = 0;
+                } else {
+                    break;
+                }
+            }
+
+            if (index == position && digits > 0 && digits <= FAST_NUMBER_DIGITS) {
+                double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+                return isNegative ? -value : value;
+            }
+            try {
+                return Double.parseDouble(new String(bytes, start, position - start, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid number at column " + columnOf(start));
+            }
+        }
+
+        /**
+         * Checks whether the byte could be a part of number
+         *
+         * @param value byte for checking
+         * @return true if the byte is digit, sign, point or exponent mark
+         */
+        private static boolean isNumberByte(byte value) {
+            return value >= '0' && value <= '9' || value == '.' || value == '-' || value == '+'
+                    || value == 'e' || value == 'E';
+        }
+    }
+
+    /**
+     * This class represents parser of CSV lines
+     */
+    private static class CsvParser extends LineParser {
+        /** Indicates whether the first line is already processed */
+        private boolean isAfterFirstLine;
+
+        /**
+         * {@inheritDoc}
+         * <p/> The first line, that starts with {@code address}, is considered the header
+         */
+        @Override
+        boolean parseRow(Row row) {
+            if (!isAfterFirstLine) {
+                isAfterFirstLine = true;
+                if (startsWith("address")) {
+                    return false;
+                }
+            }
+
+            row.address = readAddress();
+            expect(',');
+            row.square = readDouble();
+            expect(',');
+            row.roomsAmount = readInt();
+            expect(',');
+            row.floorsAmount = readInt();
+            if (hasNextField()) {
+                row.doorsAmount = readInt();
+                if (hasNextField()) {
+                    row.windowsAmount = readInt();
+                }
+            }
+
+            skipSpaces();
+            if (position != end) {
+                throw new IllegalArgumentException("Unexpected data at column " + columnOf(position));
+            }
+            return true;
+        }
+
+        /**
+         * Reads address field: either double-quoted with doubled quotes inside or plain
+         *
+         * @return address
+         */
+        private String readAddress() {
+            skipSpaces();
+            if (position < end && bytes[position] == '"') {
+                int start = ++position;
+                boolean hasEscapes = false;
+                while (true) {
+                    if (position == end) {
+                        throw new IllegalArgumentException("Unclosed quote");
+                    } else if (bytes[position] != '"') {
+                        position++;
+                    } else if (position + 1 < end && bytes[position + 1] == '"') {
+                        hasEscapes = true;
+                        position += 2;
+                    } else {
+                        break;
+                    }
+                }
+                String address = new String(bytes, start, position++ - start, StandardCharsets.UTF_8);
+                return hasEscapes ? address.replace("\"\"", "\"") : address;
+            }
+
+            int start = position;
+            while (position < end && bytes[position] != ',') {
+                position++;
+            }
+            int to = position;
+            while (to > start && (bytes[to - 1] == ' ' || bytes[to - 1] == '\t')) {
+                to--;
+            }
+            return new String(bytes, start, to - start, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Skips the separator of the next field if there is one
+         *
+         * @return true if there is the next field, false if the line is ended
+         */
+        private boolean hasNextField() {
+            skipSpaces();
+            if (position < end && bytes[position] == ',') {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Checks whether the rest of line starts with the ASCII prefix
+         *
+         * @param prefix prefix for checking
+         * @return true if the line starts with the prefix, false otherwise
+         */
+        private boolean startsWith(String prefix) {
+            if (end - position < prefix.length()) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length(); i++) {
+                if (bytes[position + i] != prefix.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * This class represents parser of JSON Lines with flat objects
+     */
+    private static class JsonLinesParser extends LineParser {
+        /** Keys of object, in the order of {@code *_KEY} constants */
+        private static final byte[][] KEYS = {
+                bytesOf("address"), bytesOf("square"), bytesOf("rooms"),
+                bytesOf("floors"), bytesOf("doors"), bytesOf("windows")
+        };
+        /** Index of address key */
+        private static final int ADDRESS_KEY = 0;
+        /** Index of square key */
+        private static final int SQUARE_KEY = 1;
+        /** Index of rooms key */
+        private static final int ROOMS_KEY = 2;
+        /** Index of floors key */
+        private static final int FLOORS_KEY = 3;
+        /** Index of doors key */
+        private static final int DOORS_KEY = 4;
+        /** Index of windows key */
+        private static final int WINDOWS_KEY = 5;
+        /** Mask of keys that must be present */
+        private static final int REQUIRED_KEYS =
+                1 << ADDRESS_KEY | 1 << SQUARE_KEY | 1 << ROOMS_KEY | 1 << FLOORS_KEY;
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        boolean parseRow(Row row) {
+            expect('{');
+            int presentKeys = 0;
+            skipSpaces();
+            if (position < end && bytes[position] == '}') {
+                position++;
+            } else {
+                do {
+                    int key = readKey();
+                    expect(':');
+                    switch (key) {
+                        case ADDRESS_KEY:
+                            row.address = readString();
+                            break;
+                        case SQUARE_KEY:
+                            row.square = readDouble();
+                            break;
+                        case ROOMS_KEY:
+                            row.roomsAmount = readInt();
+                            break;
+                        case FLOORS_KEY:
+                            row.floorsAmount = readInt();
+                            break;
+                        case DOORS_KEY:
+                            row.doorsAmount = readInt();
+                            break;
+                        case WINDOWS_KEY:
+                            row.windowsAmount = readInt();
+                            break;
+                        default:
+                            skipValue();
+                    }
+                    if (key >= 0) {
+                        presentKeys |= 1 << key;
+                    }
+                    skipSpaces();
+                } while (position < end && bytes[position++] == ',');
+
+                if (bytes[position - 1] != '}') {
+                    throw new IllegalArgumentException("Expected '}' at column " + columnOf(position - 1));
+                }
+            }
+
+            skipSpaces();
+            if (position != end) {
+                throw new IllegalArgumentException("Unexpected data at column " + columnOf(position));
+            } else if ((presentKeys & REQUIRED_KEYS) != REQUIRED_KEYS) {
+                throw new IllegalArgumentException("Missing required key(-s)");
+            }
+            return true;
+        }
+
+        /**
+         * Reads key of object without decoding it
+         *
+         * @return index of key in {@code KEYS} or -1 for unknown key
+         */
+        private int readKey() {
+            expect('"');
+            int start = position;
+            while (position < end && bytes[position] != '"') {
+                position++;
+            }
+            if (position == end) {
+                throw new IllegalArgumentException("Unclosed string");
+            }
+            int length = position++ - start;
+
+            for (int i = 0; i < KEYS.length; i++) {
+                byte[] key = KEYS[i];
+                if (key.length == length && regionEquals(start, key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Reads string value and decodes its escape sequences
+         *
+         * @return string value
+         */
+        private String readString() {
+            expect('"');
+            int start = position;
+            while (position < end && bytes[position] != '"' && bytes[position] != '\\') {
+                position++;
+            }
+            if (position < end && bytes[position] == '"') {
+                return new String(bytes, start, position++ - start, StandardCharsets.UTF_8);
+            }
+
+            StringBuilder builder = new StringBuilder(new String(bytes, start, position - start,
+                    StandardCharsets.UTF_8));
+            while (position < end && bytes[position] != '"') {
+                if (bytes[position] != '\\') {
+                    int chunkStart = position;
+                    while (position < end && bytes[position] != '"' && bytes[position] != '\\') {
+                        position++;
+                    }
+                    builder.append(new String(bytes, chunkStart, position - chunkStart, StandardCharsets.UTF_8));
+                    continue;
+                }
+                if (++position == end) {
+                    break;
+                }
+                byte escaped = bytes[position++];
+                switch (escaped) {
+                    case 'n':
+                        builder.append('\n');
+                        break;
+                    case 't':
+                        builder.append('\t');
+                        break;
+                    case 'r':
+                        builder.append('\r');
+                        break;
+                    case 'b':
+                        builder.append('\b');
+                        break;
+                    case 'f':
+                        builder.append('\f');
+                        break;
+                    case 'u':
+                        if (end - position < 4) {
+                            throw new IllegalArgumentException("Invalid escape at column " + columnOf(position));
+                        }
+                        try {
+                            builder.append((char) Integer.parseInt(
+                                    new String(bytes, position, 4, StandardCharsets.US_ASCII), 16));
+                        } catch (NumberFormatException e) {
+                            throw new IllegalArgumentException("Invalid escape at column " + columnOf(position));
+                        }
+                        position += 4;
+                        break;
+                    default:
+                        builder.append((char) escaped);
+                }
+            }
+            if (position == end) {
+                throw new IllegalArgumentException("Unclosed string");
+            }
+            position++;
+            return builder.toString();
+        }
+
+        /**
+         * Skips value of unknown key: string, number or literal
+         */
+        private void skipValue() {
+            skipSpaces();
+            if (position < end && bytes[position] == '"') {
+                position++;
+                while (position < end && bytes[position] != '"') {
+                    position += bytes[position] == '\\' ? 2 : 1;
+                }
+                if (position >= end) {
+                    throw new IllegalArgumentException("Unclosed string");
+                }
+                position++;
+                return;
+            }
+
+            int start = position;
+            while (position < end && bytes[position] != ',' && bytes[position] != '}'
+                    && bytes[position] != '{' && bytes[position] != '[') {
+                position++;
+            }
+            if (position == start || position < end && (bytes[position] == '{' || bytes[position] == '[')) {
+                throw new IllegalArgumentException("Unsupported value at column " + columnOf(start));
+            }
+        }
+
+        /**
+         * Compares bytes of line, starting from the position, with the key
+         *
+         * @param start position in the line
+         * @param key   bytes of key
+         * @return true if the bytes are equal, false otherwise
+         */
+        private boolean regionEquals(int start, byte[] key) {
+            for (int i = 0; i < key.length; i++) {
+                if (bytes[start + i] != key[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Returns ASCII bytes of string
+         *
+         * @param value string value
+         * @return bytes of string
+         */
+        private static byte[] bytesOf(String value) {
+            return value.getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    /**
+     * This class represents result of import
+     */
+    public static class Result {
+        /** Amount of imported houses */
+        private final long importedCount;
+        /** Amount of rejected rows */
+        private final long rejectedCount;
+
+        /**
+         * Parametrized constructor.
+         *
+         * @param importedCount amount of imported houses
+         * @param rejectedCount amount of rejected rows
+         */
+        Result(long importedCount, long rejectedCount) {
+            this.importedCount = importedCount;
+            this.rejectedCount = rejectedCount;
+        }
+
+        /**
+         * Getter for {@code importedCount} field
+         *
+         * @return amount of imported houses
+         */
+        public long getImportedCount() {
+            return importedCount;
+        }
+
+        /**
+         * Getter for {@code rejectedCount} field
+         *
+         * @return amount of rejected rows
+         */
+        public long getRejectedCount() {
+            return rejectedCount;
+        }
+
+        /**
+         * Returns a {@code String} object representing this {@code Result} object's value.
+         * Includes it's class name, {@code importedCount} and {@code rejectedCount} values
+         *
+         * @return a string representation of fields values of this object
+         */
+        @Override
+        public String toString() {
+            return "Result[" +
+                    "imported=" + importedCount +
+                    ", rejected=" + rejectedCount +
+                    ']';
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package ua.onufreiv.inheritance.house;
+
+import ua.onufreiv.inheritance.house.openings.Direction;
+import ua.onufreiv.inheritance.house.openings.Window;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * This class represents registry of houses, indexed by address.
+ * Also has secondary indexes on amount of floors, amount of rooms and square,
+ * which allow to find houses by ranges of these values, and index of houses
+ * by direction and type of their windows.
+ * <p/> Aggregate queries (amount of windows, doors, locked houses etc.)
+ * are evaluated in parallel in the common fork-join pool.
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+public class HouseRegistry {
+
+    /**
+     * Amount of houses, starting from which aggregate queries are evaluated in parallel
+     */
+    private static final long PARALLELISM_THRESHOLD = 1024;
+
+    /** Houses by their address */
+    private final ConcurrentHashMap<String, House> byAddress;
+    /** Houses by amount of floors */
+    private final ConcurrentSkipListMap<Integer, Set<House>> byFloors;
+    /** Houses by amount of rooms */
+    private final ConcurrentSkipListMap<Integer, Set<House>> byRooms;
+    /** Houses by square */
+    private final ConcurrentSkipListMap<Double, Set<House>> bySquare;
+    /** Houses, that have windows of some direction and type */
+    private final EnumMap<Direction, EnumMap<Window.WindowType, Set<House>>> byWindowsOrientation;
+    /** Listener, that adds registered houses to the orientation index, when they get new windows */
+    private final IWindowsOrientationListener orientationListener;
+
+    /**
+     * Default constructor.
+     * <p/> Creates empty registry
+     */
+    public HouseRegistry() {
+        byAddress = new ConcurrentHashMap<>();
+        byFloors = new ConcurrentSkipListMap<>();
+        byRooms = new ConcurrentSkipListMap<>();
+        bySquare = new ConcurrentSkipListMap<>();
+
+        byWindowsOrientation = new EnumMap<>(Direction.class);
+        for (Direction direction : Direction.values()) {
+            EnumMap<Window.WindowType, Set<House>> byType = new EnumMap<>(Window.WindowType.class);
+            for (Window.WindowType type : Window.WindowType.values()) {
+                byType.put(type, ConcurrentHashMap.newKeySet());
+            }
+            byWindowsOrientation.put(direction, byType);
+        }
+        orientationListener = (house, direction, type) -> {
+            if (byAddress.get(house.getAddress()) == house) {
+                byWindowsOrientation.get(direction).get(type).add(house);
+            }
+        };
+    }
+
+    /**
+     * Adds house to the registry. The registry listens to the house, so windows
+     * added to it later through {@link House.HouseBuilder} are reflected in the
+     * orientation index
+     *
+     * @param house house for adding
+     * @return true if house was added, false if there is a house with the same address
+     */
+    public boolean add(House house) {
+        if (house == null) {
+            throw new NullPointerException("Parameter 'house' is null");
+        }
+
+        if (byAddress.putIfAbsent(house.getAddress(), house) != null) {
+            return false;
+        }
+        index(house);
+        return true;
+    }
+
+    /**
+     * Adds house to the registry or replaces the house with the same address.
+     * Lookup by address finds either the replaced house or the new one at any moment,
+     * secondary indexes are updated afterwards
+     *
+     * @param house house for adding
+     * @return replaced house or {@code null} if there was no house with the same address
+     */
+    public House put(House house) {
+        if (house == null) {
+            throw new NullPointerException("Parameter 'house' is null");
+        }
+
+        House replaced = byAddress.put(house.getAddress(), house);
+        if (replaced != null) {
+            unindex(replaced);
+        }
+        index(house);
+        return replaced;
+    }
+
+    /**
+     * Removes house with the specified address from the registry
+     *
+     * @param address address of house
+     * @return removed house or {@code null} if there is no house with such address
+     */
+    public House remove(String address) {
+        House house = byAddress.remove(address);
+        if (house != null) {
+            unindex(house);
+        }
+        return house;
+    }
+
+    /**
+     * Returns house with the specified address
+     *
+     * @param address address of house
+     * @return house or {@code null} if there is no house with such address
+     */
+    public House get(String address) {
+        return byAddress.get(address);
+    }
+
+    /**
+     * This method return the amount of houses in the registry
+     *
+     * @return amount of houses
+     */
+    public int size() {
+        return byAddress.size();
+    }
+
+    /**
+     * Returns all the houses of registry
+     *
+     * @return unmodifiable view of houses
+     */
+    public Collection<House> getHouses() {
+        return Collections.unmodifiableCollection(byAddress.values());
+    }
+
+    /**
+     * Finds houses, amount of floors of which is in the specified range
+     *
+     * @param minFloors minimal amount of floors (inclusive)
+     * @param maxFloors maximal amount of floors (inclusive)
+     * @return list of found houses
+     */
+    public List<House> findByFloors(int minFloors, int maxFloors) {
+        return collectRange(byFloors.subMap(minFloors, true, maxFloors, true));
+    }
+
+    /**
+     * Finds houses, amount of rooms of which is in the specified range
+     *
+     * @param minRooms minimal amount of rooms (inclusive)
+     * @param maxRooms maximal amount of rooms (inclusive)
+     * @return list of found houses
+     */
+    public List<House> findByRooms(int minRooms, int maxRooms) {
+        return collectRange(byRooms.subMap(minRooms, true, maxRooms, true));
+    }
+
+    /**
+     * Finds houses, square of which is in the specified range
+     *
+     * @param minSquare minimal square (inclusive)
+     * @param maxSquare maximal square (inclusive)
+     * @return list of found houses
+     */
+    public List<House> findBySquare(double minSquare, double maxSquare) {
+        return collectRange(bySquare.subMap(minSquare, true, maxSquare, true));
+    }
+
+    /**
+     * This method return the total amount of windows in all the houses
+     *
+     * @return amount of windows
+     */
+    public long getTotalWindowsAmount() {
+        return byAddress.reduceValuesToLong(PARALLELISM_THRESHOLD, House::getWindowsAmount, 0L, Long::sum);
+    }
+
+    /**
+     * This method return the total amount of doors in all the houses
+     *
+     * @return amount of doors
+     */
+    public long getTotalDoorsAmount() {
+        return byAddress.reduceValuesToLong(PARALLELISM_THRESHOLD, House::getDoorsAmount, 0L, Long::sum);
+    }
+
+    /**
+     * This method return the amount of houses, entry door of which is locked
+     *
+     * @return amount of locked houses
+     */
+    public long getLockedHousesCount() {
+        return byAddress.reduceValuesToLong(PARALLELISM_THRESHOLD,
+                house -> house.isLocked() ? 1L : 0L, 0L, Long::sum);
+    }
+
+    /**
+     * Finds houses that have at least one window in the 'opened' state
+     *
+     * @return list of found houses
+     */
+    public List<House> findHousesWithOpenedWindows() {
+        return byAddress.values().parallelStream()
+                .filter(house -> house.getOpenedWindowsCount() > 0)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Finds houses that have at least one window with the specified direction and type
+     * in the 'opened' state. Only houses that have windows of such orientation are checked
+     *
+     * @param direction direction of windows or {@code null} for any direction
+     * @param type      type of windows or {@code null} for any type
+     * @return list of found houses
+     */
+    public List<House> findHousesWithOpenedWindows(Direction direction, Window.WindowType type) {
+        List<House> result = new ArrayList<>();
+        for (House house : housesWithWindows(direction, type)) {
+            if (house.countOpenedWindows(direction, type) > 0) {
+                result.add(house);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * This method return the total amount of windows with the specified direction
+     * and type, that are in the 'opened' state, in all the houses
+     *
+     * @param direction direction of windows or {@code null} for any direction
+     * @param type      type of windows or {@code null} for any type
+     * @return amount of opened windows
+     */
+    public long countOpenedWindows(Direction direction, Window.WindowType type) {
+        long count = 0;
+        for (House house : housesWithWindows(direction, type)) {
+            count += house.countOpenedWindows(direction, type);
+        }
+        return count;
+    }
+
+    /**
+     * Returns houses, that have windows with the specified direction and type
+     *
+     * @param direction direction of windows or {@code null} for any direction
+     * @param type      type of windows or {@code null} for any type
+     * @return set of houses
+     */
+    private Set<House> housesWithWindows(Direction direction, Window.WindowType type) {
+        if (direction != null && type != null) {
+            return byWindowsOrientation.get(direction).get(type);
+        }
+
+        Set<House> result = new HashSet<>();
+        for (Direction currentDirection : Direction.values()) {
+            if (direction != null && currentDirection != direction) {
+                continue;
+            }
+            for (Window.WindowType currentType : Window.WindowType.values()) {
+                if (type == null || currentType == type) {
+                    result.addAll(byWindowsOrientation.get(currentDirection).get(currentType));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds house to the secondary indexes and starts listening to its windows orientations
+     *
+     * @param house house for indexing
+     */
+    private void index(House house) {
+        addToIndex(byFloors, house.getFloorsAmount(), house);
+        addToIndex(byRooms, house.getRoomsAmount(), house);
+        addToIndex(bySquare, house.getSquare(), house);
+        house.addWindowsOrientationListener(orientationListener);
+        forEachWindowsOrientation(house, houses -> houses.add(house));
+    }
+
+    /**
+     * Removes house from the secondary indexes and stops listening to its windows orientations
+     *
+     * @param house house for removing from indexes
+     */
+    private void unindex(House house) {
+        house.removeWindowsOrientationListener(orientationListener);
+        removeFromIndex(byFloors, house.getFloorsAmount(), house);
+        removeFromIndex(byRooms, house.getRoomsAmount(), house);
+        removeFromIndex(bySquare, house.getSquare(), house);
+        forEachWindowsOrientation(house, houses -> houses.remove(house));
+    }
+
+    /**
+     * Performs the action on every set of orientation index, that must contain the house
+     *
+     * @param house  indexed house
+     * @param action action on set of houses
+     */
+    private void forEachWindowsOrientation(House house, Consumer<Set<House>> action) {
+        for (Direction direction : Direction.values()) {
+            for (Window.WindowType type : Window.WindowType.values()) {
+                if (house.hasWindows(direction, type)) {
+                    action.accept(byWindowsOrientation.get(direction).get(type));
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds house to the set of secondary index, that corresponds to the specified value.
+     * <p/>Changes of index are serialized on its monitor: remapping functions of
+     * {@code ConcurrentSkipListMap} aren't applied atomically, so otherwise the set,
+     * that is emptied and removed by concurrent {@link #removeFromIndex}, could get
+     * the house after its removal. Queries read the index without locking
+     *
+     * @param index secondary index
+     * @param value indexed value of house
+     * @param house house for adding
+     * @param <K>   type of indexed value
+     */
+    private static <K> void addToIndex(ConcurrentSkipListMap<K, Set<House>> index, K value, House house) {
+        synchronized (index) {
+            index.compute(value, (key, houses) -> {
+                Set<House> result = houses == null ? ConcurrentHashMap.newKeySet() : houses;
+                result.add(house);
+                return result;
+            });
+        }
+    }
+
+    /**
+     * Removes house from the set of secondary index, that corresponds to the specified value.
+     * The set is removed from index, when it becomes empty, see {@link #addToIndex}
+     *
+     * @param index secondary index
+     * @param value indexed value of house
+     * @param house house for removing
+     * @param <K>   type of indexed value
+     */
+    private static <K> void removeFromIndex(ConcurrentSkipListMap<K, Set<House>> index, K value, House house) {
+        synchronized (index) {
+            index.computeIfPresent(value, (key, houses) -> {
+                houses.remove(house);
+                return houses.isEmpty() ? null : houses;
+            });
+        }
+    }
+
+    /**
+     * Collects houses of the range of secondary index into the list
+     *
+     * @param range range of secondary index
+     * @param <K>   type of indexed value
+     * @return list of houses
+     */
+    private static <K> List<House> collectRange(NavigableMap<K, Set<House>> range) {
+        List<House> result = new ArrayList<>();
+        for (Set<House> houses : range.values()) {
+            result.addAll(houses);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a {@code String} object representing this {@code HouseRegistry} object's value.
+     * Includes it's class name and amount of houses
+     *
+     * @return a string representation of fields values of this object
+     */
+    @Override
+    public String toString() {
+        return "HouseRegistry[" +
+                "houses=" + byAddress.size() +
+                ']';
+    }
+}
@@ -0,0 +1,715 @@
+package ua.onufreiv.inheritance.house;
+
+import ua.onufreiv.inheritance.house.openings.Direction;
+import ua.onufreiv.inheritance.house.openings.Door;
+import ua.onufreiv.inheritance.house.openings.LockableDoor;
+import ua.onufreiv.inheritance.house.openings.OpenableWindow;
+import ua.onufreiv.inheritance.house.openings.Window;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class represents compact binary snapshot of houses with their doors and windows.
+ * <p/> Snapshot file consists of header, dictionary of strings (addresses, materials
+ * and colors) with its offsets table, house records, table of house record offsets
+ * and footer. Enum and boolean fields of doors and windows are packed into single bytes.
+ * House record contains all the entrances: the entry door and the other lockable doors;
+ * snapshots of the first version, which have only the entry door, are still read.
+ * <p/> Room doors and windows are written as segments: either the records of objects
+ * or the amount of unchanged default doors or windows, see {@link House.HouseBuilder#addRoomDoors(int)}
+ * and {@link House.HouseBuilder#addWindows(int)}, which are restored as the run without creating
+ * objects. Snapshots of the second version have the records of all the doors and windows.
+ * <p/> Snapshot is written with the help of {@code FileChannel} and is loaded as
+ * {@code MappedByteBuffer}: opening reads only the header and footer, strings and
+ * house records are decoded on demand, so only the touched pages of file are read. The size of
+ * snapshot file is limited to 2 GB.
+ * <p/> Snapshot, that is sent to the other node, has no secrets of houses: house without
+ * the secret is restored with the new random one, so keys formed by it aren't valid
+ * for the original house.
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+public class HouseSnapshot {
+
+    /** First bytes of snapshot file: "HSNP" */
+    private static final int MAGIC = 0x48534E50;
+    /** Version of snapshot format */
+    private static final int VERSION = 3;
+    /** Version of snapshot format, that has no entrances except the entry door */
+    private static final int ENTRY_DOOR_ONLY_VERSION = 1;
+    /** Version of snapshot format, that has records of all the room doors and windows */
+    private static final int NO_RUNS_VERSION = 2;
+    /** Dictionary identifier of {@code null} string */
+    private static final int NULL_STRING = -1;
+    /** Size of footer: offset of offsets table and amount of houses */
+    private static final int FOOTER_SIZE = 2 * Integer.BYTES;
+    /** Size of buffer that is used for writing */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** Flag of door record: the door is {@link LockableDoor} */
+    private static final int DOOR_LOCKABLE = 1;
+    /** Flag of door record: the door has glass captions */
+    private static final int DOOR_WITH_GLASS = 1 << 1;
+    /** Flag of door record: the door is opened */
+    private static final int DOOR_OPENED = 1 << 2;
+    /** Flag of door record: the door is locked */
+    private static final int DOOR_LOCKED = 1 << 3;
+    /** Shift of door opening type in door record */
+    private static final int DOOR_TYPE_SHIFT = 4;
+    /** Door record flags of missing entry door */
+    private static final byte NO_DOOR = (byte) 0xFF;
+
+    /** Flag of window record: the window is {@link OpenableWindow} */
+    private static final int WINDOW_OPENABLE = 1;
+    /** Flag of window record: the window is opened */
+    private static final int WINDOW_OPENED = 1 << 1;
+    /** Shift of window type in window record */
+    private static final int WINDOW_TYPE_SHIFT = 2;
+    /** Shift of window direction in window record */
+    private static final int WINDOW_DIRECTION_SHIFT = 5;
+    /** Mask of 3-bit enum value in window record */
+    private static final int ENUM_MASK = 0x7;
+
+    /** Mapped content of snapshot file */
+    private final ByteBuffer buffer;
+    /** Version of snapshot format */
+    private final int version;
+    /** Position of dictionary string offsets table */
+    private final int stringOffsetsPosition;
+    /** Strings of dictionary, that were already decoded */
+    private final String[] dictionary;
+    /** Position of house record offsets table */
+    private final int offsetsPosition;
+    /** Amount of houses in the snapshot */
+    private final int housesAmount;
+
+    /**
+     * Parametrized constructor.
+     * <p/>It's private, {@link #open(Path)} must be used instead
+     *
+     * @param buffer mapped content of snapshot file
+     * @throws IOException if content is not a valid snapshot
+     */
+    private HouseSnapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < 3 * Integer.BYTES + FOOTER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a house snapshot");
+        }
+        version = buffer.getInt(Integer.BYTES);
+        if (version < ENTRY_DOOR_ONLY_VERSION || version > VERSION) {
+            throw new IOException("Unsupported snapshot version: " + version);
+        }
+
+        dictionary = new String[buffer.getInt(2 * Integer.BYTES)];
+        stringOffsetsPosition = 3 * Integer.BYTES;
+        offsetsPosition = buffer.getInt(buffer.limit() - FOOTER_SIZE);
+        housesAmount = buffer.getInt(buffer.limit() - Integer.BYTES);
+    }
+
+    /**
+     * Maps the snapshot file into memory.
+     * Nothing except the header and footer is decoded immediately
+     *
+     * @param path path of snapshot file
+     * @return opened snapshot
+     * @throws IOException if file couldn't be read or is not a valid snapshot
+     */
+    public static HouseSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot exceeds 2 GB");
+            }
+            return new HouseSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Wraps the snapshot, that is already in memory, e.g. received from the other node
+     *
+     * @param buffer content of snapshot, as returned by {@link #encode(Collection)}
+     * @return opened snapshot
+     * @throws IOException if content is not a valid snapshot
+     */
+    static HouseSnapshot decode(ByteBuffer buffer) throws IOException {
+        return new HouseSnapshot(buffer);
+    }
+
+    /**
+     * This method return the amount of houses in the snapshot
+     *
+     * @return amount of houses
+     */
+    public int size() {
+        return housesAmount;
+    }
+
+    /**
+     * Decodes house with the specified index from the snapshot.
+     * Every call creates new house object
+     *
+     * @param index index of house
+     * @return restored house
+     */
+    public House getHouse(int index) {
+        if (index < 0 || index >= housesAmount) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + housesAmount);
+        }
+
+        ByteBuffer in = buffer.duplicate();
+        in.position(buffer.getInt(offsetsPosition + index * Integer.BYTES));
+        return readHouse(in);
+    }
+
+    /**
+     * Decodes all the houses from the snapshot
+     *
+     * @return list of restored houses
+     */
+    public List<House> getHouses() {
+        List<House> houses = new ArrayList<>(housesAmount);
+        for (int i = 0; i < housesAmount; i++) {
+            houses.add(getHouse(i));
+        }
+        return houses;
+    }
+
+    /**
+     * Writes the snapshot of specified houses into the file.
+     * <p/>Only {@link Door}, {@link LockableDoor}, {@link Window} and {@link OpenableWindow}
+     * classes are distinguished; openings of other subclasses are stored as the nearest of them.
+     * The key registry of houses isn't stored
+     *
+     * @param houses houses for writing
+     * @param path   path of snapshot file
+     * @throws IOException           if file couldn't be written or snapshot exceeds 2 GB
+     * @throws IllegalStateException if some entrance of house isn't {@link LockableDoor}
+     */
+    public static void write(Collection<House> houses, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(houses, true, channel);
+        }
+    }
+
+    /**
+     * Returns the snapshot of specified houses in the same format as the snapshot file,
+     * but without secrets of houses, e.g. for sending it to the other node
+     *
+     * @param houses houses for writing
+     * @return content of snapshot
+     * @throws IOException if snapshot exceeds 2 GB
+     */
+    static byte[] encode(Collection<House> houses) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(houses, false, Channels.newChannel(out));
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes the snapshot of specified houses into the channel
+     *
+     * @param houses        houses for writing
+     * @param isWithSecrets indicates whether secrets of houses are written
+     * @param channel       destination of snapshot
+     * @throws IOException if snapshot couldn't be written or exceeds 2 GB
+     */
+    private static void write(Collection<House> houses, boolean isWithSecrets, WritableByteChannel channel)
+            throws IOException {
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        for (House house : houses) {
+            intern(house.getAddress(), dictionary, strings);
+            if (house.getEntryDoor() != null) {
+                internDoor(house.getEntryDoor(), dictionary, strings);
+            }
+            for (Door door : house.getOtherEntrances()) {
+                internDoor(door, dictionary, strings);
+            }
+            List<Door> roomDoors = house.getRoomDoors();
+            int index = 0;
+            while (index < roomDoors.size()) {
+                int defaults = house.getRoomDoorDefaultsAt(index);
+                if (defaults == 0) {
+                    internDoor(roomDoors.get(index++), dictionary, strings);
+                }
+                index += defaults;
+            }
+            List<Window> windows = house.getWindows();
+            index = 0;
+            while (index < windows.size()) {
+                int defaults = house.getWindowDefaultsAt(index);
+                if (defaults == 0) {
+                    Window window = windows.get(index++);
+                    intern(window.getMaterial(), dictionary, strings);
+                    intern(window.getColor(), dictionary, strings);
+                }
+                index += defaults;
+            }
+        }
+
+        ChannelWriter out = new ChannelWriter(channel);
+        out.ensure(3 * Integer.BYTES).putInt(MAGIC).putInt(VERSION).putInt(strings.size());
+        int stringOffset = out.position() + strings.size() * Integer.BYTES;
+        List<byte[]> encoded = new ArrayList<>(strings.size());
+        for (String string : strings) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            encoded.add(bytes);
+            out.ensure(Integer.BYTES).putInt(stringOffset);
+            stringOffset += Integer.BYTES + bytes.length;
+        }
+        for (byte[] bytes : encoded) {
+            out.ensure(Integer.BYTES).putInt(bytes.length);
+            out.put(bytes);
+        }
+
+        int[] offsets = new int[houses.size()];
+        int index = 0;
+        for (House house : houses) {
+            offsets[index++] = out.position();
+            writeHouse(house, isWithSecrets, dictionary, out);
+        }
+
+        int offsetsPosition = out.position();
+        for (int offset : offsets) {
+            out.ensure(Integer.BYTES).putInt(offset);
+        }
+        out.ensure(FOOTER_SIZE).putInt(offsetsPosition).putInt(offsets.length);
+        out.flush();
+    }
+
+    /**
+     * Writes house record
+     *
+     * @param house         house for writing
+     * @param isWithSecrets indicates whether the secret of house is written
+     * @param dictionary    identifiers of strings
+     * @param out           destination of record
+     * @throws IOException if record couldn't be written
+     */
+    private static void writeHouse(House house, boolean isWithSecrets, Map<String, Integer> dictionary,
+                                   ChannelWriter out) throws IOException {
+        byte[] secret = isWithSecrets ? house.getSecret().getEncoded() : new byte[0];
+        out.ensure(3 * Integer.BYTES + Double.BYTES + Short.BYTES)
+                .putInt(idOf(house.getAddress(), dictionary))
+                .putDouble(house.getSquare())
+                .putInt(house.getRoomsAmount())
+                .putInt(house.getFloorsAmount())
+                .putShort((short) secret.length);
+        out.put(secret);
+
+        if (house.getEntryDoor() == null) {
+            out.ensure(1).put(NO_DOOR);
+        } else {
+            writeDoor(house.getEntryDoor(), dictionary, out);
+        }
+
+        List<LockableDoor> entrances = house.getOtherEntrances();
+        out.ensure(Integer.BYTES).putInt(entrances.size());
+        for (LockableDoor entrance : entrances) {
+            writeDoor(entrance, dictionary, out);
+        }
+
+        List<Door> roomDoors = house.getRoomDoors();
+        out.ensure(Integer.BYTES).putInt(roomDoors.size());
+        int index = 0;
+        while (index < roomDoors.size()) {
+            int end = index;
+            int defaults = 0;
+            while (end < roomDoors.size() && (defaults = house.getRoomDoorDefaultsAt(end)) == 0) {
+                end++;
+            }
+            if (end > index) {
+                out.ensure(Integer.BYTES).putInt(end - index);
+                for (int i = index; i < end; i++) {
+                    writeDoor(roomDoors.get(i), dictionary, out);
+                }
+            }
+            if (defaults > 0) {
+                out.ensure(Integer.BYTES + 1).putInt(-defaults)
+                        .put((byte) (roomDoors.get(end).isOpened() ? DOOR_OPENED : 0));
+            }
+            index = end + defaults;
+        }
+
+        List<Window> windows = house.getWindows();
+        out.ensure(Integer.BYTES).putInt(windows.size());
+        index = 0;
+        while (index < windows.size()) {
+            int end = index;
+            int defaults = 0;
+            while (end < windows.size() && (defaults = house.getWindowDefaultsAt(end)) == 0) {
+                end++;
+            }
+            if (end > index) {
+                out.ensure(Integer.BYTES).putInt(end - index);
+                for (int i = index; i < end; i++) {
+                    writeWindow(windows.get(i), dictionary, out);
+                }
+            }
+            if (defaults > 0) {
+                out.ensure(Integer.BYTES).putInt(-defaults);
+            }
+            index = end + defaults;
+        }
+    }
+
+    /**
+     * Writes window record
+     *
+     * @param window     window for writing
+     * @param dictionary identifiers of strings
+     * @param out        destination of record
+     * @throws IOException if record couldn't be written
+     */
+    private static void writeWindow(Window window, Map<String, Integer> dictionary, ChannelWriter out)
+            throws IOException {
+        int flags = ordinalOf(window.getType()) << WINDOW_TYPE_SHIFT
+                | ordinalOf(window.getLookAtDirection()) << WINDOW_DIRECTION_SHIFT;
+        if (window instanceof OpenableWindow) {
+            flags |= WINDOW_OPENABLE;
+            if (((OpenableWindow) window).isOpened()) {
+                flags |= WINDOW_OPENED;
+            }
+        }
+        out.ensure(2 * Integer.BYTES + 1)
+                .putInt(idOf(window.getMaterial(), dictionary))
+                .putInt(idOf(window.getColor(), dictionary))
+                .put((byte) flags);
+    }
+
+    /**
+     * Writes door record
+     *
+     * @param door       door for writing
+     * @param dictionary identifiers of strings
+     * @param out        destination of record
+     * @throws IOException if record couldn't be written
+     */
+    private static void writeDoor(Door door, Map<String, Integer> dictionary, ChannelWriter out)
+            throws IOException {
+        int flags = ordinalOf(door.getType()) << DOOR_TYPE_SHIFT;
+        if (door.isWithGlass()) {
+            flags |= DOOR_WITH_GLASS;
+        }
+        if (door.isOpened()) {
+            flags |= DOOR_OPENED;
+        }
+        if (door instanceof LockableDoor) {
+            flags |= DOOR_LOCKABLE;
+            if (((LockableDoor) door).isLocked()) {
+                flags |= DOOR_LOCKED;
+            }
+        }
+
+        out.ensure(1 + 2 * Integer.BYTES)
+                .put((byte) flags)
+                .putInt(idOf(door.getMaterial(), dictionary))
+                .putInt(idOf(door.getColor(), dictionary));
+        if (door instanceof LockableDoor) {
+            LockableDoor lockableDoor = (LockableDoor) door;
+            out.ensure(Long.BYTES + Integer.BYTES)
+                    .putLong(lockableDoor.getId())
+                    .putInt(lockableDoor.getLockEpoch());
+        }
+    }
+
+    /**
+     * Reads house record
+     *
+     * @param in source of record
+     * @return restored house
+     */
+    private House readHouse(ByteBuffer in) {
+        String address = stringOf(in.getInt());
+        double square = in.getDouble();
+        int roomsAmount = in.getInt();
+        int floorsAmount = in.getInt();
+        byte[] secret = new byte[in.getShort()];
+        in.get(secret);
+
+        House.HouseBuilder builder = new House.HouseBuilder(new House(address, square, roomsAmount,
+                floorsAmount, secret.length == 0 ? KeyGenerator.newSecret() : KeyGenerator.restoreSecret(secret)));
+
+        Door entryDoor = readDoor(in);
+        if (entryDoor != null) {
+            builder.setEntryDoor((LockableDoor) entryDoor);
+        }
+        int entrancesAmount = version == ENTRY_DOOR_ONLY_VERSION ? 0 : in.getInt();
+        for (int i = 0; i < entrancesAmount; i++) {
+            builder.addEntrance((LockableDoor) readDoor(in));
+        }
+
+        int roomDoorsAmount = in.getInt();
+        for (int read = 0; read < roomDoorsAmount; ) {
+            int segment = version <= NO_RUNS_VERSION ? roomDoorsAmount : in.getInt();
+            if (segment < 0) {
+                builder.addRoomDoors(-segment, (in.get() & DOOR_OPENED) != 0);
+                read -= segment;
+                continue;
+            }
+
+            List<Door> roomDoors = new ArrayList<>(segment);
+            for (int i = 0; i < segment; i++) {
+                roomDoors.add(readDoor(in));
+            }
+            builder.addRoomDoors(roomDoors);
+            read += segment;
+        }
+
+        int windowsAmount = in.getInt();
+        Window.WindowType[] types = Window.WindowType.values();
+        Direction[] directions = Direction.values();
+        for (int read = 0; read < windowsAmount; ) {
+            int segment = version <= NO_RUNS_VERSION ? windowsAmount : in.getInt();
+            if (segment < 0) {
+                builder.addWindows(-segment);
+                read -= segment;
+                continue;
+            }
+
+            List<Window> windows = new ArrayList<>(segment);
+            for (int i = 0; i < segment; i++) {
+                windows.add(readWindow(in, types, directions));
+            }
+            builder.addWindows(windows);
+            read += segment;
+        }
+
+        return builder.getHouse();
+    }
+
+    /**
+     * Reads window record
+     *
+     * @param in         source of record
+     * @param types      values of window type
+     * @param directions values of window direction
+     * @return restored window
+     */
+    private Window readWindow(ByteBuffer in, Window.WindowType[] types, Direction[] directions) {
+        String material = stringOf(in.getInt());
+        String color = stringOf(in.getInt());
+        int flags = in.get();
+        Window.WindowType type = enumOf(types, flags >>> WINDOW_TYPE_SHIFT & ENUM_MASK);
+        Direction direction = enumOf(directions, flags >>> WINDOW_DIRECTION_SHIFT & ENUM_MASK);
+        if ((flags & WINDOW_OPENABLE) != 0) {
+            OpenableWindow window = new OpenableWindow(material, color, type, direction);
+            if ((flags & WINDOW_OPENED) != 0) {
+                window.open();
+            }
+            return window;
+        }
+        return new Window(material, color, type, direction);
+    }
+
+    /**
+     * Reads door record
+     *
+     * @param in source of record
+     * @return restored door or {@code null} if record represents missing door
+     */
+    private Door readDoor(ByteBuffer in) {
+        byte flags = in.get();
+        if (flags == NO_DOOR) {
+            return null;
+        }
+
+        String material = stringOf(in.getInt());
+        String color = stringOf(in.getInt());
+        Door.OpeningType type = enumOf(Door.OpeningType.values(), flags >>> DOOR_TYPE_SHIFT);
+        boolean isWithGlass = (flags & DOOR_WITH_GLASS) != 0;
+        boolean isOpened = (flags & DOOR_OPENED) != 0;
+
+        if ((flags & DOOR_LOCKABLE) != 0) {
+            long id = in.getLong();
+            int lockEpoch = in.getInt();
+            return new LockableDoor(material, color, type, isWithGlass,
+                    id, lockEpoch, (flags & DOOR_LOCKED) != 0, isOpened);
+        }
+
+        Door door = new Door(material, color, type, isWithGlass);
+        if (isOpened) {
+            door.open();
+        }
+        return door;
+    }
+
+    /**
+     * Returns string of dictionary with the specified identifier; decodes it
+     * on the first access. Concurrent decoding of the same string is harmless
+     *
+     * @param id identifier of string
+     * @return string value or {@code null}
+     */
+    private String stringOf(int id) {
+        if (id == NULL_STRING) {
+            return null;
+        }
+
+        String string = dictionary[id];
+        if (string == null) {
+            ByteBuffer in = buffer.duplicate();
+            in.position(buffer.getInt(stringOffsetsPosition + id * Integer.BYTES));
+            byte[] bytes = new byte[in.getInt()];
+            in.get(bytes);
+            string = new String(bytes, StandardCharsets.UTF_8);
+            dictionary[id] = string;
+        }
+        return string;
+    }
+
+    /**
+     * Adds material and color of door into the dictionary
+     *
+     * @param door       door, strings of which must be added
+     * @param dictionary identifiers of strings
+     * @param strings    strings in order of identifiers
+     */
+    private static void internDoor(Door door, Map<String, Integer> dictionary, List<String> strings) {
+        intern(door.getMaterial(), dictionary, strings);
+        intern(door.getColor(), dictionary, strings);
+    }
+
+    /**
+     * Adds string into the dictionary, if it isn't there yet
+     *
+     * @param string     string for adding
+     * @param dictionary identifiers of strings
+     * @param strings    strings in order of identifiers
+     */
+    private static void intern(String string, Map<String, Integer> dictionary, List<String> strings) {
+        if (string != null && !dictionary.containsKey(string)) {
+            dictionary.put(string, strings.size());
+            strings.add(string);
+        }
+    }
+
+    /**
+     * Returns identifier of string in the dictionary
+     *
+     * @param string     string value or {@code null}
+     * @param dictionary identifiers of strings
+     * @return identifier of string
+     */
+    private static int idOf(String string, Map<String, Integer> dictionary) {
+        return string == null ? NULL_STRING : dictionary.get(string);
+    }
+
+    /**
+     * Returns encoded ordinal of enum value: {@code 0} for {@code null}, ordinal + 1 otherwise
+     *
+     * @param value enum value or {@code null}
+     * @return encoded ordinal
+     */
+    private static int ordinalOf(Enum<?> value) {
+        return value == null ? 0 : value.ordinal() + 1;
+    }
+
+    /**
+     * Returns enum value by its encoded ordinal
+     *
+     * @param values  all the values of enum
+     * @param ordinal encoded ordinal
+     * @param <E>     type of enum
+     * @return enum value or {@code null}
+     */
+    private static <E extends Enum<E>> E enumOf(E[] values, int ordinal) {
+        return ordinal == 0 ? null : values[ordinal - 1];
+    }
+
+    /**
+     * This class writes data into the channel through the reusable direct buffer
+     */
+    private static class ChannelWriter {
+        /** Destination channel */
+        private final WritableByteChannel channel;
+        /** Buffer of data that isn't written yet */
+        private final ByteBuffer buffer;
+        /** Amount of bytes already written into the channel */
+        private long written;
+
+        /**
+         * Parametrized constructor.
+         *
+         * @param channel destination channel
+         */
+        ChannelWriter(WritableByteChannel channel) {
+            this.channel = channel;
+            buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+
+        /**
+         * Makes sure that the buffer has enough space for the specified amount of bytes
+         *
+         * @param bytes amount of bytes that are going to be put
+         * @return buffer for putting data
+         * @throws IOException if buffered data couldn't be written
+         */
+        ByteBuffer ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+            return buffer;
+        }
+
+        /**
+         * Puts the array of bytes, which may be larger than the buffer
+         *
+         * @param bytes array for putting
+         * @throws IOException if data couldn't be written
+         */
+        void put(byte[] bytes) throws IOException {
+            if (bytes.length <= buffer.capacity()) {
+                ensure(bytes.length).put(bytes);
+                return;
+            }
+
+            flush();
+            ByteBuffer wrapped = ByteBuffer.wrap(bytes);
+            while (wrapped.hasRemaining()) {
+                written += channel.write(wrapped);
+            }
+        }
+
+        /**
+         * Returns position in the snapshot, at which the next byte will be written
+         *
+         * @return position in the snapshot
+         * @throws IOException if snapshot exceeds 2 GB
+         */
+        int position() throws IOException {
+            long position = written + buffer.position();
+            if (position > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot exceeds 2 GB");
+            }
+            return (int) position;
+        }
+
+        /**
+         * Writes all the buffered data into the channel
+         *
+         * @throws IOException if data couldn't be written
+         */
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,444 @@
+package ua.onufreiv.inheritance.house;
+
+import ua.onufreiv.inheritance.house.openings.Door;
+import ua.onufreiv.inheritance.house.openings.LockableDoor;
+import ua.onufreiv.inheritance.house.openings.OpenableWindow;
+import ua.onufreiv.inheritance.house.openings.Window;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class represents immutable version of house.
+ * <p/> Every modification returns new version, that shares unchanged doors and
+ * windows with the previous one, so keeping many versions costs memory
+ * proportional to the amount of changes. Versions could be read from many
+ * threads without any synchronization.
+ * <p/> Openings are copied on the way in and on the way out, so changing the
+ * passed or returned door or window object doesn't affect the version.
+ * Mutable {@link House} is obtained with {@link #toHouse()}.
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+public final class HouseVersion {
+    /** Address of house */
+    private final String address;
+    /** Secret of house that is used for keys forming */
+    private final SecretKeySpec secret;
+    /** Square of house */
+    private final double square;
+    /** Amount of rooms in the house */
+    private final int roomsAmount;
+    /** Amount of floors in the house */
+    private final int floorsAmount;
+    /** Entry door of house or {@code null} */
+    private final LockableDoor entryDoor;
+    /** Entrances of house except the entry door */
+    private final PersistentVector<Door> entrances;
+    /** Room doors of house */
+    private final PersistentVector<Door> roomDoors;
+    /** Windows of house */
+    private final PersistentVector<Window> windows;
+
+    /**
+     * Parametrized constructor.
+     * <p/> Creates version of house without entrances, room doors and windows
+     *
+     * @param address      address of house
+     * @param square       square of house
+     * @param roomsAmount  amount of rooms in the house
+     * @param floorsAmount amount of floors in the house
+     */
+    public HouseVersion(String address, double square, int roomsAmount, int floorsAmount) {
+        this(address, KeyGenerator.newSecret(), square, roomsAmount, floorsAmount, null,
+                PersistentVector.<Door>empty(), PersistentVector.<Door>empty(),
+                PersistentVector.<Window>empty());
+    }
+
+    /**
+     * Parametrized constructor.
+     *
+     * @param address      address of house
+     * @param secret       secret of house that is used for keys forming
+     * @param square       square of house
+     * @param roomsAmount  amount of rooms in the house
+     * @param floorsAmount amount of floors in the house
+     * @param entryDoor    entry door of house or {@code null}
+     * @param entrances    entrances of house except the entry door
+     * @param roomDoors    room doors of house
+     * @param windows      windows of house
+     */
+    private HouseVersion(String address, SecretKeySpec secret, double square, int roomsAmount,
+                         int floorsAmount, LockableDoor entryDoor, PersistentVector<Door> entrances,
+                         PersistentVector<Door> roomDoors, PersistentVector<Window> windows) {
+        if (square < 0 || roomsAmount < 0 || floorsAmount < 0) {
+            throw new IllegalArgumentException("Negative value");
+        }
+
+        this.address = address;
+        this.secret = secret;
+        this.square = square;
+        this.roomsAmount = roomsAmount;
+        this.floorsAmount = floorsAmount;
+        this.entryDoor = entryDoor;
+        this.entrances = entrances;
+        this.roomDoors = roomDoors;
+        this.windows = windows;
+    }
+
+    /**
+     * Returns version with the current state of house. Keys issued
+     * by the house stay valid for houses materialized from the version.
+     * Default windows of house, whose objects aren't created, share one copy
+     * and aren't created by capturing
+     *
+     * @param house house for capturing
+     * @return version of house
+     * @throws IllegalStateException if some entrance of house isn't {@link LockableDoor}
+     */
+    public static HouseVersion of(House house) {
+        if (house == null) {
+            throw new NullPointerException("Parameter 'house' is null");
+        }
+
+        LockableDoor entryDoor = house.getEntryDoor();
+        PersistentVector<Door> entrances = PersistentVector.empty();
+        for (LockableDoor entrance : house.getOtherEntrances()) {
+            entrances = entrances.append(copyOf(entrance));
+        }
+        PersistentVector<Door> roomDoors = PersistentVector.empty();
+        for (Door door : house.getRoomDoors()) {
+            roomDoors = roomDoors.append(copyOf(door));
+        }
+        PersistentVector<Window> windows = PersistentVector.empty();
+        Window defaultWindow = copyOf(WindowList.DEFAULT_WINDOW);
+        Window defaultOpenableWindow = copyOf(WindowList.DEFAULT_OPENABLE_WINDOW);
+        for (Window window : house.getWindows()) {
+            if (window == WindowList.DEFAULT_WINDOW) {
+                windows = windows.append(defaultWindow);
+            } else if (window == WindowList.DEFAULT_OPENABLE_WINDOW) {
+                windows = windows.append(defaultOpenableWindow);
+            } else {
+                windows = windows.append(copyOf(window));
+            }
+        }
+
+        return new HouseVersion(house.getAddress(), house.getSecret(), house.getSquare(),
+                house.getRoomsAmount(), house.getFloorsAmount(),
+                entryDoor == null ? null : (LockableDoor) copyOf(entryDoor), entrances, roomDoors, windows);
+    }
+
+    /**
+     * Getter for {@code address} field
+     *
+     * @return address of house
+     */
+    public String getAddress() {
+        return address;
+    }
+
+    /**
+     * Getter for {@code square} field
+     *
+     * @return square of house
+     */
+    public double getSquare() {
+        return square;
+    }
+
+    /**
+     * Getter for {@code roomsAmount} field
+     *
+     * @return amount of rooms in the house
+     */
+    public int getRoomsAmount() {
+        return roomsAmount;
+    }
+
+    /**
+     * Getter for {@code floorsAmount} field
+     *
+     * @return amount of floors in the house
+     */
+    public int getFloorsAmount() {
+        return floorsAmount;
+    }
+
+    /**
+     * Getter for copy of {@code entryDoor} field
+     *
+     * @return copy of entry door or {@code null}
+     */
+    public LockableDoor getEntryDoor() {
+        return entryDoor == null ? null : (LockableDoor) copyOf(entryDoor);
+    }
+
+    /**
+     * Returns copy of entrance at the specified position
+     *
+     * @param index position of entrance; the entry door, if any, is at position 0
+     * @return copy of entrance
+     */
+    public LockableDoor getEntrance(int index) {
+        if (entryDoor != null) {
+            return (LockableDoor) copyOf(index == 0 ? entryDoor : entrances.get(index - 1));
+        }
+        return (LockableDoor) copyOf(entrances.get(index));
+    }
+
+    /**
+     * This method return the total amount of entrances in the house
+     *
+     * @return amount of entrances
+     */
+    public int getEntrancesAmount() {
+        return (entryDoor != null ? 1 : 0) + entrances.size();
+    }
+
+    /**
+     * Returns copy of room door at the specified position
+     *
+     * @param index position of room door
+     * @return copy of room door
+     */
+    public Door getRoomDoor(int index) {
+        return copyOf(roomDoors.get(index));
+    }
+
+    /**
+     * Returns copy of window at the specified position
+     *
+     * @param index position of window
+     * @return copy of window
+     */
+    public Window getWindow(int index) {
+        return copyOf(windows.get(index));
+    }
+
+    /**
+     * This method return the total amount of doors in the house: room doors and entrances
+     * @return amount of doors
+     */
+    public int getDoorsAmount() {
+        return roomDoors.size() + getEntrancesAmount();
+    }
+
+    /**
+     * This method return the total amount of windows in the house
+     * @return amount of windows
+     */
+    public int getWindowsAmount() {
+        return windows.size();
+    }
+
+    /**
+     * Returns version with the specified square
+     *
+     * @param square square of house
+     * @return new version
+     */
+    public HouseVersion withSquare(double square) {
+        return new HouseVersion(address, secret, square, roomsAmount, floorsAmount,
+                entryDoor, entrances, roomDoors, windows);
+    }
+
+    /**
+     * Returns version with the specified amount of rooms
+     *
+     * @param roomsAmount amount of rooms in the house
+     * @return new version
+     */
+    public HouseVersion withRoomsAmount(int roomsAmount) {
+        return new HouseVersion(address, secret, square, roomsAmount, floorsAmount,
+                entryDoor, entrances, roomDoors, windows);
+    }
+
+    /**
+     * Returns version with the specified amount of floors
+     *
+     * @param floorsAmount amount of floors in the house
+     * @return new version
+     */
+    public HouseVersion withFloorsAmount(int floorsAmount) {
+        return new HouseVersion(address, secret, square, roomsAmount, floorsAmount,
+                entryDoor, entrances, roomDoors, windows);
+    }
+
+    /**
+     * Returns version with the specified entry door
+     *
+     * @param lockableDoor new entry door
+     * @return new version
+     */
+    public HouseVersion withEntryDoor(LockableDoor lockableDoor) {
+        if (lockableDoor == null) {
+            throw new NullPointerException("Parameter 'lockableDoor' is null");
+        }
+        return new HouseVersion(address, secret, square, roomsAmount, floorsAmount,
+                (LockableDoor) copyOf(lockableDoor), entrances, roomDoors, windows);
+    }
+
+    /**
+     * Returns version with the entrance appended after the entry door and other entrances
+     *
+     * @param entrance entrance for adding
+     * @return new version
+     */
+    public HouseVersion withEntrance(LockableDoor entrance) {
+        if (entrance == null) {
+            throw new NullPointerException("Parameter 'entrance' is null");
+        }
+        return new HouseVersion(address, secret, square, roomsAmount, floorsAmount,
+                entryDoor, entrances.append(copyOf(entrance)), roomDoors, windows);
+    }
+
+    /**
+     * Returns version with the room door appended
+     *
+     * @param door room door for adding
+     * @return new version
+     */
+    public HouseVersion withRoomDoor(Door door) {
+        if (door == null) {
+            throw new NullPointerException("Parameter 'door' is null");
+        }
+        return new HouseVersion(address, secret, square, roomsAmount, floorsAmount,
+                entryDoor, entrances, roomDoors.append(copyOf(door)), windows);
+    }
+
+    /**
+     * Returns version with the room door at the specified position replaced
+     *
+     * @param index position of room door
+     * @param door  new room door
+     * @return new version
+     */
+    public HouseVersion withRoomDoor(int index, Door door) {
+        if (door == null) {
+            throw new NullPointerException("Parameter 'door' is null");
+        }
+        return new HouseVersion(address, secret, square, roomsAmount, floorsAmount,
+                entryDoor, entrances, roomDoors.set(index, copyOf(door)), windows);
+    }
+
+    /**
+     * Returns version with the window appended
+     *
+     * @param window window for adding
+     * @return new version
+     */
+    public HouseVersion withWindow(Window window) {
+        if (window == null) {
+            throw new NullPointerException("Parameter 'window' is null");
+        }
+        return new HouseVersion(address, secret, square, roomsAmount, floorsAmount,
+                entryDoor, entrances, roomDoors, windows.append(copyOf(window)));
+    }
+
+    /**
+     * Returns version with the window at the specified position replaced
+     *
+     * @param index  position of window
+     * @param window new window
+     * @return new version
+     */
+    public HouseVersion withWindow(int index, Window window) {
+        if (window == null) {
+            throw new NullPointerException("Parameter 'window' is null");
+        }
+        return new HouseVersion(address, secret, square, roomsAmount, floorsAmount,
+                entryDoor, entrances, roomDoors, windows.set(index, copyOf(window)));
+    }
+
+    /**
+     * Creates mutable house with the state of this version.
+     * Keys issued for the house this version originates from stay valid
+     *
+     * @return new house object
+     */
+    public House toHouse() {
+        House.HouseBuilder builder = new House.HouseBuilder(
+                new House(address, square, roomsAmount, floorsAmount, secret));
+        if (entryDoor != null) {
+            builder.setEntryDoor((LockableDoor) copyOf(entryDoor));
+        }
+        for (Door entrance : entrances) {
+            builder.addEntrance((LockableDoor) copyOf(entrance));
+        }
+
+        List<Door> doors = new ArrayList<>(roomDoors.size());
+        for (Door door : roomDoors) {
+            doors.add(copyOf(door));
+        }
+        builder.addRoomDoors(doors);
+
+        List<Window> windowsCopies = new ArrayList<>(windows.size());
+        for (Window window : windows) {
+            windowsCopies.add(copyOf(window));
+        }
+        builder.addWindows(windowsCopies);
+
+        return builder.getHouse();
+    }
+
+    /**
+     * Returns a {@code String} object representing this {@code HouseVersion} object's value.
+     * Includes it's class name, {@code address}, {@code square}, {@code roomsAmount},
+     * {@code floorsAmount}, amount of doors and amount of windows
+     *
+     * @return a string representation of fields values of this object
+     */
+    @Override
+    public String toString() {
+        return "HouseVersion[" +
+                "address='" + address + '\'' +
+                ", square=" + square +
+                ", roomsAmount=" + roomsAmount +
+                ", floorsAmount=" + floorsAmount +
+                ", doors=" + getDoorsAmount() +
+                ", windows=" + windows.size() +
+                ']';
+    }
+
+    /**
+     * Returns door with the same attributes and state
+     *
+     * @param door door for copying
+     * @return new door object
+     */
+    private static Door copyOf(Door door) {
+        if (door instanceof LockableDoor) {
+            LockableDoor lockableDoor = (LockableDoor) door;
+            return new LockableDoor(door.getMaterial(), door.getColor(), door.getType(),
+                    door.isWithGlass(), lockableDoor.getId(), lockableDoor.getLockEpoch(),
+                    lockableDoor.isLocked(), door.isOpened());
+        }
+
+        Door copy = new Door(door.getMaterial(), door.getColor(), door.getType(), door.isWithGlass());
+        if (door.isOpened()) {
+            copy.open();
+        }
+        return copy;
+    }
+
+    /**
+     * Returns window with the same attributes and state
+     *
+     * @param window window for copying
+     * @return new window object
+     */
+    private static Window copyOf(Window window) {
+        if (window instanceof OpenableWindow) {
+            OpenableWindow copy = new OpenableWindow(window.getMaterial(), window.getColor(),
+                    window.getType(), window.getLookAtDirection());
+            if (((OpenableWindow) window).isOpened()) {
+                copy.open();
+            }
+            return copy;
+        }
+        return new Window(window.getMaterial(), window.getColor(),
+                window.getType(), window.getLookAtDirection());
+    }
+}
@@ -0,0 +1,15 @@
+package ua.onufreiv.inheritance.house;
+
+import ua.onufreiv.inheritance.house.openings.Direction;
+import ua.onufreiv.inheritance.house.openings.Window;
+
+/**
+ * This interface represents listener that is notified every time
+ * some {@link House} gets the first window with some direction and type
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+public interface IWindowsOrientationListener {
+    void windowsOrientationAdded(House house, Direction direction, Window.WindowType type);
+}
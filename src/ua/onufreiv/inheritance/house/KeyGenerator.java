@@ -1,12 +1,22 @@
 package ua.onufreiv.inheritance.house;
 
+import ua.onufreiv.inheritance.house.metrics.HouseMetrics;
 import ua.onufreiv.inheritance.house.openings.LockableDoor;
 
-import java.util.Objects;
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
 
 /**
  * The purpose of this class is to generate 'keys' for the 'doors' when
  * it is necessary to lock them.
+ * <p/> Every key is HMAC-SHA256 of door identifier and lock epoch, calculated
+ * with the secret of house that hosts the door.
  * <p/> Has {@link Key} nested class in it.
  *
  * @author Yurii Onufreiv
@@ -14,8 +24,50 @@ import java.util.Objects;
  */
 public class KeyGenerator {
 
+    /** Name of MAC algorithm that is used for keys forming */
+    private static final String ALGORITHM = "HmacSHA256";
+    /** Length of house secret in bytes */
+    private static final int SECRET_LENGTH = 32;
+    /** Length of formed MAC in bytes */
+    private static final int MAC_LENGTH = 32;
+
+    /**
+     * Identifier, that master keys of house are formed for instead of door identifier
+     */
+    private static final long MASTER_KEY_ID = Long.MIN_VALUE;
+
+    /** Source of house secrets */
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * Per-thread MAC engines, so keys forming and validation don't
+     * create new {@code Mac} objects
+     */
+    private static final ThreadLocal<MacEngine> ENGINES = ThreadLocal.withInitial(MacEngine::new);
+
+    /**
+     * Generates new random secret for the house
+     *
+     * @return secret key specification
+     */
+    static SecretKeySpec newSecret() {
+        byte[] secret = new byte[SECRET_LENGTH];
+        RANDOM.nextBytes(secret);
+        return new SecretKeySpec(secret, ALGORITHM);
+    }
+
+    /**
+     * Restores house secret from its encoded form
+     *
+     * @param encoded bytes of secret, as returned by {@code SecretKeySpec.getEncoded()}
+     * @return secret key specification
+     */
+    static SecretKeySpec restoreSecret(byte[] encoded) {
+        return new SecretKeySpec(encoded, ALGORITHM);
+    }
+
     /**
-     * Generates new {@link Key} object for the specified door
+     * Generates new {@link Key} object for the current lock epoch of specified door
      *
      * @param house house object, entry door of which must be locked
      * @param door  door that must be locked
@@ -26,60 +78,187 @@ public class KeyGenerator {
             throw new IllegalArgumentException("Null value(-s)");
         }
 
-        return new Key(house, door);
+        return generateKey(house, door, door.getLockEpoch());
     }
 
     /**
-     * This class represents key for doors locking/unlocking.
-     * The lock is performed with the help of hash value of the specified door and house
+     * Generates new {@link Key} object for the specified lock epoch of door
+     *
+     * @param house     house object, entry door of which must be locked
+     * @param door      door that must be locked
+     * @param lockEpoch lock epoch of door, the key is valid for
+     * @return generated {@code KeyGenerator.Key} object for further unlocking
      */
-    public static class Key {
+    public static Key generateKey(House house, LockableDoor door, int lockEpoch) {
+        if (house == null || door == null) {
+            throw new IllegalArgumentException("Null value(-s)");
+        }
+
+        return formKey(house, door.getId(), lockEpoch);
+    }
+
+    /**
+     * Generates new master {@link Key} object, that is issued when all the
+     * entrances of house are locked at once
+     *
+     * @param house       house object, entrances of which are locked
+     * @param masterEpoch counter of master keys of house, the key is valid for
+     * @return generated {@code KeyGenerator.Key} object
+     */
+    static Key generateMasterKey(House house, int masterEpoch) {
+        if (house == null) {
+            throw new IllegalArgumentException("Null value(-s)");
+        }
+
+        return formKey(house, MASTER_KEY_ID, masterEpoch);
+    }
+
+    /**
+     * Forms key for the specified identifier and epoch with the secret of house
+     *
+     * @param house house object, secret of which is used
+     * @param id    identifier of door or {@code MASTER_KEY_ID}
+     * @param epoch lock epoch of door or counter of master keys
+     * @return generated {@code KeyGenerator.Key} object
+     */
+    private static Key formKey(House house, long id, int epoch) {
+        HouseMetrics metrics = HouseMetrics.getDefault();
+        long startTime = metrics.startTimer();
+        byte[] mac = new byte[MAC_LENGTH];
+        ENGINES.get().formMac(house.getSecret(), id, epoch, mac);
+        metrics.increment(HouseMetrics.Counter.KEY_GENERATED);
+        metrics.stopTimer(HouseMetrics.Timer.GENERATE_KEY, startTime);
+        return new Key(id, epoch, mac);
+    }
+
+    /**
+     * This class holds {@code Mac} object and buffers of one thread
+     */
+    private static class MacEngine {
+        /** MAC algorithm implementation */
+        private final Mac mac;
+        /** Buffer for the MAC input: door identifier and lock epoch */
+        private final byte[] input = new byte[Long.BYTES + Integer.BYTES];
+        /** Buffer for the MAC output during validation */
+        private final byte[] output = new byte[MAC_LENGTH];
+        /** Secret, with which {@code mac} is initialized; {@code null} before the first use */
+        private SecretKeySpec initializedSecret;
 
         /**
-         * Hash code of key
+         * Default constructor.
+         * <p/> Creates MAC algorithm implementation
          */
-        private int hashKey;
+        MacEngine() {
+            try {
+                mac = Mac.getInstance(ALGORITHM);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(ALGORITHM + " is not supported", e);
+            }
+        }
 
         /**
-         * Parametrized constructor; gets the value of {@code hashCode()} of
-         * specified door
+         * Forms MAC of door identifier and lock epoch. The {@code Mac} object
+         * is initialized only when the secret differs from the previous one,
+         * e.g. for keys of another house
+         *
+         * @param secret    secret of house that hosts the door
+         * @param doorId    identifier of door
+         * @param lockEpoch lock epoch of door
+         * @param result    array for the formed MAC
+         */
+        void formMac(SecretKeySpec secret, long doorId, int lockEpoch, byte[] result) {
+            for (int i = 0; i < Long.BYTES; i++) {
+                input[i] = (byte) (doorId >>> (Long.SIZE - Byte.SIZE * (i + 1)));
+            }
+            for (int i = 0; i < Integer.BYTES; i++) {
+                input[Long.BYTES + i] = (byte) (lockEpoch >>> (Integer.SIZE - Byte.SIZE * (i + 1)));
+            }
+
+            try {
+                if (secret != initializedSecret) {
+                    initializedSecret = null;
+                    mac.init(secret);
+                    initializedSecret = secret;
+                }
+                mac.update(input);
+                mac.doFinal(result, 0);
+            } catch (ShortBufferException | InvalidKeyException e) {
+                initializedSecret = null;
+                throw new IllegalStateException("Unable to form key", e);
+            }
+        }
+    }
+
+    /**
+     * This class represents key for doors locking/unlocking.
+     * The lock is performed with the help of MAC of door identifier and lock epoch
+     */
+    public static class Key {
+
+        /** Identifier of door, the key is created for */
+        private final long doorId;
+        /** Lock epoch of door, the key is created for */
+        private final int lockEpoch;
+        /** MAC of door identifier and lock epoch */
+        private final byte[] mac;
+        /** Hash code of key */
+        private final int hashKey;
+
+        /**
+         * Parametrized constructor.
          * <p/>It's private for making it impossible to create key object manually
          *
-         * @param house that hosts passed {@code door}
-         * @param door  key is created for this door
+         * @param doorId    identifier of door, the key is created for
+         * @param lockEpoch lock epoch of door, the key is created for
+         * @param mac       MAC of door identifier and lock epoch
          */
-        private Key(House house, LockableDoor door) {
-            this.hashKey = formHashKey(house, door);
+        private Key(long doorId, int lockEpoch, byte[] mac) {
+            this.doorId = doorId;
+            this.lockEpoch = lockEpoch;
+            this.mac = mac;
+            this.hashKey = Arrays.hashCode(mac);
         }
 
         /**
          * Checks if the key could interact (lock/unlock) with the
-         * specified door. Compares the value in the {@code doorHashCode}
-         * field with the {@code door.hashCode()} value
+         * specified door in its current lock epoch
          *
          * @param house that hosts passed {@code door}
          * @param door  door for the key validation
          * @return true if key is valid to the specified door, false otherwise
          */
         public boolean isValidForDoor(House house, LockableDoor door) {
-            return hashKey == formHashKey(house, door);
+            return isValidForDoor(house, door, door.getLockEpoch());
         }
 
         /**
-         * Forms hash key for the specified house and door
+         * Checks if the key could interact (lock/unlock) with the
+         * specified door in the specified lock epoch. The MAC comparison
+         * is performed in constant time
          *
-         * @param house that hosts passed {@code door}
-         * @param door  door for the key validation
-         * @return formed 'key' hash value
+         * @param house     that hosts passed {@code door}
+         * @param door      door for the key validation
+         * @param lockEpoch lock epoch of door
+         * @return true if key is valid to the specified door, false otherwise
          */
-        private int formHashKey(House house, LockableDoor door) {
-            return Objects.hash(house.hashCode(), door.hashCode());
+        public boolean isValidForDoor(House house, LockableDoor door, int lockEpoch) {
+            boolean isValid = doorId == door.getId() && this.lockEpoch == lockEpoch;
+            if (isValid) {
+                MacEngine engine = ENGINES.get();
+                engine.formMac(house.getSecret(), doorId, lockEpoch, engine.output);
+                isValid = MessageDigest.isEqual(mac, engine.output);
+            }
+
+            if (!isValid) {
+                HouseMetrics.getDefault().increment(HouseMetrics.Counter.KEY_VALIDATION_FAILURE);
+            }
+            return isValid;
         }
 
         /**
          * Checks this object for the equality with the {@code otherObject}.
-         * <p/>The equality condition is checked using the following field:
-         * {@code hashKey}
+         * <p/>The equality condition is checked using the following fields:
+         * {@code doorId}, {@code lockEpoch} and {@code mac}
          *
          * @param otherObject the object to check with.
          * @return {@code true} if the objects are the same;
@@ -95,30 +274,34 @@ public class KeyGenerator {
 
             Key other = (Key) otherObject;
 
-            return Objects.equals(hashKey, other.hashKey);
+            return doorId == other.doorId
+                    && lockEpoch == other.lockEpoch
+                    && MessageDigest.isEqual(mac, other.mac);
         }
 
         /**
          * Returns a hash code for this key.
-         * <p/>Based on {@code hashKey} value.
+         * <p/>Based on {@code mac} value.
          *
          * @return a hash code value for this key object.
          */
         @Override
         public int hashCode() {
-            return Objects.hash(hashKey);
+            return hashKey;
         }
 
         /**
          * Returns a {@code String} object representing this {@code Key} object's value.
-         * Includes it's class name and {@code hashKey} values
+         * Includes it's class name, {@code doorId} and {@code lockEpoch} values;
+         * MAC is not included to keep it secret
          *
          * @return a string representation of fields values of this object
          */
         @Override
         public String toString() {
             return "Key[" +
-                    "hashKey=" + hashKey +
+                    "doorId=" + doorId +
+                    ", lockEpoch=" + lockEpoch +
                     ']';
         }
     }
@@ -0,0 +1,457 @@
+package ua.onufreiv.inheritance.house;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class represents registry of issued {@link KeyGenerator.Key} objects.
+ * Every key is valid during its time-to-live, unless it is revoked or released.
+ * <p/> Keys are looked up in the concurrent hash map, so the validation takes
+ * constant time. Expired keys are evicted with the help of hashed timer wheel:
+ * only the wheel buckets of the passed ticks are visited, not the whole registry.
+ * The wheel is advanced by the shared ticker thread, so registration and validation
+ * never perform eviction; revoked and released keys are unlinked from their buckets at once.
+ * <p/> Has {@link Entry} and {@link Ticker} nested classes in it.
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+public class KeyRegistry {
+
+    /** Default duration of the wheel tick in milliseconds */
+    private static final long DEFAULT_TICK_MILLIS = 100;
+    /** Default amount of the wheel buckets */
+    private static final int DEFAULT_WHEEL_SIZE = 512;
+
+    /** Thread, that advances timer wheels of all the registries */
+    private static final ScheduledExecutorService TICKER = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "key-registry-ticker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Time-to-live of keys in milliseconds, if other is not specified */
+    private final long defaultTtlMillis;
+    /** Duration of the wheel tick in milliseconds */
+    private final long tickMillis;
+    /** Registered keys that are neither revoked, released nor evicted */
+    private final ConcurrentHashMap<KeyGenerator.Key, Entry> entries;
+    /**
+     * Buckets of timer wheel; entry is linked into the bucket of its expiration tick.
+     * Every bucket is the head of circular doubly-linked list, guarded by its monitor
+     */
+    private final Entry[] wheel;
+    /** Indicates whether some thread is advancing the wheel now */
+    private final AtomicBoolean advancing;
+    /** The last tick, buckets of which were processed */
+    private volatile long processedTick;
+
+    /** Amount of issued keys */
+    private final LongAdder issuedCount;
+    /** Amount of revoked keys */
+    private final LongAdder revokedCount;
+    /** Amount of released keys */
+    private final LongAdder releasedCount;
+    /** Amount of expired keys */
+    private final LongAdder expiredCount;
+
+    /**
+     * Parametrized constructor.
+     * <p/> Creates registry with default timer wheel parameters
+     *
+     * @param defaultTtlMillis time-to-live of keys in milliseconds
+     */
+    public KeyRegistry(long defaultTtlMillis) {
+        this(defaultTtlMillis, DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * Parametrized constructor.
+     *
+     * @param defaultTtlMillis time-to-live of keys in milliseconds
+     * @param tickMillis       duration of the wheel tick in milliseconds
+     * @param wheelSize        amount of the wheel buckets
+     */
+    public KeyRegistry(long defaultTtlMillis, long tickMillis, int wheelSize) {
+        if (defaultTtlMillis <= 0 || tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Non-positive value(-s)");
+        }
+
+        this.defaultTtlMillis = defaultTtlMillis;
+        this.tickMillis = tickMillis;
+        entries = new ConcurrentHashMap<>();
+        wheel = new Entry[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            wheel[i] = new Entry(null, 0);
+        }
+        advancing = new AtomicBoolean();
+        processedTick = currentTick();
+
+        issuedCount = new LongAdder();
+        revokedCount = new LongAdder();
+        releasedCount = new LongAdder();
+        expiredCount = new LongAdder();
+
+        Ticker ticker = new Ticker(this);
+        ticker.future = TICKER.scheduleAtFixedRate(ticker, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registers the key with the default time-to-live
+     *
+     * @param key key for registering
+     * @return true if the key was registered, false if it is already registered
+     */
+    public boolean register(KeyGenerator.Key key) {
+        return register(key, defaultTtlMillis);
+    }
+
+    /**
+     * Registers the key with the specified time-to-live
+     *
+     * @param key       key for registering
+     * @param ttlMillis time-to-live of key in milliseconds
+     * @return true if the key was registered, false if it is already registered
+     */
+    public boolean register(KeyGenerator.Key key, long ttlMillis) {
+        if (key == null) {
+            throw new NullPointerException("Parameter 'key' is null");
+        } else if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("Non-positive value");
+        }
+
+        Entry entry = new Entry(key, currentMillis() + ttlMillis);
+        link(entry);
+        if (entries.putIfAbsent(key, entry) != null) {
+            unlink(entry);
+            return false;
+        }
+        issuedCount.increment();
+        return true;
+    }
+
+    /**
+     * Checks whether the key is registered, not expired, not revoked and not released
+     *
+     * @param key key for validation
+     * @return true if the key is valid, false otherwise
+     */
+    public boolean isValid(KeyGenerator.Key key) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.expirationMillis > currentMillis();
+    }
+
+    /**
+     * Revokes the key, so it becomes invalid
+     *
+     * @param key key for revoking
+     * @return true if the key was valid before, false otherwise
+     */
+    public boolean revoke(KeyGenerator.Key key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        unlink(entry);
+        revokedCount.increment();
+        return true;
+    }
+
+    /**
+     * Releases the key that was used, so it becomes invalid.
+     * Unlike {@link #revoke(KeyGenerator.Key)} isn't counted as revocation
+     *
+     * @param key key for releasing
+     * @return true if the key was valid before, false otherwise
+     */
+    public boolean release(KeyGenerator.Key key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        unlink(entry);
+        releasedCount.increment();
+        return true;
+    }
+
+    /**
+     * Evicts keys, time-to-live of which has passed. Visits only buckets
+     * of the ticks passed since the previous call, at most the whole wheel once.
+     * Is called by the ticker thread every tick; if some other thread is
+     * evicting keys now, returns immediately
+     */
+    public void advance() {
+        long nowTick = currentTick();
+        if (nowTick <= processedTick || !advancing.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            long fromTick = Math.max(processedTick + 1, nowTick - wheel.length + 1);
+            for (long tick = fromTick; tick <= nowTick; tick++) {
+                expireBucket(tick, nowTick);
+            }
+            processedTick = nowTick;
+        } finally {
+            advancing.set(false);
+        }
+    }
+
+    /**
+     * Evicts expired entries of the bucket, that corresponds to the specified tick.
+     * Entries that belong to the later rounds of the wheel stay in the bucket
+     *
+     * @param tick    tick, bucket of which must be processed
+     * @param nowTick current tick
+     */
+    private void expireBucket(long tick, long nowTick) {
+        Entry bucket = bucketOf(tick);
+        synchronized (bucket) {
+            Entry entry = bucket.next;
+            while (entry != bucket) {
+                Entry next = entry.next;
+                if (expirationTick(entry) <= nowTick) {
+                    unlinkFromBucket(entry);
+                    if (entries.remove(entry.key, entry)) {
+                        expiredCount.increment();
+                    }
+                }
+                entry = next;
+            }
+        }
+    }
+
+    /**
+     * Links the entry into the bucket of its expiration tick
+     *
+     * @param entry registered entry
+     */
+    private void link(Entry entry) {
+        Entry bucket = bucketOf(expirationTick(entry));
+        synchronized (bucket) {
+            entry.bucket = bucket;
+            entry.prev = bucket.prev;
+            entry.next = bucket;
+            bucket.prev.next = entry;
+            bucket.prev = entry;
+        }
+    }
+
+    /**
+     * Unlinks the entry from its bucket, if it's still there
+     *
+     * @param entry registered entry
+     */
+    private void unlink(Entry entry) {
+        Entry bucket = entry.bucket;
+        synchronized (bucket) {
+            unlinkFromBucket(entry);
+        }
+    }
+
+    /**
+     * Unlinks the entry from its bucket; the monitor of bucket must be held
+     *
+     * @param entry registered entry
+     */
+    private static void unlinkFromBucket(Entry entry) {
+        if (entry.next != null) {
+            entry.prev.next = entry.next;
+            entry.next.prev = entry.prev;
+            entry.prev = null;
+            entry.next = null;
+        }
+    }
+
+    /**
+     * Returns the first tick, at the beginning of which the entry is already expired
+     *
+     * @param entry registered entry
+     * @return expiration tick of entry
+     */
+    private long expirationTick(Entry entry) {
+        return (entry.expirationMillis + tickMillis - 1) / tickMillis;
+    }
+
+    /**
+     * Returns bucket of the timer wheel for the specified tick
+     *
+     * @param tick tick value
+     * @return head of bucket list
+     */
+    private Entry bucketOf(long tick) {
+        return wheel[(int) (tick % wheel.length)];
+    }
+
+    /**
+     * Returns current time of monotonic clock in milliseconds
+     *
+     * @return current time
+     */
+    private static long currentMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * Returns current tick of the timer wheel
+     *
+     * @return current tick
+     */
+    private long currentTick() {
+        return currentMillis() / tickMillis;
+    }
+
+    /**
+     * This method return the total amount of registered keys
+     *
+     * @return amount of issued keys
+     */
+    public long getIssuedCount() {
+        return issuedCount.sum();
+    }
+
+    /**
+     * This method return the amount of keys that are neither revoked, released nor expired.
+     * Keys that are expired, but aren't evicted by the ticker yet, are counted at the call
+     * in the buckets of the ticks, that aren't processed. Changes of registry, that run
+     * concurrently with the call, could be reflected partially
+     *
+     * @return amount of valid keys
+     */
+    public long getValidCount() {
+        long count = issuedCount.sum() - revokedCount.sum() - releasedCount.sum() - expiredCount.sum();
+        return count - countExpiredNotEvicted();
+    }
+
+    /**
+     * Counts keys, that are expired, but are still waiting for eviction in the buckets of the
+     * ticks, that aren't processed yet: usually one or two buckets, at most the whole wheel
+     *
+     * @return amount of expired keys, that aren't evicted
+     */
+    private long countExpiredNotEvicted() {
+        long nowMillis = currentMillis();
+        long lastTick = (nowMillis + tickMillis - 1) / tickMillis;
+        long fromTick = Math.max(processedTick + 1, lastTick - wheel.length + 1);
+
+        long count = 0;
+        for (long tick = fromTick; tick <= lastTick; tick++) {
+            Entry bucket = bucketOf(tick);
+            synchronized (bucket) {
+                for (Entry entry = bucket.next; entry != bucket; entry = entry.next) {
+                    if (entry.expirationMillis <= nowMillis) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * This method return the amount of keys evicted as expired
+     *
+     * @return amount of expired keys
+     */
+    public long getExpiredCount() {
+        return expiredCount.sum();
+    }
+
+    /**
+     * This method return the amount of revoked keys
+     *
+     * @return amount of revoked keys
+     */
+    public long getRevokedCount() {
+        return revokedCount.sum();
+    }
+
+    /**
+     * Returns a {@code String} object representing this {@code KeyRegistry} object's value.
+     * Includes it's class name and keys counters
+     *
+     * @return a string representation of fields values of this object
+     */
+    @Override
+    public String toString() {
+        return "KeyRegistry[" +
+                "issued=" + getIssuedCount() +
+                ", valid=" + getValidCount() +
+                ", expired=" + getExpiredCount() +
+                ", revoked=" + getRevokedCount() +
+                ']';
+    }
+
+    /**
+     * This class represents registered key together with its expiration time.
+     * Entry with {@code null} key is the head of wheel bucket
+     */
+    private static class Entry {
+        /** Registered key */
+        private final KeyGenerator.Key key;
+        /** Time of expiration in milliseconds of monotonic clock */
+        private final long expirationMillis;
+        /** Head of bucket, into which the entry is linked */
+        private Entry bucket;
+        /** Previous entry of bucket list; {@code null} if the entry is unlinked */
+        private Entry prev;
+        /** Next entry of bucket list; {@code null} if the entry is unlinked */
+        private Entry next;
+
+        /**
+         * Parametrized constructor.
+         *
+         * @param key              registered key or {@code null} for bucket head
+         * @param expirationMillis time of expiration
+         */
+        Entry(KeyGenerator.Key key, long expirationMillis) {
+            this.key = key;
+            this.expirationMillis = expirationMillis;
+            if (key == null) {
+                bucket = this;
+                prev = this;
+                next = this;
+            }
+        }
+    }
+
+    /**
+     * This class represents periodic task of the ticker thread, that advances
+     * the wheel of registry. The registry is referenced weakly, so the task
+     * is cancelled when the registry isn't used anymore
+     */
+    private static class Ticker implements Runnable {
+        /** Registry, wheel of which is advanced */
+        private final WeakReference<KeyRegistry> registry;
+        /** Scheduled execution of the task */
+        private volatile ScheduledFuture<?> future;
+
+        /**
+         * Parametrized constructor.
+         *
+         * @param registry registry, wheel of which is advanced
+         */
+        Ticker(KeyRegistry registry) {
+            this.registry = new WeakReference<>(registry);
+        }
+
+        /**
+         * Advances the wheel of registry or cancels the task, if the registry is collected
+         */
+        @Override
+        public void run() {
+            KeyRegistry current = registry.get();
+            if (current != null) {
+                current.advance();
+            } else if (future != null) {
+                future.cancel(false);
+            }
+        }
+    }
+}
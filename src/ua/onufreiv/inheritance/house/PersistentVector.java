@@ -0,0 +1,253 @@
+package ua.onufreiv.inheritance.house;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class represents immutable vector, modifications of which return new
+ * vectors sharing unchanged parts with the original one.
+ * <p/> Elements are stored in the 32-way trie with separate tail node, so appending
+ * copies the tail only and replacing copies the path from the root to the leaf:
+ * both take O(log32 n) time and memory.
+ *
+ * @param <E> type of elements
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+final class PersistentVector<E> implements Iterable<E> {
+
+    /** Amount of index bits consumed by one level of trie */
+    private static final int BITS = 5;
+    /** Amount of children of trie node */
+    private static final int WIDTH = 1 << BITS;
+    /** Mask of child index within node */
+    private static final int MASK = WIDTH - 1;
+
+    /** Vector without elements */
+    private static final PersistentVector<?> EMPTY =
+            new PersistentVector<>(0, BITS, new Object[WIDTH], new Object[0]);
+
+    /** Amount of elements */
+    private final int size;
+    /** Amount of index bits above the leaf level */
+    private final int shift;
+    /** Root node of trie; holds all the elements except the tail ones */
+    private final Object[] root;
+    /** Last, not yet full, leaf */
+    private final Object[] tail;
+
+    /**
+     * Parametrized constructor.
+     *
+     * @param size  amount of elements
+     * @param shift amount of index bits above the leaf level
+     * @param root  root node of trie
+     * @param tail  last leaf
+     */
+    private PersistentVector(int size, int shift, Object[] root, Object[] tail) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    /**
+     * Returns vector without elements
+     *
+     * @param <E> type of elements
+     * @return empty vector
+     */
+    @SuppressWarnings("unchecked")
+    static <E> PersistentVector<E> empty() {
+        return (PersistentVector<E>) EMPTY;
+    }
+
+    /**
+     * Getter for {@code size} field
+     *
+     * @return amount of elements
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns element at the specified position
+     *
+     * @param index position of element
+     * @return element
+     */
+    @SuppressWarnings("unchecked")
+    E get(int index) {
+        checkIndex(index);
+        return (E) leafFor(index)[index & MASK];
+    }
+
+    /**
+     * Returns new vector with the element appended to the end of this one
+     *
+     * @param element element for appending
+     * @return new vector
+     */
+    PersistentVector<E> append(E element) {
+        if (size - tailOffset() < WIDTH) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = element;
+            return new PersistentVector<>(size + 1, shift, root, newTail);
+        }
+
+        Object[] newRoot;
+        int newShift = shift;
+        if ((size >>> BITS) > (1 << shift)) {
+            newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, tail);
+            newShift += BITS;
+        } else {
+            newRoot = pushTail(shift, root);
+        }
+        return new PersistentVector<>(size + 1, newShift, newRoot, new Object[]{element});
+    }
+
+    /**
+     * Returns new vector with the element at the specified position replaced
+     *
+     * @param index   position of element
+     * @param element new element
+     * @return new vector
+     */
+    PersistentVector<E> set(int index, E element) {
+        checkIndex(index);
+        if (index >= tailOffset()) {
+            Object[] newTail = tail.clone();
+            newTail[index & MASK] = element;
+            return new PersistentVector<>(size, shift, root, newTail);
+        }
+        return new PersistentVector<>(size, shift, setInNode(shift, root, index, element), tail);
+    }
+
+    /**
+     * Returns iterator over elements in order of their positions
+     *
+     * @return iterator over elements
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int index;
+            private Object[] leaf;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                if ((index & MASK) == 0 || leaf == null) {
+                    leaf = leafFor(index);
+                }
+                return (E) leaf[index++ & MASK];
+            }
+        };
+    }
+
+    /**
+     * Checks whether the position is within the vector
+     *
+     * @param index position of element
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+    }
+
+    /**
+     * Returns position of the first element of tail
+     *
+     * @return position of the first tail element
+     */
+    private int tailOffset() {
+        return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    /**
+     * Returns leaf, that holds the element at the specified position
+     *
+     * @param index position of element
+     * @return leaf node or tail
+     */
+    private Object[] leafFor(int index) {
+        if (index >= tailOffset()) {
+            return tail;
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return node;
+    }
+
+    /**
+     * Returns copy of the node with the full tail inserted as its last leaf
+     *
+     * @param level  amount of index bits above the leaf level of node
+     * @param parent node for insertion
+     * @return new node
+     */
+    private Object[] pushTail(int level, Object[] parent) {
+        int childIndex = ((size - 1) >>> level) & MASK;
+        Object[] result = parent.clone();
+        Object[] inserted;
+        if (level == BITS) {
+            inserted = tail;
+        } else {
+            Object[] child = (Object[]) parent[childIndex];
+            inserted = child != null ? pushTail(level - BITS, child) : newPath(level - BITS, tail);
+        }
+        result[childIndex] = inserted;
+        return result;
+    }
+
+    /**
+     * Returns chain of nodes, that leads from the specified level to the leaf
+     *
+     * @param level amount of index bits above the leaf level
+     * @param leaf  leaf at the end of chain
+     * @return top node of chain
+     */
+    private static Object[] newPath(int level, Object[] leaf) {
+        if (level == 0) {
+            return leaf;
+        }
+        Object[] node = new Object[WIDTH];
+        node[0] = newPath(level - BITS, leaf);
+        return node;
+    }
+
+    /**
+     * Returns copy of the node with the element at the specified position replaced
+     *
+     * @param level   amount of index bits above the leaf level of node
+     * @param node    node for modification
+     * @param index   position of element
+     * @param element new element
+     * @return new node
+     */
+    private static Object[] setInNode(int level, Object[] node, int index, Object element) {
+        Object[] result = node.clone();
+        if (level == 0) {
+            result[index & MASK] = element;
+        } else {
+            int childIndex = (index >>> level) & MASK;
+            result[childIndex] = setInNode(level - BITS, (Object[]) node[childIndex], index, element);
+        }
+        return result;
+    }
+}
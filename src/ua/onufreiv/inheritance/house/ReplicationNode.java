@@ -0,0 +1,612 @@
+package ua.onufreiv.inheritance.house;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * This class represents node of the local cluster, that replicates state of houses
+ * between nodes over loopback sockets.
+ * <p/> Houses are partitioned between shards by the hash code of their addresses, the same
+ * way {@link ShardedHouseStore} does. Every shard has single leader node: only it accepts
+ * houses of the shard and modifications of them. Other nodes follow the leader and keep
+ * read-only replicas of its houses, so queries could be served by any node.
+ * <p/> Leader writes state transitions of its houses into the {@link StateJournal} and ships
+ * the new part of journal file to followers in batches, every {@code shipIntervalMillis}.
+ * New houses and houses changed by the builder are shipped in the {@link HouseSnapshot}
+ * format; a follower, that connects later, gets the snapshot of all the houses of leader,
+ * the journal identifiers of houses and the journal from the position taken before the
+ * snapshot. Both encodings contain absolute states, so applying them over the more recent
+ * state is safe. Secrets of houses aren't shipped: replicas can't form keys of the
+ * original houses.
+ * <p/> Received houses replace replicas atomically and lock records change the state of
+ * existing doors of replicas, so concurrent queries always see the whole house.
+ * <p/> The journal is started anew every run of node. When it exceeds the compaction
+ * threshold, it's compacted into the snapshot file in the node directory, and every
+ * follower catches up from the snapshot again.
+ * <p/> Has {@link FollowerLink} nested class in it.
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+public class ReplicationNode implements Closeable {
+
+    /** Type of frame with houses in the snapshot format */
+    private static final byte HOUSES_FRAME = 1;
+    /** Type of frame with the part of journal file */
+    private static final byte JOURNAL_FRAME = 2;
+    /** Size of frame header: type and length of payload */
+    private static final int FRAME_HEADER_SIZE = 1 + Integer.BYTES;
+    /** Maximal size of journal part in one frame */
+    private static final int JOURNAL_CHUNK_SIZE = 64 * 1024;
+    /** Default interval of shipping in milliseconds */
+    private static final long DEFAULT_SHIP_INTERVAL_MILLIS = 5;
+    /** Name of journal file in the node directory */
+    private static final String JOURNAL_FILE = "replication.journal";
+    /** Name of snapshot file, into which the journal is compacted, in the node directory */
+    private static final String SNAPSHOT_FILE = "replication.snapshot";
+    /** Default size of journal in bytes, starting from which it's compacted */
+    private static final long DEFAULT_COMPACTION_THRESHOLD = 64L * 1024 * 1024;
+
+    /** Total amount of shards in the cluster */
+    private final int shardsAmount;
+    /** Shards, the node is leader for */
+    private final BitSet ownedShards;
+    /** Interval of shipping in nanoseconds */
+    private final long shipIntervalNanos;
+    /** Path of snapshot file, into which the journal is compacted */
+    private final Path snapshotPath;
+    /** Size of journal in bytes, starting from which it's compacted */
+    private volatile long compactionThreshold;
+    /** Houses, the node is leader for */
+    private final HouseRegistry ownedHouses;
+    /** Replicas of houses of other leaders */
+    private final HouseRegistry replicas;
+    /** Journal of state transitions of owned houses */
+    private final StateJournal journal;
+    /** Channel for reading of journal file */
+    private final FileChannel journalReader;
+    /** Socket, followers connect to */
+    private final ServerSocketChannel server;
+    /** Connected followers */
+    private final List<FollowerLink> followers;
+    /** Encoded houses, that aren't shipped to followers yet */
+    private final ConcurrentLinkedQueue<byte[]> pendingHouses;
+    /** Threads, that receive changes from the followed leaders */
+    private final List<Thread> receivers;
+    /** Thread, that accepts followers */
+    private final Thread acceptor;
+    /** Thread, that ships changes to followers */
+    private final Thread shipper;
+    /** Indicates whether the node is closed */
+    private volatile boolean closed;
+
+    /**
+     * Parametrized constructor.
+     * <p/> Creates node with the default interval of shipping
+     *
+     * @param directory    directory for the journal of node
+     * @param shardsAmount total amount of shards in the cluster
+     * @param ownedShards  shards, the node is leader for
+     * @throws IOException if journal couldn't be opened or socket couldn't be bound
+     */
+    public ReplicationNode(Path directory, int shardsAmount, int... ownedShards) throws IOException {
+        this(directory, DEFAULT_SHIP_INTERVAL_MILLIS, shardsAmount, ownedShards);
+    }
+
+    /**
+     * Parametrized constructor.
+     * <p/> Opens the journal and starts accepting followers on the loopback address.
+     * Journal and snapshot files of the previous run are removed: houses of that run
+     * aren't owned by the new node, so their journal identifiers mean nothing
+     *
+     * @param directory          directory for the journal of node
+     * @param shipIntervalMillis interval of shipping in milliseconds
+     * @param shardsAmount       total amount of shards in the cluster
+     * @param ownedShards        shards, the node is leader for
+     * @throws IOException if journal couldn't be opened or socket couldn't be bound
+     */
+    public ReplicationNode(Path directory, long shipIntervalMillis, int shardsAmount, int... ownedShards)
+            throws IOException {
+        if (shipIntervalMillis <= 0 || shardsAmount <= 0) {
+            throw new IllegalArgumentException("Non-positive value(-s)");
+        }
+
+        this.shardsAmount = shardsAmount;
+        this.ownedShards = new BitSet(shardsAmount);
+        for (int shard : ownedShards) {
+            if (shard < 0 || shard >= shardsAmount) {
+                throw new IllegalArgumentException("Unknown shard: " + shard);
+            }
+            this.ownedShards.set(shard);
+        }
+        shipIntervalNanos = TimeUnit.MILLISECONDS.toNanos(shipIntervalMillis);
+        ownedHouses = new HouseRegistry();
+        replicas = new HouseRegistry();
+        followers = new CopyOnWriteArrayList<>();
+        pendingHouses = new ConcurrentLinkedQueue<>();
+        receivers = new CopyOnWriteArrayList<>();
+
+        compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+        snapshotPath = directory.resolve(SNAPSHOT_FILE);
+        Path journalPath = directory.resolve(JOURNAL_FILE);
+        Files.deleteIfExists(snapshotPath);
+        Files.deleteIfExists(journalPath);
+        journal = new StateJournal(journalPath);
+        journalReader = FileChannel.open(journalPath, StandardOpenOption.READ);
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+
+        acceptor = new Thread(this::acceptFollowers, "replication-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        shipper = new Thread(this::shipChanges, "replication-shipper");
+        shipper.setDaemon(true);
+        shipper.start();
+    }
+
+    /**
+     * Returns the address, at which the node accepts followers
+     *
+     * @return loopback socket address
+     * @throws IOException if the address couldn't be obtained
+     */
+    public InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress) server.getLocalAddress();
+    }
+
+    /**
+     * Checks whether the node is leader for the house with the specified address
+     *
+     * @param address address of house
+     * @return true if the house belongs to the shard owned by this node, false otherwise
+     */
+    public boolean isLeaderFor(String address) {
+        return ownedShards.get(ShardedHouseStore.shardOf(address, shardsAmount));
+    }
+
+    /**
+     * Adds the house, the node is leader for, and starts replicating its state.
+     * State transitions are replicated only when they're made through the house
+     *
+     * @param house house for adding
+     */
+    public void add(House house) {
+        if (house == null) {
+            throw new NullPointerException("Parameter 'house' is null");
+        }
+        checkLeader(house.getAddress());
+        if (!ownedHouses.add(house)) {
+            throw new IllegalArgumentException("Duplicate address: " + house.getAddress());
+        }
+
+        enqueueHouse(house);
+        new House.HouseBuilder(house).setJournal(journal);
+    }
+
+    /**
+     * Performs 'building' operations on the house, the node is leader for,
+     * and replicates the house with all of them
+     *
+     * @param address  address of house
+     * @param building 'building' operations
+     */
+    public void update(String address, Consumer<House.HouseBuilder> building) {
+        House house = getOwnedHouse(address);
+        building.accept(new House.HouseBuilder(house));
+        enqueueHouse(house);
+    }
+
+    /**
+     * Returns the house, the node is leader for; its state could be changed
+     *
+     * @param address address of house
+     * @return house object
+     */
+    public House getOwnedHouse(String address) {
+        checkLeader(address);
+        House house = ownedHouses.get(address);
+        if (house == null) {
+            throw new IllegalArgumentException("Unknown address: " + address);
+        }
+        return house;
+    }
+
+    /**
+     * Performs read-only query on the house with the specified address: on the house
+     * itself if the node is leader for it or on its replica otherwise.
+     * The query must not change the house
+     *
+     * @param address address of house
+     * @param query   read-only query
+     * @param <T>     type of query result
+     * @return query result
+     */
+    public <T> T query(String address, Function<House, T> query) {
+        House house = isLeaderFor(address) ? ownedHouses.get(address) : replicas.get(address);
+        if (house == null) {
+            throw new IllegalArgumentException("Unknown address: " + address);
+        }
+        return query.apply(house);
+    }
+
+    /**
+     * Checks whether the house with the specified address is locked, see {@link House#isLocked()}
+     *
+     * @param address address of house
+     * @return true, if the house is locked, false otherwise
+     */
+    public boolean isLocked(String address) {
+        return query(address, House::isLocked);
+    }
+
+    /**
+     * This method return the total amount of windows in the house with the specified address
+     *
+     * @param address address of house
+     * @return amount of windows
+     */
+    public int getWindowsAmount(String address) {
+        return query(address, House::getWindowsAmount);
+    }
+
+    /**
+     * This method return the amount of opened windows in the house with the specified address
+     *
+     * @param address address of house
+     * @return amount of opened windows
+     */
+    public int getOpenedWindowsCount(String address) {
+        return query(address, House::getOpenedWindowsCount);
+    }
+
+    /**
+     * Sets the size of journal, starting from which it's compacted into the
+     * snapshot file. Compaction makes every follower catch up from the snapshot
+     *
+     * @param compactionThreshold size of journal in bytes
+     */
+    public void setCompactionThreshold(long compactionThreshold) {
+        if (compactionThreshold <= 0) {
+            throw new IllegalArgumentException("Non-positive value");
+        }
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Connects to the leader node and starts receiving replicas of its houses
+     *
+     * @param leader address of leader node
+     * @throws IOException if connection couldn't be established
+     */
+    public void follow(InetSocketAddress leader) throws IOException {
+        SocketChannel channel = SocketChannel.open(leader);
+        Thread receiver = new Thread(() -> receiveChanges(channel), "replication-receiver-" + leader.getPort());
+        receiver.setDaemon(true);
+        receivers.add(receiver);
+        receiver.start();
+    }
+
+    /**
+     * Stops shipping and receiving of changes, closes the sockets and the journal
+     *
+     * @throws IOException if journal couldn't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        server.close();
+        LockSupport.unpark(shipper);
+        try {
+            acceptor.join();
+            shipper.join();
+            for (Thread receiver : receivers) {
+                receiver.interrupt();
+                receiver.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (FollowerLink follower : followers) {
+            follower.close();
+        }
+        journalReader.close();
+        journal.close();
+    }
+
+    /**
+     * Checks whether the node is leader for the house with the specified address
+     *
+     * @param address address of house
+     */
+    private void checkLeader(String address) {
+        if (!isLeaderFor(address)) {
+            throw new IllegalStateException("Not a leader for: " + address);
+        }
+    }
+
+    /**
+     * Encodes the house and puts it into the queue for shipping
+     *
+     * @param house house for shipping
+     */
+    private void enqueueHouse(House house) {
+        try {
+            pendingHouses.offer(HouseSnapshot.encode(Collections.singletonList(house)));
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to encode house", e);
+        }
+    }
+
+    /**
+     * Main loop of the acceptor thread: registers connected followers
+     */
+    private void acceptFollowers() {
+        while (!closed) {
+            try {
+                followers.add(new FollowerLink(server.accept()));
+                LockSupport.unpark(shipper);
+            } catch (IOException e) {
+                // the server socket is closed
+            }
+        }
+    }
+
+    /**
+     * Main loop of the shipper thread: every interval sends the snapshot to new followers,
+     * then the queued houses and the new part of journal to all the followers.
+     * <p/> The size of journal is taken before the queue is drained, so every house is
+     * shipped before the journal records, that refer to it.
+     * <p/> The journal, that has grown by the compaction threshold since the previous
+     * compaction (the compacted journal keeps records of house identifiers), is compacted first. Records
+     * written after the last shipping are dropped by compaction, so all the followers
+     * catch up from the snapshot again
+     */
+    private void shipChanges() {
+        long compactedSize = 0;
+        while (true) {
+            boolean isLast = closed;
+            try {
+                long journalSize = journal.writePending();
+                if (journalSize - compactedSize >= compactionThreshold && !isLast) {
+                    journal.compact(ownedHouses.getHouses(), snapshotPath);
+                    journalSize = journal.writePending();
+                    compactedSize = journalSize;
+                    for (FollowerLink follower : followers) {
+                        follower.isInitialized = false;
+                    }
+                }
+                List<byte[]> houses = new ArrayList<>();
+                byte[] encoded;
+                while ((encoded = pendingHouses.poll()) != null) {
+                    houses.add(encoded);
+                }
+
+                for (FollowerLink follower : followers) {
+                    try {
+                        follower.ship(houses, journalSize);
+                    } catch (IOException e) {
+                        followers.remove(follower);
+                        follower.close();
+                    }
+                }
+            } catch (IOException e) {
+                // the journal is closed; the node is being closed
+                return;
+            }
+
+            if (isLast) {
+                return;
+            }
+            LockSupport.parkNanos(this, shipIntervalNanos);
+        }
+    }
+
+    /**
+     * Main loop of the receiver thread: applies frames of the followed leader
+     *
+     * @param channel socket connected to the leader
+     */
+    private void receiveChanges(SocketChannel channel) {
+        Map<Integer, House> journalHouses = new HashMap<>();
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+        ByteBuffer records = ByteBuffer.allocate(3 * JOURNAL_CHUNK_SIZE);
+        try (SocketChannel leader = channel) {
+            while (!closed) {
+                header.clear();
+                readFully(leader, header);
+                byte type = header.get(0);
+                ByteBuffer payload = ByteBuffer.allocate(header.getInt(1));
+                readFully(leader, payload);
+                payload.flip();
+
+                if (type == HOUSES_FRAME) {
+                    applyHouses(payload, journalHouses);
+                } else if (type == JOURNAL_FRAME) {
+                    records.put(payload).flip();
+                    while (records.hasRemaining()) {
+                        int start = records.position();
+                        if (StateJournal.applyRecord(records, journalHouses, replicas) == StateJournal.INCOMPLETE) {
+                            records.position(start);
+                            break;
+                        }
+                    }
+                    records.compact();
+                } else {
+                    throw new IOException("Unknown frame type: " + type);
+                }
+            }
+        } catch (IOException e) {
+            // the leader or this node is closed
+        }
+    }
+
+    /**
+     * Puts the received houses into replicas, replacing the existing ones atomically
+     *
+     * @param payload       houses in the snapshot format
+     * @param journalHouses journal houses of replicas by their identifiers
+     * @throws IOException if payload is not a valid snapshot
+     */
+    private void applyHouses(ByteBuffer payload, Map<Integer, House> journalHouses) throws IOException {
+        for (House house : HouseSnapshot.decode(payload).getHouses()) {
+            House replaced = replicas.put(house);
+            if (replaced != null) {
+                for (Map.Entry<Integer, House> entry : journalHouses.entrySet()) {
+                    if (entry.getValue() == replaced) {
+                        entry.setValue(house);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads from the channel until the buffer is full
+     *
+     * @param channel source channel
+     * @param buffer  destination buffer
+     * @throws IOException if the channel is closed before the buffer is filled
+     */
+    private static void readFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Connection is closed");
+            }
+        }
+    }
+
+    /**
+     * Returns a {@code String} object representing this {@code ReplicationNode} object's value.
+     * Includes it's class name, owned shards, amounts of owned houses, replicas and followers
+     *
+     * @return a string representation of fields values of this object
+     */
+    @Override
+    public String toString() {
+        return "ReplicationNode[" +
+                "shards=" + ownedShards + "/" + shardsAmount +
+                ", owned=" + ownedHouses.size() +
+                ", replicas=" + replicas.size() +
+                ", followers=" + followers.size() +
+                ']';
+    }
+
+    /**
+     * This class represents connection to the follower node together
+     * with the position of journal, up to which it's already shipped.
+     * Is used by the shipper thread only, except for {@code close}
+     */
+    private class FollowerLink {
+        /** Socket connected to the follower */
+        private final SocketChannel channel;
+        /** Buffer for frame headers */
+        private final ByteBuffer header;
+        /** Buffer for reading of journal file */
+        private final ByteBuffer chunk;
+        /** Position of journal file, up to which it's shipped */
+        private long shippedPosition;
+        /** Indicates whether the snapshot of all the owned houses is shipped */
+        private boolean isInitialized;
+
+        /**
+         * Parametrized constructor.
+         *
+         * @param channel socket connected to the follower
+         */
+        FollowerLink(SocketChannel channel) {
+            this.channel = channel;
+            header = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+            chunk = ByteBuffer.allocateDirect(JOURNAL_CHUNK_SIZE);
+        }
+
+        /**
+         * Ships the changes to the follower. The follower, that isn't initialized yet, gets
+         * the snapshot of all the owned houses and the records of their journal identifiers
+         * first; the journal is shipped to it from the specified size, as the snapshot
+         * is taken later and already contains the state of preceding records
+         *
+         * @param houses      encoded houses, that aren't shipped yet
+         * @param journalSize size of journal, that could be shipped
+         * @throws IOException if changes couldn't be sent
+         */
+        void ship(List<byte[]> houses, long journalSize) throws IOException {
+            if (!isInitialized) {
+                byte[] houseRecords = journal.encodeHouseRecords();
+                send(HOUSES_FRAME, ByteBuffer.wrap(HouseSnapshot.encode(ownedHouses.getHouses())));
+                for (int offset = 0; offset < houseRecords.length; offset += JOURNAL_CHUNK_SIZE) {
+                    send(JOURNAL_FRAME, ByteBuffer.wrap(houseRecords, offset,
+                            Math.min(JOURNAL_CHUNK_SIZE, houseRecords.length - offset)));
+                }
+                shippedPosition = journalSize;
+                isInitialized = true;
+            }
+            for (byte[] encoded : houses) {
+                send(HOUSES_FRAME, ByteBuffer.wrap(encoded));
+            }
+
+            while (shippedPosition < journalSize) {
+                chunk.clear();
+                chunk.limit((int) Math.min(chunk.capacity(), journalSize - shippedPosition));
+                while (chunk.hasRemaining()) {
+                    if (journalReader.read(chunk, shippedPosition + chunk.position()) < 0) {
+                        throw new EOFException("Journal is truncated");
+                    }
+                }
+                chunk.flip();
+                shippedPosition += chunk.remaining();
+                send(JOURNAL_FRAME, chunk);
+            }
+        }
+
+        /**
+         * Sends the frame to the follower
+         *
+         * @param type    type of frame
+         * @param payload content of frame
+         * @throws IOException if frame couldn't be sent
+         */
+        private void send(byte type, ByteBuffer payload) throws IOException {
+            header.clear();
+            header.put(type).putInt(payload.remaining()).flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            while (payload.hasRemaining()) {
+                channel.write(payload);
+            }
+        }
+
+        /**
+         * Closes the connection to the follower
+         */
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // the connection is already broken
+            }
+        }
+    }
+}
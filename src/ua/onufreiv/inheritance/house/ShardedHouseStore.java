@@ -0,0 +1,346 @@
+package ua.onufreiv.inheritance.house;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * This class represents store of houses, partitioned between shards by the hash
+ * code of their addresses. Every shard owns its houses and has the own thread,
+ * that performs all the operations on them one after another, so operations on
+ * different shards run in parallel without any locking.
+ * <p/> Operations are passed to the shard through its multi-producer single-consumer
+ * queue; the caller gets {@link CompletableFuture} with the result. Houses must not
+ * be accessed directly after they were added to the store.
+ * <p/> Has {@link Shard} and {@link Command} nested classes in it.
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+public class ShardedHouseStore implements AutoCloseable {
+
+    /** Time in nanoseconds, for which the idle shard thread is parked */
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+
+    /** Shards of the store */
+    private final Shard[] shards;
+    /** Indicates whether the store is closed */
+    private volatile boolean closed;
+
+    /**
+     * Default constructor.
+     * <p/> Creates shard per available processor
+     */
+    public ShardedHouseStore() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Parametrized constructor.
+     *
+     * @param shardsAmount amount of shards and their threads
+     */
+    public ShardedHouseStore(int shardsAmount) {
+        if (shardsAmount <= 0) {
+            throw new IllegalArgumentException("Non-positive value");
+        }
+
+        shards = new Shard[shardsAmount];
+        for (int i = 0; i < shardsAmount; i++) {
+            shards[i] = new Shard(i);
+            shards[i].thread.start();
+        }
+    }
+
+    /**
+     * Getter for amount of shards
+     *
+     * @return amount of shards
+     */
+    public int getShardsAmount() {
+        return shards.length;
+    }
+
+    /**
+     * Passes the house to its shard. The house replaces the one with the same address
+     *
+     * @param house house for adding
+     * @return future, that is completed when the house is added
+     */
+    public CompletableFuture<Void> add(House house) {
+        if (house == null) {
+            throw new NullPointerException("Parameter 'house' is null");
+        }
+
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        shardOf(house.getAddress()).submit(result, shard -> {
+            shard.houses.put(house.getAddress(), house);
+            result.complete(null);
+        });
+        return result;
+    }
+
+    /**
+     * Locks the house with the specified address, see {@link House#lockWithKey()}
+     *
+     * @param address address of house
+     * @return future of key or {@code null} if the house is already locked
+     */
+    public CompletableFuture<KeyGenerator.Key> lockWithKey(String address) {
+        return execute(address, House::lockWithKey);
+    }
+
+    /**
+     * Unlocks the house with the specified address, see {@link House#unlockWithKey(KeyGenerator.Key)}
+     *
+     * @param address address of house
+     * @param key     key for unlocking the door
+     * @return future of unlocking result
+     */
+    public CompletableFuture<Boolean> unlockWithKey(String address, KeyGenerator.Key key) {
+        return execute(address, house -> house.unlockWithKey(key));
+    }
+
+    /**
+     * Opens some window of the house with the specified address, see {@link House#openSomeWindow()}
+     *
+     * @param address address of house
+     * @return future of opening result
+     */
+    public CompletableFuture<Boolean> openSomeWindow(String address) {
+        return execute(address, House::openSomeWindow);
+    }
+
+    /**
+     * Performs the operation on the house with the specified address in the thread of its shard.
+     * If there is no such house, the future is completed with {@code IllegalArgumentException}
+     *
+     * @param address   address of house
+     * @param operation operation on house
+     * @param <T>       type of operation result
+     * @return future of operation result
+     */
+    public <T> CompletableFuture<T> execute(String address, Function<House, T> operation) {
+        if (operation == null) {
+            throw new NullPointerException("Parameter 'operation' is null");
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        shardOf(address).submit(result, shard -> {
+            House house = shard.houses.get(address);
+            if (house == null) {
+                result.completeExceptionally(new IllegalArgumentException("Unknown address: " + address));
+            } else {
+                result.complete(operation.apply(house));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Returns total amount of houses in all the shards
+     *
+     * @return future of houses amount
+     */
+    public CompletableFuture<Integer> size() {
+        CompletableFuture<Integer> total = CompletableFuture.completedFuture(0);
+        for (Shard shard : shards) {
+            CompletableFuture<Integer> result = new CompletableFuture<>();
+            shard.submit(result, owner -> result.complete(owner.houses.size()));
+            total = total.thenCombine(result, Integer::sum);
+        }
+        return total;
+    }
+
+    /**
+     * Stops accepting new operations, performs the submitted ones
+     * and stops the threads of shards
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Shard shard : shards) {
+            LockSupport.unpark(shard.thread);
+        }
+        for (Shard shard : shards) {
+            shard.awaitTermination();
+        }
+    }
+
+    /**
+     * Returns shard, that owns the house with the specified address.
+     * The address is chosen by the same hash code, that {@link House#hashCode()} returns
+     *
+     * @param address address of house
+     * @return shard of house
+     */
+    private Shard shardOf(String address) {
+        return shards[shardOf(address, shards.length)];
+    }
+
+    /**
+     * Returns index of shard, that owns the house with the specified address.
+     * The hash code of address is spread, so its higher bits take part too
+     *
+     * @param address      address of house
+     * @param shardsAmount amount of shards
+     * @return index of shard
+     */
+    static int shardOf(String address, int shardsAmount) {
+        int hash = address == null ? 0 : address.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), shardsAmount);
+    }
+
+    /**
+     * Returns a {@code String} object representing this {@code ShardedHouseStore} object's value.
+     * Includes it's class name and amount of shards
+     *
+     * @return a string representation of fields values of this object
+     */
+    @Override
+    public String toString() {
+        return "ShardedHouseStore[" +
+                "shards=" + shards.length +
+                ", closed=" + closed +
+                ']';
+    }
+
+    /**
+     * This class represents shard of the store: houses, queue of
+     * operations on them and the thread, that performs them
+     */
+    private class Shard implements Runnable {
+        /** Houses of shard by their addresses; accessed by the shard thread only */
+        private final Map<String, House> houses;
+        /** Operations, that are waiting for the shard thread */
+        private final ConcurrentLinkedQueue<Command> queue;
+        /** Thread of shard */
+        private final Thread thread;
+        /** Indicates whether the shard thread is going to park */
+        private volatile boolean idle;
+
+        /**
+         * Parametrized constructor.
+         *
+         * @param index position of shard in the store
+         */
+        Shard(int index) {
+            houses = new HashMap<>();
+            queue = new ConcurrentLinkedQueue<>();
+            thread = new Thread(this, "house-shard-" + index);
+            thread.setDaemon(true);
+        }
+
+        /**
+         * Puts the operation into the queue and wakes up the shard thread if it's idle.
+         * If the store is closed, the future is completed with {@code IllegalStateException};
+         * operations submitted concurrently with closing are either performed or rejected.
+         * Operation submitted by the shard thread itself is always performed, as the thread
+         * drains the queue before stopping
+         *
+         * @param result    future, that is completed by the operation
+         * @param operation operation on the shard
+         */
+        void submit(CompletableFuture<?> result, Consumer<Shard> operation) {
+            Command command = new Command(result, operation);
+            if (closed) {
+                command.reject();
+                return;
+            }
+
+            queue.offer(command);
+            if (idle) {
+                LockSupport.unpark(thread);
+            }
+            if (closed && Thread.currentThread() != thread) {
+                awaitTermination();
+                if (queue.remove(command)) {
+                    command.reject();
+                }
+            }
+        }
+
+        /**
+         * Waits until the shard thread performs the submitted operations and stops.
+         * Returns immediately, if it's called by the shard thread itself
+         */
+        void awaitTermination() {
+            if (Thread.currentThread() == thread) {
+                return;
+            }
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Main loop of the shard thread: performs operations one after another,
+         * parks when there is nothing to perform
+         */
+        @Override
+        public void run() {
+            while (true) {
+                Command command = queue.poll();
+                if (command != null) {
+                    command.perform(this);
+                } else if (closed && queue.isEmpty()) {
+                    return;
+                } else {
+                    idle = true;
+                    if (queue.isEmpty() && !closed) {
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    }
+                    idle = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * This class represents operation on the shard together with its future
+     */
+    private static class Command {
+        /** Future, that is completed by the operation */
+        private final CompletableFuture<?> result;
+        /** Operation on the shard */
+        private final Consumer<Shard> operation;
+
+        /**
+         * Parametrized constructor.
+         *
+         * @param result    future, that is completed by the operation
+         * @param operation operation on the shard
+         */
+        Command(CompletableFuture<?> result, Consumer<Shard> operation) {
+            this.result = result;
+            this.operation = operation;
+        }
+
+        /**
+         * Performs the operation; any exception or error thrown by it completes
+         * the future, so the caller never waits forever and the shard thread survives
+         *
+         * @param shard shard, that performs the operation
+         */
+        void perform(Shard shard) {
+            try {
+                operation.accept(shard);
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * Completes the future with {@code IllegalStateException} of closed store
+         */
+        void reject() {
+            result.completeExceptionally(new IllegalStateException("Store is closed"));
+        }
+    }
+}
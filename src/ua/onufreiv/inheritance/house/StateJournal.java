@@ -0,0 +1,638 @@
+package ua.onufreiv.inheritance.house;
+
+import ua.onufreiv.inheritance.house.openings.IOpenable;
+import ua.onufreiv.inheritance.house.openings.LockableDoor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class represents append-only journal of state transitions of houses:
+ * opening/closing of doors and windows, locking/unlocking of entrances.
+ * <p/> Events are accumulated in batches and committed in groups. Recording of event
+ * only puts it into the active batch in memory and never waits for the disk: when the
+ * batch of {@code batchSize} events is full, it's queued and the background flusher is
+ * signalled, while the next events go into the spare batch. Batches are written into
+ * the {@code FileChannel} and forced to the disk only by the flusher (periodically and
+ * on signal) and by explicit {@link #flush()}. Errors of background flushing are counted
+ * and the failed batches are written again by the next flush. At most
+ * {@value #MAX_QUEUED_BATCHES} full batches wait for writing: when the writer falls behind,
+ * recording blocks till the flusher frees the queue, so memory of the journal is bounded.
+ * <p/> Every event contains the absolute state of opening (not the transition), so
+ * replaying the journal over a snapshot, that already includes some of its events, is safe.
+ * After a crash houses are restored with the help of {@link HouseSnapshot} and
+ * {@link #replay(Path, HouseRegistry)}; {@link #compact(Collection, Path)} periodically
+ * moves the journaled state into the snapshot.
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+public class StateJournal implements Closeable {
+
+    /** Index of entry door in door records */
+    static final int ENTRY_DOOR_INDEX = -1;
+
+    /** Type of record that defines journal identifier of house address */
+    private static final byte HOUSE_RECORD = 1;
+    /** Type of record with state of window */
+    private static final byte WINDOW_RECORD = 2;
+    /** Type of record with state of door */
+    private static final byte DOOR_RECORD = 3;
+    /** Type of record with lock state of entry door */
+    private static final byte LOCK_RECORD = 4;
+    /** Type of record with lock state of entrance, that isn't the entry door */
+    private static final byte ENTRANCE_LOCK_RECORD = 5;
+    /** Size of state record: type, house identifier, index and value */
+    private static final int STATE_RECORD_SIZE = 1 + 3 * Integer.BYTES;
+
+    /** Default amount of events in one group commit */
+    private static final int DEFAULT_BATCH_SIZE = 4096;
+    /** Maximum amount of full batches, that wait for writing */
+    static final int MAX_QUEUED_BATCHES = 64;
+    /** Default interval of background flushing in milliseconds */
+    private static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 10;
+    /** Size of buffer that is used for replay; exceeds the size of the largest record */
+    private static final int READ_BUFFER_SIZE = 128 * 1024;
+    /** Result of record reading: the record is incomplete */
+    static final int INCOMPLETE = -1;
+
+    /** Channel of journal file */
+    private final FileChannel channel;
+    /** Capacity of batch in bytes */
+    private final int batchCapacity;
+    /** Batch, into which events are recorded; guarded by the journal monitor */
+    private ByteBuffer active;
+    /**
+     * Full batches, that wait for writing, in order of recording; at most
+     * {@link #MAX_QUEUED_BATCHES}. Guarded by the journal monitor
+     */
+    private final ArrayDeque<ByteBuffer> filled;
+    /** Written batches, that are reused; guarded by the journal monitor */
+    private final ArrayDeque<ByteBuffer> spare;
+    /** Batches taken for writing, in order of recording; guarded by {@code ioLock} */
+    private final ArrayDeque<ByteBuffer> writing;
+    /**
+     * Lock of file operations. Is taken before the journal monitor, which
+     * is held only for moving of batches, so recording never waits for I/O
+     */
+    private final ReentrantLock ioLock;
+    /** Addresses of registered houses by their journal identifiers */
+    private final Map<Integer, String> houses;
+    /** Background flusher */
+    private final ScheduledExecutorService flusher;
+    /** Interval of background flushing in milliseconds */
+    private final long flushIntervalMillis;
+    /** Indicates whether the flushing of full batch is already requested */
+    private final AtomicBoolean flushRequested;
+    /** Amount of recorded events; guarded by the journal monitor */
+    private long recordedEvents;
+    /** Amount of committed events */
+    private volatile long committedEvents;
+    /** Amount of failed background flushes */
+    private final LongAdder failedFlushes;
+    /** Error of the latest background flush or {@code null} if it succeeded */
+    private volatile Exception lastFailure;
+
+    /**
+     * Parametrized constructor.
+     * <p/> Opens journal with the default batch size and flush interval
+     *
+     * @param path path of journal file
+     * @throws IOException if file couldn't be opened
+     */
+    public StateJournal(Path path) throws IOException {
+        this(path, DEFAULT_BATCH_SIZE, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Parametrized constructor.
+     * <p/> Opens journal file for appending
+     *
+     * @param path                path of journal file
+     * @param batchSize           amount of events in one group commit
+     * @param flushIntervalMillis interval of background flushing in milliseconds
+     * @throws IOException if file couldn't be opened
+     */
+    public StateJournal(Path path, int batchSize, long flushIntervalMillis) throws IOException {
+        if (batchSize <= 0 || flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Non-positive value(-s)");
+        }
+
+        channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        batchCapacity = Math.multiplyExact(batchSize, STATE_RECORD_SIZE);
+        active = ByteBuffer.allocateDirect(batchCapacity);
+        filled = new ArrayDeque<>();
+        spare = new ArrayDeque<>();
+        writing = new ArrayDeque<>();
+        ioLock = new ReentrantLock();
+        houses = new LinkedHashMap<>();
+        flushRequested = new AtomicBoolean();
+        failedFlushes = new LongAdder();
+        this.flushIntervalMillis = flushIntervalMillis;
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "state-journal-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushInBackground,
+                flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registers the house in the journal and writes the record,
+     * that defines journal identifier of its address
+     *
+     * @param house house for registering
+     * @return journal identifier of house
+     */
+    synchronized int register(House house) {
+        int id = houses.size();
+        houses.put(id, house.getAddress());
+        appendHouseRecord(id, house.getAddress());
+        return id;
+    }
+
+    /**
+     * Appends the event with the current state of window. The state is read
+     * while the journal is locked, so the last event of window always
+     * corresponds to its actual state
+     *
+     * @param houseId journal identifier of house
+     * @param index   index of window in the house
+     * @param window  window that switched its state
+     */
+    synchronized void recordWindow(int houseId, int index, IOpenable window) {
+        appendStateRecord(WINDOW_RECORD, houseId, index, window.isOpened() ? 1 : 0);
+    }
+
+    /**
+     * Appends the event with the current state of door
+     *
+     * @param houseId journal identifier of house
+     * @param index   index of room door in the house or index of entrance door,
+     *                see {@link #entranceDoorIndex(int)}
+     * @param door    door that switched its state
+     */
+    synchronized void recordDoor(int houseId, int index, IOpenable door) {
+        recordDoor(houseId, index, door.isOpened());
+    }
+
+    /**
+     * Appends the event with the specified state of door
+     *
+     * @param houseId  journal identifier of house
+     * @param index    index of room door in the house or index of entrance door,
+     *                 see {@link #entranceDoorIndex(int)}
+     * @param isOpened current state of door
+     */
+    synchronized void recordDoor(int houseId, int index, boolean isOpened) {
+        appendStateRecord(DOOR_RECORD, houseId, index, isOpened ? 1 : 0);
+    }
+
+    /**
+     * Appends the event with the current lock state and lock epoch of entry door
+     *
+     * @param houseId   journal identifier of house
+     * @param entryDoor entry door that was locked or unlocked
+     */
+    synchronized void recordLock(int houseId, LockableDoor entryDoor) {
+        appendStateRecord(LOCK_RECORD, houseId, entryDoor.isLocked() ? 1 : 0, entryDoor.getLockEpoch());
+    }
+
+    /**
+     * Appends the event with the current lock state and lock epoch of entrance,
+     * that isn't the entry door. Position and lock state are packed into the index
+     *
+     * @param houseId  journal identifier of house
+     * @param index    position of entrance in the house
+     * @param entrance entrance that was locked or unlocked
+     */
+    synchronized void recordEntranceLock(int houseId, int index, LockableDoor entrance) {
+        appendStateRecord(ENTRANCE_LOCK_RECORD, houseId,
+                index << 1 | (entrance.isLocked() ? 1 : 0), entrance.getLockEpoch());
+    }
+
+    /**
+     * Converts position of entrance into the index of door in door records and back.
+     * Entrances get negative indexes, so they don't clash with room doors;
+     * the entry door gets {@link #ENTRY_DOOR_INDEX}
+     *
+     * @param index position of entrance or index of entrance door
+     * @return index of entrance door or position of entrance
+     */
+    static int entranceDoorIndex(int index) {
+        return ENTRY_DOOR_INDEX - index;
+    }
+
+    /**
+     * Writes all the recorded events into the file and forces them to the disk.
+     * Blocks the calling thread only; events are recorded meanwhile
+     *
+     * @throws IOException if events couldn't be written
+     */
+    public void flush() throws IOException {
+        ioLock.lock();
+        try {
+            long recorded = writeBatches();
+            if (recorded > committedEvents) {
+                channel.force(false);
+                committedEvents = recorded;
+            }
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    /**
+     * Writes all the recorded events into the file without forcing them to the disk,
+     * so they could be read from the file by the other reader, e.g. for replication
+     *
+     * @return size of the journal file
+     * @throws IOException if events couldn't be written
+     */
+    long writePending() throws IOException {
+        ioLock.lock();
+        try {
+            writeBatches();
+            return channel.size();
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    /**
+     * This method return the amount of events forced to the disk
+     *
+     * @return amount of committed events
+     */
+    public long getCommittedEvents() {
+        return committedEvents;
+    }
+
+    /**
+     * This method return the amount of background flushes, that failed
+     *
+     * @return amount of failed flushes
+     */
+    public long getFailedFlushesCount() {
+        return failedFlushes.sum();
+    }
+
+    /**
+     * Returns error of the latest background flush
+     *
+     * @return error or {@code null} if the latest background flush succeeded
+     */
+    public Exception getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * Writes the snapshot of specified houses and truncates the journal.
+     * Registered houses keep their journal identifiers.
+     * <p/> Events are recorded meanwhile: the journal monitor is held only for copying
+     * of house identifiers. Events recorded after the committed ones stay in memory
+     * while the snapshot is written and get into the truncated journal after the
+     * house records; they are replayed over the snapshot, that could already include
+     * some of them, which is safe, as events contain absolute states
+     *
+     * @param houses       houses for snapshot
+     * @param snapshotPath path of snapshot file
+     * @throws IOException if snapshot or journal couldn't be written
+     */
+    public void compact(Collection<House> houses, Path snapshotPath) throws IOException {
+        ioLock.lock();
+        try {
+            flush();
+            Map<Integer, String> registered;
+            synchronized (this) {
+                registered = new LinkedHashMap<>(this.houses);
+            }
+
+            HouseSnapshot.write(houses, snapshotPath);
+            channel.truncate(0);
+            ByteBuffer records = ByteBuffer.wrap(encodeHouseRecords(registered));
+            while (records.hasRemaining()) {
+                channel.write(records);
+            }
+            flush();
+            channel.force(false);
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    /**
+     * Returns records, that define journal identifiers of all the registered houses,
+     * in the journal format. Together with the snapshot of houses they allow to read
+     * the journal from any position, e.g. when the replication follower catches up
+     *
+     * @return encoded house records
+     */
+    byte[] encodeHouseRecords() {
+        Map<Integer, String> registered;
+        synchronized (this) {
+            registered = new LinkedHashMap<>(houses);
+        }
+        return encodeHouseRecords(registered);
+    }
+
+    /**
+     * Returns records, that define journal identifiers of the specified houses
+     *
+     * @param houses addresses of houses by their journal identifiers
+     * @return encoded house records
+     */
+    private static byte[] encodeHouseRecords(Map<Integer, String> houses) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (Map.Entry<Integer, String> entry : houses.entrySet()) {
+            byte[] bytes = entry.getValue().getBytes(StandardCharsets.UTF_8);
+            ByteBuffer record = ByteBuffer.allocate(1 + Integer.BYTES + Short.BYTES + bytes.length);
+            record.put(HOUSE_RECORD).putInt(entry.getKey()).putShort((short) bytes.length).put(bytes);
+            out.write(record.array(), 0, record.position());
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Stops the background flusher, commits pending events and closes the file
+     *
+     * @throws IOException if events couldn't be written
+     */
+    @Override
+    public void close() throws IOException {
+        flusher.shutdown();
+        ioLock.lock();
+        try {
+            flush();
+            channel.close();
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    /**
+     * Applies events of the journal to the houses of registry.
+     * Houses are found by address; events of unknown houses are skipped.
+     * Incomplete record at the end of file (e.g. after crash) is ignored.
+     * <p/>Houses of registry must not write to the journal during replay
+     *
+     * @param path     path of journal file
+     * @param registry houses for restoring
+     * @return amount of applied events
+     * @throws IOException if journal couldn't be read
+     */
+    public static long replay(Path path, HouseRegistry registry) throws IOException {
+        Map<Integer, House> houses = new HashMap<>();
+        long applied = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer in = ByteBuffer.allocate(READ_BUFFER_SIZE);
+            boolean isEndOfFile = false;
+            while (!isEndOfFile) {
+                isEndOfFile = channel.read(in) < 0;
+                in.flip();
+                while (in.hasRemaining()) {
+                    int start = in.position();
+                    int result = applyRecord(in, houses, registry);
+                    if (result == INCOMPLETE) {
+                        in.position(start);
+                        break;
+                    }
+                    applied += result;
+                }
+                in.compact();
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Reads one record and applies it. Is used for replay and for applying
+     * of records received from the other node
+     *
+     * @param in       source of records
+     * @param houses   houses by their journal identifiers
+     * @param registry houses by their addresses
+     * @return amount of applied events (0 or 1) or {@link #INCOMPLETE}
+     */
+    static int applyRecord(ByteBuffer in, Map<Integer, House> houses, HouseRegistry registry) {
+        byte type = in.get();
+        if (type == HOUSE_RECORD) {
+            if (in.remaining() < Integer.BYTES + Short.BYTES) {
+                return INCOMPLETE;
+            }
+            int id = in.getInt();
+            int length = in.getShort() & 0xFFFF;
+            if (in.remaining() < length) {
+                return INCOMPLETE;
+            }
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            House house = registry.get(new String(bytes, StandardCharsets.UTF_8));
+            if (house != null) {
+                houses.put(id, house);
+            }
+            return 0;
+        }
+
+        if (in.remaining() < STATE_RECORD_SIZE - 1) {
+            return INCOMPLETE;
+        }
+        House house = houses.get(in.getInt());
+        int index = in.getInt();
+        int value = in.getInt();
+        if (house == null) {
+            return 0;
+        }
+
+        switch (type) {
+            case WINDOW_RECORD:
+                house.restoreWindowState(index, value != 0);
+                break;
+            case DOOR_RECORD:
+                house.restoreDoorState(index, value != 0);
+                break;
+            case LOCK_RECORD:
+                house.restoreLockState(0, index != 0, value);
+                break;
+            case ENTRANCE_LOCK_RECORD:
+                house.restoreLockState(index >>> 1, (index & 1) != 0, value);
+                break;
+            default:
+                throw new IllegalStateException("Unknown record type: " + type);
+        }
+        return 1;
+    }
+
+    /**
+     * Appends the record, that defines journal identifier of house address
+     *
+     * @param id      journal identifier of house
+     * @param address address of house
+     */
+    private void appendHouseRecord(int id, String address) {
+        byte[] bytes = address.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Address is too long");
+        }
+
+        ensureRoom(1 + Integer.BYTES + Short.BYTES + bytes.length);
+        active.put(HOUSE_RECORD).putInt(id).putShort((short) bytes.length).put(bytes);
+        recordedEvents++;
+    }
+
+    /**
+     * Appends the state record
+     *
+     * @param type    type of record
+     * @param houseId journal identifier of house
+     * @param index   index of opening
+     * @param value   state value
+     */
+    private void appendStateRecord(byte type, int houseId, int index, int value) {
+        ensureRoom(STATE_RECORD_SIZE);
+        active.put(type).putInt(houseId).putInt(index).putInt(value);
+        recordedEvents++;
+    }
+
+    /**
+     * Makes sure the active batch has room for the record. The full batch is queued
+     * for writing and the flusher is signalled; the spare batch becomes active.
+     * Record, that is larger than batch, gets the batch of its own. If the queue
+     * is full, waits till the flusher takes the batches.
+     * The journal monitor must be held
+     *
+     * @param recordSize size of record in bytes
+     */
+    private void ensureRoom(int recordSize) {
+        if (active.remaining() >= recordSize) {
+            return;
+        }
+
+        awaitQueueRoom();
+        if (active.position() > 0) {
+            active.flip();
+            filled.add(active);
+            requestFlush();
+        }
+        ByteBuffer next = spare.poll();
+        if (recordSize > batchCapacity) {
+            next = ByteBuffer.allocate(recordSize);
+        } else if (next == null) {
+            next = ByteBuffer.allocateDirect(batchCapacity);
+        }
+        active = next;
+    }
+
+    /**
+     * Waits, releasing the journal monitor, till the queue of full batches has room.
+     * Doesn't wait, if the journal is closed, as nobody would free the queue.
+     * Interruption doesn't stop waiting, the interrupted status is restored afterwards.
+     * The journal monitor must be held
+     */
+    private void awaitQueueRoom() {
+        boolean isInterrupted = false;
+        while (filled.size() >= MAX_QUEUED_BATCHES && !flusher.isShutdown()) {
+            requestFlush();
+            try {
+                wait(flushIntervalMillis);
+            } catch (InterruptedException e) {
+                isInterrupted = true;
+            }
+        }
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Signals the flusher to commit the full batches, unless it's already signalled
+     */
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            try {
+                flusher.execute(this::flushInBackground);
+            } catch (RejectedExecutionException e) {
+                // the journal is closed, close() commits the batches
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    /**
+     * Writes the queued and the active batches into the channel without forcing them
+     * to the disk. Batches are taken from the journal monitor, so events are recorded
+     * into the new active batch meanwhile. The batch, that couldn't be written, is kept
+     * and written first next time. {@code ioLock} must be held
+     *
+     * @return amount of events recorded into the taken batches
+     * @throws IOException if batches couldn't be written
+     */
+    private long writeBatches() throws IOException {
+        long recorded;
+        synchronized (this) {
+            if (active.position() > 0) {
+                active.flip();
+                filled.add(active);
+                ByteBuffer next = spare.poll();
+                active = next != null ? next : ByteBuffer.allocateDirect(batchCapacity);
+            }
+            writing.addAll(filled);
+            filled.clear();
+            recorded = recordedEvents;
+            notifyAll();
+        }
+
+        while (!writing.isEmpty()) {
+            ByteBuffer batch = writing.peek();
+            while (batch.hasRemaining()) {
+                channel.write(batch);
+            }
+            writing.poll();
+            if (batch.capacity() == batchCapacity && batch.isDirect()) {
+                batch.clear();
+                synchronized (this) {
+                    if (spare.isEmpty()) {
+                        spare.add(batch);
+                    }
+                }
+            }
+        }
+        return recorded;
+    }
+
+    /**
+     * Commits recorded events; is called by the background flusher periodically
+     * and when some batch is full. Errors are counted and kept in {@code lastFailure}
+     */
+    private void flushInBackground() {
+        flushRequested.set(false);
+        try {
+            flush();
+            lastFailure = null;
+        } catch (IOException | RuntimeException e) {
+            failedFlushes.increment();
+            lastFailure = e;
+        }
+    }
+}
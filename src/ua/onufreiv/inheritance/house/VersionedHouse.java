@@ -0,0 +1,96 @@
+package ua.onufreiv.inheritance.house;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * This class represents history of {@link HouseVersion}s of one house.
+ * <p/> Readers get the latest version without locking and always see a
+ * consistent state; writers apply modifications atomically, so concurrent
+ * modifications are never lost. The history itself is persistent, so
+ * keeping it costs memory proportional to the amount of changes.
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+public class VersionedHouse {
+    /** All the versions of house, the latest one is the last */
+    private final AtomicReference<PersistentVector<HouseVersion>> history;
+
+    /**
+     * Parametrized constructor.
+     *
+     * @param initial the first version of house
+     */
+    public VersionedHouse(HouseVersion initial) {
+        if (initial == null) {
+            throw new NullPointerException("Parameter 'initial' is null");
+        }
+        history = new AtomicReference<>(PersistentVector.<HouseVersion>empty().append(initial));
+    }
+
+    /**
+     * Returns the latest version of house
+     *
+     * @return current version
+     */
+    public HouseVersion current() {
+        PersistentVector<HouseVersion> versions = history.get();
+        return versions.get(versions.size() - 1);
+    }
+
+    /**
+     * Returns version with the specified number; the initial version has number 0
+     *
+     * @param number number of version
+     * @return version of house
+     */
+    public HouseVersion getVersion(int number) {
+        return history.get().get(number);
+    }
+
+    /**
+     * This method return the amount of versions in the history
+     *
+     * @return amount of versions
+     */
+    public int getVersionsAmount() {
+        return history.get().size();
+    }
+
+    /**
+     * Applies the modification to the latest version and appends the result to the history.
+     * The modification could be applied several times in case of concurrent updates,
+     * so it must have no side effects
+     *
+     * @param modification function that returns modified version
+     * @return the new latest version
+     */
+    public HouseVersion update(UnaryOperator<HouseVersion> modification) {
+        while (true) {
+            PersistentVector<HouseVersion> versions = history.get();
+            HouseVersion next = modification.apply(versions.get(versions.size() - 1));
+            if (next == null) {
+                throw new NullPointerException("Modification returned null");
+            }
+            if (history.compareAndSet(versions, versions.append(next))) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Returns a {@code String} object representing this {@code VersionedHouse} object's value.
+     * Includes it's class name, amount of versions and the current version
+     *
+     * @return a string representation of fields values of this object
+     */
+    @Override
+    public String toString() {
+        PersistentVector<HouseVersion> versions = history.get();
+        return "VersionedHouse[" +
+                "versions=" + versions.size() +
+                ", current=" + versions.get(versions.size() - 1) +
+                ']';
+    }
+}
@@ -0,0 +1,460 @@
+package ua.onufreiv.inheritance.house;
+
+import ua.onufreiv.inheritance.house.openings.IOpenStateListener;
+import ua.onufreiv.inheritance.house.openings.OpenableWindow;
+import ua.onufreiv.inheritance.house.openings.Window;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * This class represents list of house windows, stored as the sequence of runs.
+ * <p/> Windows added one by one form the run of objects. Windows added in bulk with
+ * {@link #addDefaults(int)} form the run, that holds only the amount of windows:
+ * {@link Window} and {@link OpenableWindow} objects with the default attributes,
+ * one after another. Objects of such windows are created on the first access,
+ * e.g. opening or iteration, and are kept till the end, so the same object is
+ * returned every time. Memory and time of building are proportional to the amount
+ * of runs and accessed windows rather than to the amount of windows.
+ * <p/> Created objects of default run are kept in the chunks of atomic array, that
+ * are allocated on the first access to some window of chunk, so the lookup of created
+ * window is one volatile read without locking and boxing of its position.
+ * {@link #peekView()} gives read-only access to all the windows without creating objects.
+ * <p/> Adding of windows must not run concurrently with other operations,
+ * windows could be accessed from many threads.
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+final class WindowList extends AbstractList<Window> implements RandomAccess {
+
+    /** Shared read-only window with default attributes, that stands for not created default {@link Window} */
+    static final Window DEFAULT_WINDOW = new ReadOnlyWindow();
+    /**
+     * Shared read-only window with default attributes in the 'closed' state,
+     * that stands for not created default {@link OpenableWindow}
+     */
+    static final OpenableWindow DEFAULT_OPENABLE_WINDOW = new ReadOnlyOpenableWindow();
+
+    /** Window with default attributes, which created default {@link Window} objects are compared with */
+    private static final Window PLAIN_WINDOW = new Window();
+    /** Window with default attributes in the 'closed' state, which created default {@link OpenableWindow} objects are compared with */
+    private static final OpenableWindow PLAIN_OPENABLE_WINDOW = new OpenableWindow();
+
+    /** Amount of bits of position within run, that select window within chunk of created objects */
+    private static final int CHUNK_BITS = 10;
+    /** Amount of windows in one chunk of created objects */
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    /** Mask of window position within chunk of created objects */
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /** Runs of windows in order of their positions */
+    private final ArrayList<Run> runs;
+    /** Amount of created objects of default windows */
+    private final AtomicInteger materializedAmount;
+    /** Listener that is notified about creation of default window object */
+    private final ObjIntConsumer<Window> materializationListener;
+    /** Amount of windows */
+    private int size;
+
+    /**
+     * Parametrized constructor.
+     *
+     * @param materializationListener listener of default window objects creation,
+     *                                that gets the object and its position
+     */
+    WindowList(ObjIntConsumer<Window> materializationListener) {
+        runs = new ArrayList<>();
+        materializedAmount = new AtomicInteger();
+        this.materializationListener = materializationListener;
+    }
+
+    /**
+     * Grows the storage of the last run of objects, so the list could hold
+     * the specified amount of windows without reallocation
+     *
+     * @param capacity required capacity
+     */
+    void ensureCapacity(int capacity) {
+        Run last = lastRun();
+        if (last == null || last.windows == null) {
+            last = new Run(size, new ArrayList<>(Math.max(capacity - size, 0)));
+            runs.add(last);
+        }
+        last.windows.ensureCapacity(capacity - last.start);
+    }
+
+    /**
+     * Adds window object to the end of the list
+     *
+     * @param window window for adding
+     * @return {@code true}
+     */
+    @Override
+    public boolean add(Window window) {
+        Run last = lastRun();
+        if (last == null || last.windows == null) {
+            last = new Run(size, new ArrayList<>());
+            runs.add(last);
+        }
+        last.windows.add(window);
+        size++;
+        return true;
+    }
+
+    /**
+     * Adds run of the specified amount of default windows: {@link Window}
+     * at even positions of the run and {@link OpenableWindow} at odd ones.
+     * The objects aren't created
+     *
+     * @param amount amount of windows to add
+     */
+    void addDefaults(int amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Negative value");
+        } else if (amount == 0) {
+            return;
+        }
+
+        Run last = lastRun();
+        if (last != null && last.windows != null && last.windows.isEmpty()) {
+            runs.remove(runs.size() - 1);
+            last = lastRun();
+        }
+        if (last != null && last.windows == null && last.created == null && last.amount % 2 == 0) {
+            last.amount += amount;
+        } else {
+            runs.add(new Run(size, amount));
+        }
+        size += amount;
+    }
+
+    /**
+     * Returns window at the specified position. The object of default
+     * window is created on the first call
+     *
+     * @param index position of window
+     * @return window object
+     */
+    @Override
+    public Window get(int index) {
+        checkIndex(index);
+        Run run = runOf(index);
+        if (run.windows != null) {
+            return run.windows.get(index - run.start);
+        }
+
+        int offset = index - run.start;
+        AtomicReferenceArray<Window> chunk = run.chunkOf(offset);
+        Window window = chunk.get(offset & CHUNK_MASK);
+        if (window != null) {
+            return window;
+        }
+
+        synchronized (chunk) {
+            window = chunk.get(offset & CHUNK_MASK);
+            if (window == null) {
+                window = offset % 2 == 0 ? new Window() : new OpenableWindow();
+                materializationListener.accept(window, index);
+                chunk.set(offset & CHUNK_MASK, window);
+                materializedAmount.incrementAndGet();
+            }
+        }
+        return window;
+    }
+
+    /**
+     * Returns window at the specified position without creation of default window object:
+     * if it isn't created yet, {@link #DEFAULT_WINDOW} or {@link #DEFAULT_OPENABLE_WINDOW}
+     * is returned instead; they throw UnsupportedOperationException on any change
+     *
+     * @param index position of window
+     * @return window object or shared window with the same attributes and state
+     */
+    Window peek(int index) {
+        checkIndex(index);
+        Run run = runOf(index);
+        if (run.windows != null) {
+            return run.windows.get(index - run.start);
+        }
+
+        int offset = index - run.start;
+        AtomicReferenceArray<AtomicReferenceArray<Window>> chunks = run.created;
+        AtomicReferenceArray<Window> chunk = chunks == null ? null : chunks.get(offset >>> CHUNK_BITS);
+        Window window = chunk == null ? null : chunk.get(offset & CHUNK_MASK);
+        if (window != null) {
+            return window;
+        }
+        return offset % 2 == 0 ? DEFAULT_WINDOW : DEFAULT_OPENABLE_WINDOW;
+    }
+
+    /**
+     * Returns amount of consecutive default windows, starting from the specified position,
+     * that still have the default attributes and state: either aren't created yet or are equal
+     * to the new objects. The windows are counted within one run of default windows and
+     * from its {@link Window} position only, so they could be added back with {@link #addDefaults(int)}
+     *
+     * @param index position of window
+     * @return amount of unchanged default windows or 0
+     */
+    int defaultsAt(int index) {
+        checkIndex(index);
+        Run run = runOf(index);
+        int offset = index - run.start;
+        if (run.windows != null || offset % 2 != 0) {
+            return 0;
+        }
+
+        AtomicReferenceArray<AtomicReferenceArray<Window>> chunks = run.created;
+        if (chunks == null) {
+            return run.amount - offset;
+        }
+
+        int end = offset;
+        while (end < run.amount) {
+            AtomicReferenceArray<Window> chunk = chunks.get(end >>> CHUNK_BITS);
+            if (chunk == null) {
+                end = Math.min(run.amount, ((end >>> CHUNK_BITS) + 1) << CHUNK_BITS);
+                continue;
+            }
+            Window window = chunk.get(end & CHUNK_MASK);
+            if (window != null && !window.equals(end % 2 == 0 ? PLAIN_WINDOW : PLAIN_OPENABLE_WINDOW)) {
+                break;
+            }
+            end++;
+        }
+        return end - offset;
+    }
+
+    /**
+     * Returns read-only view of the list, that gets windows with {@link #peek(int)},
+     * so reading of all the windows doesn't create objects of default ones
+     *
+     * @return unmodifiable list of windows
+     */
+    List<Window> peekView() {
+        return new PeekView();
+    }
+
+    /**
+     * This method return the amount of windows
+     *
+     * @return amount of windows
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * This method return the amount of default windows, whose objects are created
+     *
+     * @return amount of created default windows
+     */
+    int getMaterializedAmount() {
+        return materializedAmount.get();
+    }
+
+    /**
+     * Checks whether the position is within the list
+     *
+     * @param index position of window
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+    }
+
+    /**
+     * Returns the last run or {@code null} if the list is empty
+     *
+     * @return last run
+     */
+    private Run lastRun() {
+        return runs.isEmpty() ? null : runs.get(runs.size() - 1);
+    }
+
+    /**
+     * Finds the run, that contains the specified position, with the binary search
+     *
+     * @param index position of window
+     * @return run of window
+     */
+    private Run runOf(int index) {
+        int low = 0;
+        int high = runs.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (runs.get(middle).start <= index) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return runs.get(low);
+    }
+
+    /**
+     * This class represents run of windows: either list of objects
+     * or amount of default windows
+     */
+    private static final class Run {
+        /** Position of the first window of run */
+        private final int start;
+        /** Window objects; {@code null} for run of default windows */
+        private final ArrayList<Window> windows;
+        /** Amount of default windows */
+        private int amount;
+        /** Chunks of created default window objects; allocated on the first access */
+        private volatile AtomicReferenceArray<AtomicReferenceArray<Window>> created;
+
+        /**
+         * Parametrized constructor.
+         * <p/>Creates run of window objects
+         *
+         * @param start   position of the first window
+         * @param windows list of window objects
+         */
+        Run(int start, ArrayList<Window> windows) {
+            this.start = start;
+            this.windows = windows;
+        }
+
+        /**
+         * Parametrized constructor.
+         * <p/>Creates run of default windows
+         *
+         * @param start  position of the first window
+         * @param amount amount of windows
+         */
+        Run(int start, int amount) {
+            this.start = start;
+            this.windows = null;
+            this.amount = amount;
+        }
+
+        /**
+         * Returns chunk of created objects, that holds the window with the specified
+         * offset in the run, allocating the chunk and the array of chunks if necessary
+         *
+         * @param offset offset of window in the run
+         * @return chunk of created objects
+         */
+        AtomicReferenceArray<Window> chunkOf(int offset) {
+            AtomicReferenceArray<AtomicReferenceArray<Window>> chunks = created;
+            if (chunks == null) {
+                synchronized (this) {
+                    chunks = created;
+                    if (chunks == null) {
+                        chunks = new AtomicReferenceArray<>((amount + CHUNK_MASK) >>> CHUNK_BITS);
+                        created = chunks;
+                    }
+                }
+            }
+
+            int chunkIndex = offset >>> CHUNK_BITS;
+            AtomicReferenceArray<Window> chunk = chunks.get(chunkIndex);
+            if (chunk == null) {
+                int chunkSize = Math.min(CHUNK_SIZE, amount - (chunkIndex << CHUNK_BITS));
+                chunks.compareAndSet(chunkIndex, null, new AtomicReferenceArray<>(chunkSize));
+                chunk = chunks.get(chunkIndex);
+            }
+            return chunk;
+        }
+    }
+
+    /**
+     * This class represents read-only view of windows list, that doesn't create default window objects
+     */
+    private final class PeekView extends AbstractList<Window> implements RandomAccess {
+
+        /**
+         * Returns window at the specified position or shared window with the same attributes
+         *
+         * @param index position of window
+         * @return window object
+         */
+        @Override
+        public Window get(int index) {
+            return peek(index);
+        }
+
+        /**
+         * This method return the amount of windows
+         *
+         * @return amount of windows
+         */
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * This class represents shared window with default attributes,
+     * that rejects every change
+     */
+    private static final class ReadOnlyWindow extends Window {
+
+        /**
+         * Rejects the change of color
+         *
+         * @param color new color value
+         */
+        @Override
+        public void setColor(String color) {
+            throw new UnsupportedOperationException("Window is read-only");
+        }
+    }
+
+    /**
+     * This class represents shared openable window with default attributes in
+     * the 'closed' state, that rejects every change
+     */
+    private static final class ReadOnlyOpenableWindow extends OpenableWindow {
+
+        /**
+         * Rejects the change of color
+         *
+         * @param color new color value
+         */
+        @Override
+        public void setColor(String color) {
+            throw new UnsupportedOperationException("Window is read-only");
+        }
+
+        /**
+         * Rejects the listener, as the window never changes its state
+         *
+         * @param stateListener new listener
+         */
+        @Override
+        public void setStateListener(IOpenStateListener stateListener) {
+            throw new UnsupportedOperationException("Window is read-only");
+        }
+
+        /**
+         * Rejects the opening
+         *
+         * @return never returns normally
+         */
+        @Override
+        public boolean tryOpen() {
+            throw new UnsupportedOperationException("Window is read-only");
+        }
+
+        /**
+         * Rejects the closing
+         */
+        @Override
+        public void close() {
+            throw new UnsupportedOperationException("Window is read-only");
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package ua.onufreiv.inheritance.house.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class represents metrics of house operations: counters of events
+ * and histograms of operations latencies.
+ * <p/> Counters are striped, so incrementing them from many threads doesn't
+ * contend. Timing of operations costs two {@link System#nanoTime()} calls,
+ * so it's disabled by default and could be enabled with {@link #setTimingEnabled(boolean)}.
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+public class HouseMetrics {
+
+    /**
+     * This enum represents counted events
+     */
+    public enum Counter {
+        LOCK_SUCCESS, LOCK_FAILURE, UNLOCK_SUCCESS, UNLOCK_FAILURE,
+        KEY_VALIDATION_FAILURE, WINDOW_OPENED, WARNING_EMITTED, KEY_GENERATED
+    }
+
+    /**
+     * This enum represents timed operations
+     */
+    public enum Timer {
+        LOCK, UNLOCK, OPEN_WINDOW, GENERATE_KEY
+    }
+
+    /** Shared metrics of all the houses */
+    private static final HouseMetrics DEFAULT = new HouseMetrics();
+
+    /** Counters by ordinals of {@link Counter} */
+    private final LongAdder[] counters;
+    /** Histograms by ordinals of {@link Timer} */
+    private final LatencyHistogram[] histograms;
+    /** Indicates whether the operations are timed */
+    private volatile boolean timingEnabled;
+
+    /**
+     * Default constructor.
+     */
+    public HouseMetrics() {
+        counters = new LongAdder[Counter.values().length];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+        histograms = new LatencyHistogram[Timer.values().length];
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Returns the shared metrics, that are updated by house operations
+     *
+     * @return default metrics
+     */
+    public static HouseMetrics getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Increments the counter of event
+     *
+     * @param counter counted event
+     */
+    public void increment(Counter counter) {
+        counters[counter.ordinal()].increment();
+    }
+
+    /**
+     * This method return the current value of counter
+     *
+     * @param counter counted event
+     * @return amount of events
+     */
+    public long getCount(Counter counter) {
+        return counters[counter.ordinal()].sum();
+    }
+
+    /**
+     * This method return the histogram of operation latencies
+     *
+     * @param timer timed operation
+     * @return histogram of latencies
+     */
+    public LatencyHistogram getHistogram(Timer timer) {
+        return histograms[timer.ordinal()];
+    }
+
+    /**
+     * Setter for {@code timingEnabled} field
+     *
+     * @param timingEnabled true to time operations, false otherwise
+     */
+    public void setTimingEnabled(boolean timingEnabled) {
+        this.timingEnabled = timingEnabled;
+    }
+
+    /**
+     * Getter for {@code timingEnabled} field
+     *
+     * @return true if operations are timed, false otherwise
+     */
+    public boolean isTimingEnabled() {
+        return timingEnabled;
+    }
+
+    /**
+     * Starts timing of operation
+     *
+     * @return start time in nanoseconds or 0 if timing is disabled
+     */
+    public long startTimer() {
+        return timingEnabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Stops timing of operation and records its latency
+     *
+     * @param timer     timed operation
+     * @param startTime value returned by {@link #startTimer()}
+     */
+    public void stopTimer(Timer timer, long startTime) {
+        if (startTime != 0) {
+            histograms[timer.ordinal()].record(System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Resets all the counters and histograms
+     */
+    public void reset() {
+        for (LongAdder counter : counters) {
+            counter.reset();
+        }
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Returns metrics in the plain text format: one {@code name value} pair per line.
+     * Latencies are in nanoseconds
+     *
+     * @return text representation of metrics
+     */
+    public String toText() {
+        StringBuilder builder = new StringBuilder();
+        for (Counter counter : Counter.values()) {
+            builder.append(name(counter)).append(' ').append(getCount(counter)).append('\n');
+        }
+        for (Timer timer : Timer.values()) {
+            LatencyHistogram histogram = getHistogram(timer);
+            String prefix = name(timer) + "_latency_";
+            builder.append(prefix).append("count ").append(histogram.getCount()).append('\n')
+                    .append(prefix).append("mean ")
+                    .append(String.format(Locale.ROOT, "%.1f", histogram.getMean())).append('\n')
+                    .append(prefix).append("p50 ").append(histogram.getValueAtPercentile(50)).append('\n')
+                    .append(prefix).append("p99 ").append(histogram.getValueAtPercentile(99)).append('\n')
+                    .append(prefix).append("max ").append(histogram.getMax()).append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns metrics in the JSON format. Latencies are in nanoseconds
+     *
+     * @return JSON representation of metrics
+     */
+    public String toJson() {
+        StringBuilder builder = new StringBuilder("{\"counters\":{");
+        for (Counter counter : Counter.values()) {
+            if (counter.ordinal() > 0) {
+                builder.append(',');
+            }
+            builder.append('"').append(name(counter)).append("\":").append(getCount(counter));
+        }
+        builder.append("},\"latencies\":{");
+        for (Timer timer : Timer.values()) {
+            if (timer.ordinal() > 0) {
+                builder.append(',');
+            }
+            LatencyHistogram histogram = getHistogram(timer);
+            builder.append('"').append(name(timer)).append("\":{")
+                    .append("\"count\":").append(histogram.getCount())
+                    .append(",\"mean\":").append(String.format(Locale.ROOT, "%.1f", histogram.getMean()))
+                    .append(",\"p50\":").append(histogram.getValueAtPercentile(50))
+                    .append(",\"p99\":").append(histogram.getValueAtPercentile(99))
+                    .append(",\"max\":").append(histogram.getMax())
+                    .append('}');
+        }
+        return builder.append("}}").toString();
+    }
+
+    /**
+     * Returns a {@code String} object representing this {@code HouseMetrics} object's value.
+     * Includes it's class name and values of counters
+     *
+     * @return a string representation of fields values of this object
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("HouseMetrics[");
+        for (Counter counter : Counter.values()) {
+            if (counter.ordinal() > 0) {
+                builder.append(", ");
+            }
+            builder.append(name(counter)).append('=').append(getCount(counter));
+        }
+        return builder.append(']').toString();
+    }
+
+    /**
+     * Returns name of metric in the exported formats
+     *
+     * @param metric counter or timer
+     * @return lower case name of metric
+     */
+    private static String name(Enum<?> metric) {
+        return metric.name().toLowerCase(Locale.ROOT);
+    }
+}
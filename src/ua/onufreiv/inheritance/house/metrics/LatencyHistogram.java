@@ -0,0 +1,163 @@
+package ua.onufreiv.inheritance.house.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class represents histogram of latencies in nanoseconds.
+ * <p/> Values are recorded into log-linear buckets: every power of two range is
+ * split into {@value #SUB_BUCKETS} equal sub-buckets, so relative error of reported
+ * percentiles doesn't exceed 12.5% whatever the magnitude of value.
+ * Every bucket is a striped counter, so concurrent recording doesn't contend.
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+public class LatencyHistogram {
+
+    /** Amount of sub-buckets in every power of two range, is a power of two itself */
+    private static final int SUB_BUCKETS = 8;
+    /** Amount of bits of value that select the sub-bucket */
+    private static final int SUB_BUCKET_BITS = 3;
+    /** Total amount of buckets, enough for any non-negative {@code long} value */
+    private static final int BUCKETS_AMOUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    /** Counters of recorded values by buckets */
+    private final LongAdder[] buckets;
+    /** Sum of recorded values */
+    private final LongAdder sum;
+    /** Maximal recorded value */
+    private final LongAccumulator max;
+
+    /**
+     * Default constructor.
+     */
+    public LatencyHistogram() {
+        buckets = new LongAdder[BUCKETS_AMOUNT];
+        for (int i = 0; i < BUCKETS_AMOUNT; i++) {
+            buckets[i] = new LongAdder();
+        }
+        sum = new LongAdder();
+        max = new LongAccumulator(Math::max, 0);
+    }
+
+    /**
+     * Records the value. Negative values are recorded as zero
+     *
+     * @param nanos latency in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        buckets[bucketIndex(value)].increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * This method return the amount of recorded values
+     *
+     * @return amount of recorded values
+     */
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * This method return the mean of recorded values
+     *
+     * @return mean latency in nanoseconds or 0 if nothing is recorded
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) sum.sum() / count;
+    }
+
+    /**
+     * This method return the maximal recorded value
+     *
+     * @return maximal latency in nanoseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * This method return the value, that is not exceeded by the specified
+     * part of recorded values. The highest value of bucket is returned
+     *
+     * @param percentile percentile in range [0, 100]
+     * @return latency in nanoseconds or 0 if nothing is recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Invalid percentile: " + percentile);
+        }
+
+        long[] counts = new long[BUCKETS_AMOUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKETS_AMOUNT; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS_AMOUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(bucketHighestValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Resets the histogram. Values recorded concurrently with the resetting
+     * could be lost or remain
+     */
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        sum.reset();
+        max.reset();
+    }
+
+    /**
+     * Returns index of bucket, that holds the specified value
+     *
+     * @param value non-negative value
+     * @return index of bucket
+     */
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Returns the highest value, that is held by the bucket
+     *
+     * @param index index of bucket
+     * @return highest value of bucket
+     */
+    private static long bucketHighestValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        long lowest = (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+        return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -0,0 +1,87 @@
+package ua.onufreiv.inheritance.house.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class represents local HTTP endpoint, that exports {@link HouseMetrics}.
+ * <p/> Listens on the loopback interface only and serves two paths:
+ * {@code /metrics} in the plain text format and {@code /metrics.json} in the JSON one.
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+public class MetricsEndpoint implements Closeable {
+
+    /** Exported metrics */
+    private final HouseMetrics metrics;
+    /** HTTP server of endpoint */
+    private final HttpServer server;
+
+    /**
+     * Parametrized constructor.
+     * <p/> Starts the endpoint
+     *
+     * @param metrics exported metrics
+     * @param port    port to listen on; 0 to choose any free port
+     * @throws IOException if the port couldn't be bound
+     */
+    public MetricsEndpoint(HouseMetrics metrics, int port) throws IOException {
+        if (metrics == null) {
+            throw new NullPointerException("Parameter 'metrics' is null");
+        }
+
+        this.metrics = metrics;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", this::handle);
+        server.start();
+    }
+
+    /**
+     * Getter for the actual port of endpoint
+     *
+     * @return port the endpoint listens on
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the endpoint
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    /**
+     * Responds with metrics in the format chosen by the path of request
+     *
+     * @param exchange HTTP request and response
+     * @throws IOException if the response couldn't be sent
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        boolean isJson = path.equals("/metrics.json");
+        if (!isJson && !path.equals("/metrics")) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] body = (isJson ? metrics.toJson() : metrics.toText()).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type",
+                isJson ? "application/json; charset=utf-8" : "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package ua.onufreiv.inheritance.house.openings;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * This class represents table of canonical attribute sets of openings.
+ * <p/> Canonical instances are referenced weakly: the set of values, that isn't used
+ * by any door or window anymore, is collected together with its table entry, so
+ * colors set with {@code setColor} don't stay in memory forever. Every canonical
+ * instance has small integer identifier; identifiers of collected instances are
+ * reused, so they stay dense. Identifier is stable while its instance is reachable,
+ * which is enough for comparison of live openings.
+ *
+ * @param <T> type of attribute set; its {@code equals} and {@code hashCode} must
+ *            be based on attribute values only
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+final class AttributesInterner<T> {
+
+    /** Identifier of instances, that are used for lookup only */
+    static final int NO_ID = -1;
+
+    /** Weak references to canonical instances by the lookup instances with the same values */
+    private final ConcurrentHashMap<T, CanonicalReference<T>> canonical;
+    /** Queue of references, instances of which were collected */
+    private final ReferenceQueue<T> collected;
+    /** Identifiers of collected instances, that could be reused */
+    private final ConcurrentLinkedQueue<Integer> freeIds;
+    /** Identifier of the next canonical instance, if there is no free one */
+    private final AtomicInteger nextId;
+
+    /**
+     * Default constructor.
+     * <p/> Creates empty table
+     */
+    AttributesInterner() {
+        canonical = new ConcurrentHashMap<>();
+        collected = new ReferenceQueue<>();
+        freeIds = new ConcurrentLinkedQueue<>();
+        nextId = new AtomicInteger();
+    }
+
+    /**
+     * Returns canonical instance with the values of probe, creating it if necessary
+     *
+     * @param probe   lookup instance with {@link #NO_ID} identifier; becomes the key of table entry
+     * @param factory creates canonical instance with the values of probe and the passed identifier
+     * @return shared attribute set object
+     */
+    T intern(T probe, IntFunction<T> factory) {
+        expungeCollected();
+
+        CanonicalReference<T> reference = canonical.get(probe);
+        T instance = reference == null ? null : reference.get();
+        if (instance != null) {
+            return instance;
+        }
+
+        Object[] result = new Object[1];
+        canonical.compute(probe, (key, current) -> {
+            T existing = current == null ? null : current.get();
+            if (existing != null) {
+                result[0] = existing;
+                return current;
+            }
+            if (current != null) {
+                freeIds.offer(current.id);
+            }
+            int id = allocateId();
+            T created = factory.apply(id);
+            result[0] = created;
+            return new CanonicalReference<>(created, key, id, collected);
+        });
+
+        @SuppressWarnings("unchecked")
+        T interned = (T) result[0];
+        return interned;
+    }
+
+    /**
+     * Removes entries of collected instances and frees their identifiers.
+     * An entry, that was already replaced by the new instance, isn't touched
+     */
+    private void expungeCollected() {
+        Object stale;
+        while ((stale = collected.poll()) != null) {
+            @SuppressWarnings("unchecked")
+            CanonicalReference<T> reference = (CanonicalReference<T>) stale;
+            if (canonical.remove(reference.key, reference)) {
+                freeIds.offer(reference.id);
+            }
+        }
+    }
+
+    /**
+     * Returns free identifier of collected instance or the next new one
+     *
+     * @return identifier of canonical instance
+     */
+    private int allocateId() {
+        Integer free = freeIds.poll();
+        return free != null ? free : nextId.getAndIncrement();
+    }
+
+    /**
+     * This class represents weak reference to canonical instance
+     * together with its table key and identifier
+     *
+     * @param <T> type of attribute set
+     */
+    private static final class CanonicalReference<T> extends WeakReference<T> {
+        /** Key of table entry */
+        private final T key;
+        /** Identifier of canonical instance */
+        private final int id;
+
+        /**
+         * Parametrized constructor.
+         *
+         * @param instance canonical instance
+         * @param key      key of table entry
+         * @param id       identifier of canonical instance
+         * @param queue    queue of collected references
+         */
+        CanonicalReference(T instance, T key, int id, ReferenceQueue<T> queue) {
+            super(instance, queue);
+            this.key = key;
+            this.id = id;
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package ua.onufreiv.inheritance.house.openings;
 
-import java.util.Objects;
+import ua.onufreiv.inheritance.house.text.IRenderable;
+import ua.onufreiv.inheritance.house.text.Rendering;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * This class represents 'door' object. It implements the {@link IOpenable}
@@ -9,7 +12,7 @@ import java.util.Objects;
  * @author Yurii Onufreiv
  * @version 1.0
  */
-public class Door implements IOpenable {
+public class Door implements IOpenable, IRenderable {
 
     /**
      * This enum represents possible types of door opening mechanism
@@ -19,25 +22,39 @@ public class Door implements IOpenable {
     }
 
     /**
-     * Material of door
+     * Default attributes of door: "Wood", "White", {@code OpeningType.CASUAL}, without glass
+     */
+    static final DoorAttributes DEFAULT_ATTRIBUTES =
+            DoorAttributes.of("Wood", "White", OpeningType.CASUAL, false);
+
+    /**
+     * Material, color, type and glass captions of door; shared between
+     * doors with the same attribute values
      */
-    private String material;
+    private DoorAttributes attributes;
     /**
-     * Color of door
+     * Bit of {@code state} word that indicates whether the door is in 'opened' state
      */
-    private String color;
+    protected static final int OPENED = 1;
+
     /**
-     * The way of door's opening/closing
+     * Atomic updater of {@code state} field
      */
-    private Door.OpeningType type;
+    private static final AtomicIntegerFieldUpdater<Door> STATE_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(Door.class, "state");
+
     /**
-     * Indicates whether the door has some glass captions
+     * Packed state word of the door. The lowest bit is {@link #OPENED};
+     * other bits are free for use by subclasses. Is changed only with
+     * the help of compare-and-set operations, so the door could be
+     * shared between threads
      */
-    private boolean isWithGlass;
+    private volatile int state;
+
     /**
-     * Indicates whether the door is in 'opened' state
+     * Listener that is notified about switching between 'opened' and 'closed' states
      */
-    private boolean isOpened;
+    private volatile IOpenStateListener stateListener;
 
     /**
      * Default constructor.
@@ -48,7 +65,7 @@ public class Door implements IOpenable {
      * ({@code isWithGlass} = "false").
      */
     public Door() {
-        this("Wood", "White", OpeningType.CASUAL, false);
+        this(DEFAULT_ATTRIBUTES);
     }
 
     /**
@@ -61,11 +78,82 @@ public class Door implements IOpenable {
      * @param isWithGlass indicates whether the door contains glass captions
      */
     public Door(String material, String color, OpeningType type, boolean isWithGlass) {
-        this.material = material;
-        this.color = color;
-        this.type = type;
-        this.isWithGlass = isWithGlass;
-        isOpened = false;
+        this(DoorAttributes.of(material, color, type, isWithGlass));
+    }
+
+    /**
+     * Parametrized constructor.
+     * <p/>Initializes door with the shared attribute set
+     *
+     * @param attributes attributes of door
+     */
+    Door(DoorAttributes attributes) {
+        this.attributes = attributes;
+    }
+
+    /**
+     * Getter for {@code state} field
+     *
+     * @return current packed state word
+     */
+    protected final int getState() {
+        return state;
+    }
+
+    /**
+     * Atomically sets the {@code state} word to the {@code update} value
+     * if it currently equals to the {@code expect} value
+     *
+     * @param expect expected state word
+     * @param update new state word
+     * @return true if successful, false if the actual state word was different
+     */
+    protected final boolean compareAndSetState(int expect, int update) {
+        return STATE_UPDATER.compareAndSet(this, expect, update);
+    }
+
+    /**
+     * Setter for {@code stateListener} field.
+     * <p/>Only one listener is supported, so the previous one is replaced.
+     * Under concurrent use notifications may arrive out of order, so the
+     * listener should rely on {@link #isOpened()} rather than on the passed state
+     *
+     * @param stateListener new listener or {@code null} to remove the existing one
+     */
+    public void setStateListener(IOpenStateListener stateListener) {
+        this.stateListener = stateListener;
+    }
+
+    /**
+     * Notifies {@code stateListener} (if any) about the state switching
+     *
+     * @param isOpened new state of door
+     */
+    protected final void notifyStateListener(boolean isOpened) {
+        IOpenStateListener listener = stateListener;
+        if (listener != null) {
+            listener.openStateChanged(this, isOpened);
+        }
+    }
+
+    /**
+     * Atomically sets or clears the specified bits of {@code state} word
+     *
+     * @param bits  bits to change
+     * @param value true for setting bits, false for clearing them
+     * @return true, if the state word was changed by this call, false otherwise
+     */
+    private boolean updateStateBits(int bits, boolean value) {
+        int current;
+        int next;
+        do {
+            current = state;
+            next = value ? current | bits : current & ~bits;
+            if (current == next) {
+                return false;
+            }
+        } while (!compareAndSetState(current, next));
+        return true;
     }
 
     /**
@@ -74,7 +162,7 @@ public class Door implements IOpenable {
      * @return {@code material} field value
      */
     public String getMaterial() {
-        return material;
+        return attributes.getMaterial();
     }
 
     /**
@@ -83,7 +171,7 @@ public class Door implements IOpenable {
      * @return {@code color} field value
      */
     public String getColor() {
-        return color;
+        return attributes.getColor();
     }
 
     /**
@@ -92,7 +180,7 @@ public class Door implements IOpenable {
      * @param color new color value
      */
     public void setColor(String color) {
-        this.color = color;
+        attributes = attributes.withColor(color);
     }
 
     /**
@@ -101,7 +189,7 @@ public class Door implements IOpenable {
      * @return {@code type} field value
      */
     public OpeningType getType() {
-        return type;
+        return attributes.getType();
     }
 
     /**
@@ -110,7 +198,7 @@ public class Door implements IOpenable {
      * @return true, if this door contains glass captions, false otherwise
      */
     public boolean isWithGlass() {
-        return isWithGlass;
+        return attributes.isWithGlass();
     }
 
     /**
@@ -118,7 +206,9 @@ public class Door implements IOpenable {
      */
     @Override
     public void open() {
-        isOpened = true;
+        if (updateStateBits(OPENED, true)) {
+            notifyStateListener(true);
+        }
     }
 
     /**
@@ -126,17 +216,49 @@ public class Door implements IOpenable {
      */
     @Override
     public void close() {
-        isOpened = false;
+        if (updateStateBits(OPENED, false)) {
+            notifyStateListener(false);
+        }
     }
 
     /**
-     * Getter for {@code isOpened} field
+     * Checks the {@link #OPENED} bit of {@code state} word
      *
      * @return true, if this door is in 'opened' state, false otherwise
      */
     @Override
     public boolean isOpened() {
-        return isOpened;
+        return (state & OPENED) != 0;
+    }
+
+    /**
+     * Returns bits of {@code state} word, that take part in the equality check.
+     * Subclasses that keep additional flags in the word include them too
+     *
+     * @return state flags of the door
+     */
+    protected int getStateFlags() {
+        return getState() & OPENED;
+    }
+
+    /**
+     * Returns value, that is equal for equal doors of the same class:
+     * identifier of attribute set in the high half and state flags in the low one
+     *
+     * @return equality key of the door
+     */
+    final long getEqualityKey() {
+        return (long) attributes.getId() << Integer.SIZE | getStateFlags();
+    }
+
+    /**
+     * Returns class, that equal doors must have. Views of doors stored
+     * in {@link DoorArray} report the class of door they stand for
+     *
+     * @return class used in the equality check
+     */
+    Class<? extends Door> getEqualityClass() {
+        return getClass();
     }
 
     /**
@@ -146,7 +268,8 @@ public class Door implements IOpenable {
      * {@code color},
      * {@code type},
      * {@code isWithGlass} and
-     * {@code isOpened}.
+     * state flags ({@code isOpened} and, for lockable doors, {@code isLocked}).
+     * Attribute values are compared by the identifier of their canonical set
      *
      * @param otherObject the object to check with.
      * @return {@code true} if the objects are the same;
@@ -156,29 +279,24 @@ public class Door implements IOpenable {
     public boolean equals(Object otherObject) {
         if (this == otherObject) return true;
 
-        if (otherObject == null) return false;
-
-        if (getClass() != otherObject.getClass()) return false;
+        if (!(otherObject instanceof Door)) return false;
 
         Door other = (Door) otherObject;
 
-        return Objects.equals(material, other.material)
-                && Objects.equals(color, other.color)
-                && Objects.equals(type, other.type)
-                && Objects.equals(isWithGlass, other.isWithGlass)
-                && isOpened == other.isOpened;
+        if (getEqualityClass() != other.getEqualityClass()) return false;
+
+        return getEqualityKey() == other.getEqualityKey();
     }
 
     /**
      * Returns a hash code for this door.
-     * <p/>Based on {@code material}, {@code color}, {@code type},
-     * {@code isWithGlass} and {@code isOpened} values
+     * <p/>Based on identifier of attribute set and state flags
      *
      * @return a hash code value for this door object
      */
     @Override
     public int hashCode() {
-        return Objects.hash(material, color, type, isWithGlass, isOpened);
+        return Long.hashCode(getEqualityKey());
     }
 
     /**
@@ -190,12 +308,24 @@ public class Door implements IOpenable {
      */
     @Override
     public String toString() {
-        return "Door[" +
-                "material='" + material + '\'' +
-                ", color='" + color + '\'' +
-                ", type=" + type +
-                ", isWithGlass=" + isWithGlass +
-                ", isOpened=" + isOpened +
-                ']';
+        return Rendering.toString(this);
+    }
+
+    /**
+     * Appends the representation of this {@code Door} object, the same as
+     * {@link #toString()} returns, to the builder
+     *
+     * @param builder builder to append to
+     * @return the passed builder
+     */
+    @Override
+    public StringBuilder render(StringBuilder builder) {
+        return builder.append("Door[")
+                .append("material='").append(attributes.getMaterial()).append('\'')
+                .append(", color='").append(attributes.getColor()).append('\'')
+                .append(", type=").append(attributes.getType())
+                .append(", isWithGlass=").append(attributes.isWithGlass())
+                .append(", isOpened=").append(isOpened())
+                .append(']');
     }
 }
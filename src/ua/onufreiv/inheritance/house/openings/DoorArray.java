@@ -0,0 +1,644 @@
+package ua.onufreiv.inheritance.house.openings;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * This class represents array of doors with the bitmap of their 'opened' states.
+ * <p/> Doors, that are added in bulk with {@link #addDefaults(int)}, aren't created
+ * as objects: their attributes are kept in the parallel array and their state is
+ * kept in the bitmap only. For such doors {@link #get(int)} returns {@link Door}
+ * view, created on the first access, that opens and closes the bit of the array.
+ * Door objects added with {@link #add(Door)} are kept as they are and their state
+ * is mirrored into the bitmap. {@link #peek(int)} and {@link #peekView()} read the doors
+ * without creating views: doors without objects are returned as temporary read-only
+ * doors, that aren't kept by the array.
+ * <p/> Counting, opening and closing of all the doors process 64 doors per bitmap
+ * word. Adding of doors must not run concurrently with other operations,
+ * other operations could be performed from many threads.
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+public final class DoorArray {
+
+    /** Initial capacity of array */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** Attributes of doors, that are stored without objects */
+    private DoorAttributes[] attributes;
+    /** Added door objects and created views */
+    private AtomicReferenceArray<Door> doors;
+    /** Bitmap of positions, that hold added door objects */
+    private long[] objectPositions;
+    /** Bitmap of 'opened' states */
+    private AtomicLongArray opened;
+    /** Amount of doors */
+    private int size;
+    /** Listener that is notified about switching between 'opened' and 'closed' states */
+    private volatile IDoorsStateListener stateListener;
+
+    /**
+     * Default constructor.
+     * <p/> Creates empty array
+     */
+    public DoorArray() {
+        attributes = new DoorAttributes[INITIAL_CAPACITY];
+        doors = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+        objectPositions = new long[wordsFor(INITIAL_CAPACITY)];
+        opened = new AtomicLongArray(wordsFor(INITIAL_CAPACITY));
+    }
+
+    /**
+     * Setter for {@code stateListener} field
+     *
+     * @param stateListener listener of state switching or {@code null}
+     */
+    public void setStateListener(IDoorsStateListener stateListener) {
+        this.stateListener = stateListener;
+    }
+
+    /**
+     * This method return the amount of doors
+     *
+     * @return amount of doors
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Grows the storage, so it could hold the specified amount of doors without reallocation
+     *
+     * @param capacity required capacity
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity <= attributes.length) {
+            return;
+        }
+
+        int newCapacity = Math.max(capacity, attributes.length * 2);
+        attributes = Arrays.copyOf(attributes, newCapacity);
+        objectPositions = Arrays.copyOf(objectPositions, wordsFor(newCapacity));
+
+        AtomicReferenceArray<Door> newDoors = new AtomicReferenceArray<>(newCapacity);
+        for (int i = 0; i < size; i++) {
+            newDoors.set(i, doors.get(i));
+        }
+        AtomicLongArray newOpened = new AtomicLongArray(wordsFor(newCapacity));
+        for (int i = 0; i < opened.length(); i++) {
+            newOpened.set(i, opened.get(i));
+        }
+        doors = newDoors;
+        opened = newOpened;
+    }
+
+    /**
+     * Adds door object. The state listener of door is replaced with
+     * the one, that mirrors the state into the bitmap
+     *
+     * @param door door for adding
+     */
+    public void add(Door door) {
+        if (door == null) {
+            throw new NullPointerException("Parameter 'door' is null");
+        }
+
+        ensureCapacity(size + 1);
+        final int index = size++;
+        doors.set(index, door);
+        objectPositions[index >>> 6] |= 1L << index;
+        door.setStateListener((source, isOpened) -> {
+            mirrorState(index, door);
+            notifyStateListener(index);
+        });
+        mirrorState(index, door);
+    }
+
+    /**
+     * Adds the specified amount of doors with the default attributes of
+     * {@link Door} in the 'closed' state. Door objects aren't created
+     *
+     * @param amount amount of doors to add
+     */
+    public void addDefaults(int amount) {
+        addDefaults(amount, false);
+    }
+
+    /**
+     * Adds the specified amount of doors with the default attributes of
+     * {@link Door} in the specified state. Door objects aren't created
+     * and listeners aren't notified
+     *
+     * @param amount   amount of doors to add
+     * @param isOpened state of doors
+     */
+    public void addDefaults(int amount, boolean isOpened) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Negative value");
+        }
+
+        ensureCapacity(size + amount);
+        Arrays.fill(attributes, size, size + amount, Door.DEFAULT_ATTRIBUTES);
+        if (isOpened) {
+            for (int i = size, end = size + amount; i < end; ) {
+                int wordEnd = Math.min(end, (i & ~63) + Long.SIZE);
+                long mask = (wordEnd - i == Long.SIZE ? -1L : (1L << (wordEnd - i)) - 1) << i;
+                opened.set(i >>> 6, opened.get(i >>> 6) | mask);
+                i = wordEnd;
+            }
+        }
+        size += amount;
+    }
+
+    /**
+     * Returns amount of consecutive doors, starting from the specified position, that are
+     * stored without objects, have the default attributes and the same state, so they
+     * could be added back with {@link #addDefaults(int, boolean)}
+     *
+     * @param index position of door
+     * @return amount of such doors or 0, if the door at position is added object or changed view
+     */
+    public int defaultsAt(int index) {
+        checkIndex(index);
+        boolean isOpened = isOpened(index);
+        int end = index;
+        while (end < size && !isObjectPosition(end) && isOpened(end) == isOpened && isDefault(end)) {
+            end++;
+        }
+        return end - index;
+    }
+
+    /**
+     * Returns door at the specified position: the added door object
+     * or the view of door, that is stored without object
+     *
+     * @param index position of door
+     * @return door object
+     */
+    public Door get(int index) {
+        checkIndex(index);
+        Door door = doors.get(index);
+        if (door == null) {
+            doors.compareAndSet(index, null, new DoorView(attributes[index], index));
+            door = doors.get(index);
+        }
+        return door;
+    }
+
+    /**
+     * Returns door at the specified position without creating the view of door, that is
+     * stored without object: the added door object or the created view, if any, otherwise
+     * new read-only door, that reflects the state of array, isn't kept by it and throws
+     * UnsupportedOperationException on any change
+     *
+     * @param index position of door
+     * @return door object
+     */
+    public Door peek(int index) {
+        checkIndex(index);
+        Door door = doors.get(index);
+        return door != null ? door : new ReadOnlyDoor(attributes[index], index);
+    }
+
+    /**
+     * Checks the state of door at the specified position
+     *
+     * @param index position of door
+     * @return true, if the door is in 'opened' state, false otherwise
+     */
+    public boolean isOpened(int index) {
+        checkIndex(index);
+        return (opened.get(index >>> 6) & 1L << index) != 0;
+    }
+
+    /**
+     * Switches the door at the specified position to the 'opened' state
+     *
+     * @param index position of door
+     */
+    public void open(int index) {
+        setOpened(index, true);
+    }
+
+    /**
+     * Switches the door at the specified position to the 'closed' state
+     *
+     * @param index position of door
+     */
+    public void close(int index) {
+        setOpened(index, false);
+    }
+
+    /**
+     * This method return the amount of doors in the 'opened' state
+     *
+     * @return amount of opened doors
+     */
+    public int getOpenedCount() {
+        int count = 0;
+        for (int i = 0, words = wordsFor(size); i < words; i++) {
+            count += Long.bitCount(opened.get(i));
+        }
+        return count;
+    }
+
+    /**
+     * Switches all the doors to the 'opened' state
+     *
+     * @return amount of doors, that were opened by this call
+     */
+    public int openAll() {
+        return setAllOpened(true);
+    }
+
+    /**
+     * Switches all the doors to the 'closed' state
+     *
+     * @return amount of doors, that were closed by this call
+     */
+    public int closeAll() {
+        return setAllOpened(false);
+    }
+
+    /**
+     * Returns unmodifiable list view of doors, see {@link #get(int)}
+     *
+     * @return list of doors
+     */
+    public List<Door> asList() {
+        return new DoorList(false);
+    }
+
+    /**
+     * Returns unmodifiable list view of doors, that doesn't create views of doors
+     * stored without objects, see {@link #peek(int)}; is used for reading of all the doors
+     *
+     * @return list of doors
+     */
+    public List<Door> peekView() {
+        return new DoorList(true);
+    }
+
+    /**
+     * Switches the door at the specified position to the specified state
+     *
+     * @param index    position of door
+     * @param isOpened new state of door
+     */
+    private void setOpened(int index, boolean isOpened) {
+        checkIndex(index);
+        if (isObjectPosition(index)) {
+            Door door = doors.get(index);
+            if (isOpened) {
+                door.open();
+            } else {
+                door.close();
+            }
+        } else if (setBit(index, isOpened)) {
+            notifyStateListeners(index, isOpened);
+        }
+    }
+
+    /**
+     * Switches all the doors to the specified state; doors without objects
+     * are switched by 64 with one bitmap word update
+     *
+     * @param isOpened new state of doors
+     * @return amount of switched doors
+     */
+    private int setAllOpened(boolean isOpened) {
+        int changed = 0;
+        int words = wordsFor(size);
+        for (int i = 0; i < words; i++) {
+            long valid = i == words - 1 && (size & 63) != 0 ? (1L << size) - 1 : -1L;
+            long objects = objectPositions[i];
+            long mask = valid & ~objects;
+
+            long current;
+            long next;
+            do {
+                current = opened.get(i);
+                next = isOpened ? current | mask : current & ~mask;
+            } while (current != next && !opened.compareAndSet(i, current, next));
+
+            long switched = current ^ next;
+            changed += Long.bitCount(switched);
+            for (long bits = switched; bits != 0; bits &= bits - 1) {
+                notifyStateListeners(i * Long.SIZE + Long.numberOfTrailingZeros(bits), isOpened);
+            }
+
+            for (long bits = objects & valid & (isOpened ? ~current : current); bits != 0; bits &= bits - 1) {
+                Door door = doors.get(i * Long.SIZE + Long.numberOfTrailingZeros(bits));
+                if (door.isOpened() != isOpened) {
+                    changed++;
+                    if (isOpened) {
+                        door.open();
+                    } else {
+                        door.close();
+                    }
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Copies the state of added door object into the bitmap.
+     * The state is re-read after the update, so concurrent notifications
+     * that arrive out of order still leave the bitmap consistent with the door
+     *
+     * @param index position of door
+     * @param door  added door object
+     */
+    private void mirrorState(int index, Door door) {
+        boolean isOpened;
+        do {
+            isOpened = door.isOpened();
+            setBit(index, isOpened);
+        } while (door.isOpened() != isOpened);
+    }
+
+    /**
+     * Notifies the listener of array about the current state of door
+     *
+     * @param index position of door
+     */
+    private void notifyStateListener(int index) {
+        IDoorsStateListener listener = stateListener;
+        if (listener != null) {
+            listener.doorStateChanged(index, isOpened(index));
+        }
+    }
+
+    /**
+     * Notifies the listener of array and the listener of door view, if it's created
+     *
+     * @param index    position of door
+     * @param isOpened new state of door
+     */
+    private void notifyStateListeners(int index, boolean isOpened) {
+        notifyStateListener(index);
+        Door view = doors.get(index);
+        if (view != null) {
+            view.notifyStateListener(isOpened);
+        }
+    }
+
+    /**
+     * Atomically sets or clears the bit of bitmap
+     *
+     * @param index position of door
+     * @param value new value of bit
+     * @return true, if the bit was changed by this call, false otherwise
+     */
+    private boolean setBit(int index, boolean value) {
+        int wordIndex = index >>> 6;
+        long mask = 1L << index;
+        long current;
+        long next;
+        do {
+            current = opened.get(wordIndex);
+            next = value ? current | mask : current & ~mask;
+            if (current == next) {
+                return false;
+            }
+        } while (!opened.compareAndSet(wordIndex, current, next));
+        return true;
+    }
+
+    /**
+     * Checks whether the position holds added door object
+     *
+     * @param index position of door
+     * @return true for added door object, false for door stored without object
+     */
+    private boolean isObjectPosition(int index) {
+        return (objectPositions[index >>> 6] & 1L << index) != 0;
+    }
+
+    /**
+     * Checks whether the door stored without object has the default attributes;
+     * its view could have got other ones
+     *
+     * @param index position of door
+     * @return true, if the door has the default attributes, false otherwise
+     */
+    private boolean isDefault(int index) {
+        Door view = doors.get(index);
+        return attributes[index] == Door.DEFAULT_ATTRIBUTES && (view == null
+                || view.getEqualityKey() >>> Integer.SIZE == Door.DEFAULT_ATTRIBUTES.getId());
+    }
+
+    /**
+     * Checks whether the position is within the array
+     *
+     * @param index position of door
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+    }
+
+    /**
+     * Returns amount of bitmap words, that hold the specified amount of bits
+     *
+     * @param bitsAmount amount of bits
+     * @return amount of words
+     */
+    private static int wordsFor(int bitsAmount) {
+        return (bitsAmount + Long.SIZE - 1) >>> 6;
+    }
+
+    /**
+     * This class represents door, that is stored in the array without object.
+     * Its state is the bit of array bitmap. Is equal to {@link Door} objects
+     * with the same attributes and state
+     */
+    private final class DoorView extends Door {
+        /** Position of door in the array */
+        private final int index;
+
+        /**
+         * Parametrized constructor.
+         *
+         * @param attributes attributes of door
+         * @param index      position of door in the array
+         */
+        DoorView(DoorAttributes attributes, int index) {
+            super(attributes);
+            this.index = index;
+        }
+
+        /**
+         * Sets the bit of door in the array bitmap
+         */
+        @Override
+        public void open() {
+            setOpened(index, true);
+        }
+
+        /**
+         * Clears the bit of door in the array bitmap
+         */
+        @Override
+        public void close() {
+            setOpened(index, false);
+        }
+
+        /**
+         * Checks the bit of door in the array bitmap
+         *
+         * @return true, if this door is in 'opened' state, false otherwise
+         */
+        @Override
+        public boolean isOpened() {
+            return DoorArray.this.isOpened(index);
+        }
+
+        /**
+         * Returns {@code OPENED} bit if the bit of door in the array bitmap is set
+         *
+         * @return state flags of the door
+         */
+        @Override
+        protected int getStateFlags() {
+            return isOpened() ? OPENED : 0;
+        }
+
+        /**
+         * Returns {@link Door} class, so views are equal to door objects
+         *
+         * @return class used in the equality check
+         */
+        @Override
+        Class<? extends Door> getEqualityClass() {
+            return Door.class;
+        }
+    }
+
+    /**
+     * This class represents door, that is stored in the array without object, for reading
+     * only. Its state is the bit of array bitmap; every change of door is rejected.
+     * Is equal to {@link Door} objects with the same attributes and state
+     */
+    private final class ReadOnlyDoor extends Door {
+        /** Position of door in the array */
+        private final int index;
+
+        /**
+         * Parametrized constructor.
+         *
+         * @param attributes attributes of door
+         * @param index      position of door in the array
+         */
+        ReadOnlyDoor(DoorAttributes attributes, int index) {
+            super(attributes);
+            this.index = index;
+        }
+
+        /**
+         * Rejects the change of color
+         *
+         * @param color new color value
+         */
+        @Override
+        public void setColor(String color) {
+            throw new UnsupportedOperationException("Door is read-only");
+        }
+
+        /**
+         * Rejects the listener, as the door isn't kept by the array
+         *
+         * @param stateListener new listener
+         */
+        @Override
+        public void setStateListener(IOpenStateListener stateListener) {
+            throw new UnsupportedOperationException("Door is read-only");
+        }
+
+        /**
+         * Rejects the opening
+         */
+        @Override
+        public void open() {
+            throw new UnsupportedOperationException("Door is read-only");
+        }
+
+        /**
+         * Rejects the closing
+         */
+        @Override
+        public void close() {
+            throw new UnsupportedOperationException("Door is read-only");
+        }
+
+        /**
+         * Checks the bit of door in the array bitmap
+         *
+         * @return true, if this door is in 'opened' state, false otherwise
+         */
+        @Override
+        public boolean isOpened() {
+            return DoorArray.this.isOpened(index);
+        }
+
+        /**
+         * Returns {@code OPENED} bit if the bit of door in the array bitmap is set
+         *
+         * @return state flags of the door
+         */
+        @Override
+        protected int getStateFlags() {
+            return isOpened() ? OPENED : 0;
+        }
+
+        /**
+         * Returns {@link Door} class, so read-only doors are equal to door objects
+         *
+         * @return class used in the equality check
+         */
+        @Override
+        Class<? extends Door> getEqualityClass() {
+            return Door.class;
+        }
+    }
+
+    /**
+     * This class represents unmodifiable list view of the array
+     */
+    private class DoorList extends AbstractList<Door> implements RandomAccess {
+        /** Indicates whether doors are read with {@link #peek(int)} rather than {@link #get(int)} */
+        private final boolean isPeeking;
+
+        /**
+         * Parametrized constructor.
+         *
+         * @param isPeeking indicates whether views of doors mustn't be created
+         */
+        DoorList(boolean isPeeking) {
+            this.isPeeking = isPeeking;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Door get(int index) {
+            return isPeeking ? peek(index) : DoorArray.this.get(index);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package ua.onufreiv.inheritance.house.openings;
+
+import java.util.Objects;
+
+/**
+ * This class represents immutable set of {@link Door} attributes:
+ * material, color, type and presence of glass captions.
+ * <p/> Instances are shared flyweights: {@link #of} returns the same object
+ * for equal attribute values, so doors store only the reference and their state.
+ * Every canonical instance has its own small integer identifier, so equality
+ * of attribute sets is an identifier comparison. Canonical instances are kept in
+ * {@link AttributesInterner}, so unused ones are collected with their identifiers.
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+final class DoorAttributes {
+
+    /** Canonical instances of attribute sets */
+    private static final AttributesInterner<DoorAttributes> CANONICAL = new AttributesInterner<>();
+
+    /** Material of door */
+    private final String material;
+    /** Color of door */
+    private final String color;
+    /** The way of door's opening/closing */
+    private final Door.OpeningType type;
+    /** Indicates whether the door has some glass captions */
+    private final boolean isWithGlass;
+    /** Cached hash code of attribute values */
+    private final int hash;
+    /** Identifier of canonical instance; equal attribute sets have equal identifiers */
+    private final int id;
+
+    /**
+     * Parametrized constructor.
+     * <p/>It's private for making it possible to create only canonical instances
+     *
+     * @param material    material of door
+     * @param color       color of door
+     * @param type        type of door's opening/closing mechanism
+     * @param isWithGlass indicates whether the door contains glass captions
+     * @param id          identifier of instance
+     */
+    private DoorAttributes(String material, String color, Door.OpeningType type, boolean isWithGlass, int id) {
+        this.id = id;
+        this.material = material;
+        this.color = color;
+        this.type = type;
+        this.isWithGlass = isWithGlass;
+
+        int result = Objects.hashCode(material);
+        result = 31 * result + Objects.hashCode(color);
+        result = 31 * result + Objects.hashCode(type);
+        hash = 31 * result + Boolean.hashCode(isWithGlass);
+    }
+
+    /**
+     * Returns canonical attribute set with the specified values
+     *
+     * @param material    material of door
+     * @param color       color of door
+     * @param type        type of door's opening/closing mechanism
+     * @param isWithGlass indicates whether the door contains glass captions
+     * @return shared attribute set object
+     */
+    static DoorAttributes of(String material, String color, Door.OpeningType type, boolean isWithGlass) {
+        return CANONICAL.intern(new DoorAttributes(material, color, type, isWithGlass, AttributesInterner.NO_ID),
+                id -> new DoorAttributes(material, color, type, isWithGlass, id));
+    }
+
+    /**
+     * Returns canonical attribute set that differs from this one only in color
+     *
+     * @param color new color value
+     * @return shared attribute set object
+     */
+    DoorAttributes withColor(String color) {
+        return of(material, color, type, isWithGlass);
+    }
+
+    /**
+     * Getter for {@code id} field
+     *
+     * @return identifier of canonical instance
+     */
+    int getId() {
+        return id;
+    }
+
+    /**
+     * Getter for {@code material} field
+     *
+     * @return {@code material} field value
+     */
+    String getMaterial() {
+        return material;
+    }
+
+    /**
+     * Getter for {@code color} field
+     *
+     * @return {@code color} field value
+     */
+    String getColor() {
+        return color;
+    }
+
+    /**
+     * Getter for {@code type} field
+     *
+     * @return {@code type} field value
+     */
+    Door.OpeningType getType() {
+        return type;
+    }
+
+    /**
+     * Getter for {@code isWithGlass} field
+     *
+     * @return {@code isWithGlass} field value
+     */
+    boolean isWithGlass() {
+        return isWithGlass;
+    }
+
+    /**
+     * Checks this object for the equality with the {@code otherObject}.
+     * <p/>The equality condition is checked using all the attribute values
+     *
+     * @param otherObject the object to check with.
+     * @return {@code true} if the objects are the same;
+     * {@code false} otherwise.
+     */
+    @Override
+    public boolean equals(Object otherObject) {
+        if (this == otherObject) return true;
+
+        if (otherObject == null) return false;
+
+        if (getClass() != otherObject.getClass()) return false;
+
+        DoorAttributes other = (DoorAttributes) otherObject;
+
+        return hash == other.hash
+                && Objects.equals(material, other.material)
+                && Objects.equals(color, other.color)
+                && type == other.type
+                && isWithGlass == other.isWithGlass;
+    }
+
+    /**
+     * Returns a hash code for this attribute set.
+     *
+     * @return cached hash code value
+     */
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
@@ -0,0 +1,14 @@
+package ua.onufreiv.inheritance.house.openings;
+
+/**
+ * This interface represents listener of switching between 'opened' and 'closed'
+ * states of doors, stored in the {@link DoorArray}.
+ * <p/> Is notified only when the state of door is actually changed.
+ * Passed state is the state of door at the moment of notification
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+public interface IDoorsStateListener {
+    void doorStateChanged(int index, boolean isOpened);
+}
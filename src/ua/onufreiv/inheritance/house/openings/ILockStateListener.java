@@ -0,0 +1,12 @@
+package ua.onufreiv.inheritance.house.openings;
+
+/**
+ * This interface represents listener that is notified every time
+ * some {@link ILockable} object switches between 'locked' and 'unlocked' states
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+public interface ILockStateListener {
+    void lockStateChanged(ILockable source, boolean isLocked);
+}
@@ -16,4 +16,13 @@ public interface ILockable {
     boolean unlock(House house, KeyGenerator.Key key);
 
     boolean isLocked();
+
+    /**
+     * Sets listener of lock state; implementations, that don't report
+     * their lock state, ignore it
+     *
+     * @param lockStateListener listener or {@code null}
+     */
+    default void setLockStateListener(ILockStateListener lockStateListener) {
+    }
 }
@@ -0,0 +1,12 @@
+package ua.onufreiv.inheritance.house.openings;
+
+/**
+ * This interface represents listener that is notified every time
+ * some {@link IOpenable} object switches between 'opened' and 'closed' states
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+public interface IOpenStateListener {
+    void openStateChanged(IOpenable source, boolean isOpened);
+}
@@ -2,8 +2,9 @@ package ua.onufreiv.inheritance.house.openings;
 
 import ua.onufreiv.inheritance.house.House;
 import ua.onufreiv.inheritance.house.KeyGenerator;
+import ua.onufreiv.inheritance.house.text.Rendering;
 
-import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * This class represents 'locked door' object extending the {@code Door} class.
@@ -15,9 +16,30 @@ import java.util.Objects;
  */
 public class LockableDoor extends Door implements ILockable {
     /**
-     * Indicates whether it is in 'locked' state
+     * Bit of {@code state} word that indicates whether the door is in 'locked' state
      */
-    private boolean isLocked;
+    private static final int LOCKED = 2;
+    /**
+     * Amount of the lowest bits of {@code state} word occupied by flags;
+     * the rest of the word contains the lock epoch
+     */
+    private static final int EPOCH_SHIFT = 2;
+
+    /**
+     * Default attributes of lockable door: "Metal", "Black", {@code OpeningType.CASUAL}, without glass
+     */
+    private static final DoorAttributes DEFAULT_ATTRIBUTES =
+            DoorAttributes.of("Metal", "Black", OpeningType.CASUAL, false);
+
+    /**
+     * Identifier of the door; is used together with the lock epoch
+     * for the key generation
+     */
+    private final long id;
+    /**
+     * Listener that is notified about switching between 'locked' and 'unlocked' states
+     */
+    private volatile ILockStateListener lockStateListener;
 
     /**
      * Default constructor.
@@ -28,7 +50,7 @@ public class LockableDoor extends Door implements ILockable {
      * ({@code isWithGlass} = "false").
      */
     public LockableDoor() {
-        this("Metal", "Black", OpeningType.CASUAL, false);
+        this(DEFAULT_ATTRIBUTES);
     }
 
     /**
@@ -41,24 +63,115 @@ public class LockableDoor extends Door implements ILockable {
      * @param isWithGlass indicates whether the door contains glass captions
      */
     public LockableDoor(String material, String color, OpeningType type, boolean isWithGlass) {
-        super(material, color, type, isWithGlass);
+        this(DoorAttributes.of(material, color, type, isWithGlass));
+    }
+
+    /**
+     * Parametrized constructor.
+     * <p/>Restores door with the specified identifier and state; is used for
+     * loading of persisted houses, so keys issued before stay valid
+     *
+     * @param material    material of door
+     * @param color       color of door
+     * @param type        type of door's opening/closing mechanism
+     * @param isWithGlass indicates whether the door contains glass captions
+     * @param id          identifier of door
+     * @param lockEpoch   lock epoch of door
+     * @param isLocked    indicates whether the door is in 'locked' state
+     * @param isOpened    indicates whether the door is in 'opened' state
+     */
+    public LockableDoor(String material, String color, OpeningType type, boolean isWithGlass,
+                        long id, int lockEpoch, boolean isLocked, boolean isOpened) {
+        super(DoorAttributes.of(material, color, type, isWithGlass));
+        this.id = id;
+        compareAndSetState(0, lockEpoch << EPOCH_SHIFT | (isLocked ? LOCKED : 0) | (isOpened ? OPENED : 0));
+    }
+
+    /**
+     * Parametrized constructor.
+     * <p/>Initializes door with the shared attribute set
+     *
+     * @param attributes attributes of door
+     */
+    LockableDoor(DoorAttributes attributes) {
+        super(attributes);
+        id = ThreadLocalRandom.current().nextLong();
     }
 
     /**
-     * Switches the door into 'locked' state, generates
-     * the key for unlocking and returns generated key
+     * Getter for {@code id} field
+     *
+     * @return identifier of the door
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Sets the listener, that is notified every time the door
+     * switches between 'locked' and 'unlocked' states
+     *
+     * @param lockStateListener new listener or {@code null} to remove the existing one
+     */
+    @Override
+    public void setLockStateListener(ILockStateListener lockStateListener) {
+        this.lockStateListener = lockStateListener;
+    }
+
+    /**
+     * Notifies {@code lockStateListener} (if any) about the lock state switching
+     *
+     * @param isLocked new lock state of door
+     */
+    private void notifyLockStateListener(boolean isLocked) {
+        ILockStateListener listener = lockStateListener;
+        if (listener != null) {
+            listener.lockStateChanged(this, isLocked);
+        }
+    }
+
+    /**
+     * Returns the lock epoch - counter that is incremented on every locking
+     * of the door, so keys of the previous lockings become invalid
+     *
+     * @return current lock epoch
+     */
+    public int getLockEpoch() {
+        return getState() >>> EPOCH_SHIFT;
+    }
+
+    /**
+     * Atomically closes the door, switches it into 'locked' state and starts the new
+     * lock epoch; generates the key for unlocking and returns generated key.
+     * <p/>Only one of concurrent callers succeeds, others get {@code null}
      *
      * @param house house object, entry door of which must be locked
-     * @return generated {@code KeyGenerator.Key} object for further unlocking
+     * @return generated {@code KeyGenerator.Key} object for further unlocking;
+     * null if the door is already locked
      */
     @Override
     public KeyGenerator.Key lock(House house) {
-        isLocked = true;
-        return KeyGenerator.generateKey(house, this);
+        int current;
+        int next;
+        do {
+            current = getState();
+            if ((current & LOCKED) != 0) {
+                return null;
+            }
+            next = ((current >>> EPOCH_SHIFT) + 1) << EPOCH_SHIFT | LOCKED;
+        } while (!compareAndSetState(current, next));
+
+        notifyLockStateListener(true);
+        if ((current & OPENED) != 0) {
+            notifyStateListener(false);
+        }
+        return KeyGenerator.generateKey(house, this, next >>> EPOCH_SHIFT);
     }
 
     /**
-     * Switches the door into 'unlocked' state.
+     * Atomically switches the door into 'unlocked' state if it is locked
+     * and the passed key is valid for it.
+     * <p/>Only one of concurrent callers succeeds, others get {@code false}
      *
      * @param house house object, entry door of which must be unlocked
      * @param key   key for unlocking the door
@@ -66,47 +179,63 @@ public class LockableDoor extends Door implements ILockable {
      */
     @Override
     public boolean unlock(House house, KeyGenerator.Key key) {
-        if (key.isValidForDoor(house, this)) {
-            isLocked = false;
-            return true;
-        }
-        return false;
+        int current;
+        do {
+            current = getState();
+            if ((current & LOCKED) == 0
+                    || !key.isValidForDoor(house, this, current >>> EPOCH_SHIFT)) {
+                return false;
+            }
+        } while (!compareAndSetState(current, current & ~LOCKED));
+
+        notifyLockStateListener(false);
+        return true;
     }
 
     /**
-     * Getter for {@code isLocked} field
-     * @return true, if this door object is in 'locked' state, false otherwise
+     * Atomically sets the lock state and the lock epoch of door; is used for applying
+     * of persisted or replicated state. Locked door is closed as well. Listeners are
+     * notified about the changed states, as if the door was locked or unlocked
+     *
+     * @param lockEpoch lock epoch of door
+     * @param isLocked  indicates whether the door is in 'locked' state
      */
-    @Override
-    public boolean isLocked() {
-        return isLocked;
+    public void restoreLockState(int lockEpoch, boolean isLocked) {
+        int current;
+        int next;
+        do {
+            current = getState();
+            next = lockEpoch << EPOCH_SHIFT | (isLocked ? LOCKED : current & OPENED);
+        } while (!compareAndSetState(current, next));
+
+        if (((current ^ next) & LOCKED) != 0) {
+            notifyLockStateListener(isLocked);
+        }
+        if (((current ^ next) & OPENED) != 0) {
+            notifyStateListener(false);
+        }
     }
 
     /**
-     * Checks this object for the equality with the {@code otherObject}.
-     * <p/>The equality condition is checked using the following conditions:
-     * {@code super.equals(otherObject)} and
-     * {@code isLocked} values in both objects are equals.
+     * Checks the {@code LOCKED} bit of {@code state} word
      *
-     * @param   otherObject the object to compare with.
-     * @return  {@code true} if the objects are the same;
-     *          {@code false} otherwise.
+     * @return true, if this door object is in 'locked' state, false otherwise
      */
     @Override
-    public boolean equals(Object otherObject) {
-        return super.equals(otherObject)
-                && Objects.equals(isLocked, ((LockableDoor) otherObject).isLocked);
+    public boolean isLocked() {
+        return (getState() & LOCKED) != 0;
     }
 
     /**
-     * Returns a hash code for this lockable door.
-     * <p/>Based on {@code super.hashCode()} and {@code isLocked} values
+     * Returns {@code OPENED} and {@code LOCKED} bits of {@code state} word,
+     * so {@code equals} and {@code hashCode} take the 'locked' state into account.
+     * The lock epoch doesn't take part in the equality check
      *
-     * @return a hash code value for this lockable door object
+     * @return state flags of the door
      */
     @Override
-    public int hashCode() {
-        return Objects.hash(super.hashCode(), isLocked);
+    protected int getStateFlags() {
+        return getState() & (OPENED | LOCKED);
     }
 
     /**
@@ -117,9 +246,22 @@ public class LockableDoor extends Door implements ILockable {
      */
     @Override
     public String toString() {
-        return "LockableDoor[" +
-                super.toString() +
-                ", isLocked=" + isLocked +
-                ']';
+        return Rendering.toString(this);
+    }
+
+    /**
+     * Appends the representation of this {@code LockableDoor} object, the same as
+     * {@link #toString()} returns, to the builder. The representation of
+     * {@code Door} part is appended by {@code super.render(builder)}
+     *
+     * @param builder builder to append to
+     * @return the passed builder
+     */
+    @Override
+    public StringBuilder render(StringBuilder builder) {
+        builder.append("LockableDoor[");
+        return super.render(builder)
+                .append(", isLocked=").append(isLocked())
+                .append(']');
     }
 }
@@ -1,6 +1,8 @@
 package ua.onufreiv.inheritance.house.openings;
 
-import java.util.Objects;
+import ua.onufreiv.inheritance.house.text.Rendering;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * This class represents 'openable door' object extending the {@code Window} class.
@@ -12,9 +14,20 @@ import java.util.Objects;
  */
 public class OpenableWindow extends Window implements IOpenable {
     /**
-     * Indicates whether it is in 'opened' state
+     * Atomic updater of {@code opened} field
      */
-    private boolean isOpened;
+    private static final AtomicIntegerFieldUpdater<OpenableWindow> OPENED_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(OpenableWindow.class, "opened");
+
+    /**
+     * Indicates whether it is in 'opened' state (1) or in 'closed' one (0).
+     * Is changed only with the help of compare-and-set operations
+     */
+    private volatile int opened;
+    /**
+     * Listener that is notified about switching between 'opened' and 'closed' states
+     */
+    private volatile IOpenStateListener stateListener;
 
     /**
      * Default constructor.
@@ -37,12 +50,38 @@ public class OpenableWindow extends Window implements IOpenable {
         super(material, color, type, lookAtDirection);
     }
 
+    /**
+     * Setter for {@code stateListener} field.
+     * <p/>Only one listener is supported, so the previous one is replaced.
+     * Under concurrent use notifications may arrive out of order, so the
+     * listener should rely on {@link #isOpened()} rather than on the passed state
+     *
+     * @param stateListener new listener or {@code null} to remove the existing one
+     */
+    public void setStateListener(IOpenStateListener stateListener) {
+        this.stateListener = stateListener;
+    }
+
     /**
      * Switches current window to the 'opened' state
      */
     @Override
     public void open() {
-        isOpened = true;
+        tryOpen();
+    }
+
+    /**
+     * Atomically switches current window to the 'opened' state
+     * if it is in the 'closed' one
+     *
+     * @return true, if the window was opened by this call, false otherwise
+     */
+    public boolean tryOpen() {
+        if (OPENED_UPDATER.compareAndSet(this, 0, 1)) {
+            notifyStateListener(true);
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -50,44 +89,42 @@ public class OpenableWindow extends Window implements IOpenable {
      */
     @Override
     public void close() {
-        isOpened = false;
+        if (OPENED_UPDATER.compareAndSet(this, 1, 0)) {
+            notifyStateListener(false);
+        }
     }
 
     /**
-     * Getter for {@code isOpened} field
+     * Notifies {@code stateListener} (if any) about the state switching
      *
-     * @return true, if this window is in 'opened' state, false otherwise
+     * @param isOpened new state of window
      */
-    @Override
-    public boolean isOpened() {
-        return isOpened;
+    private void notifyStateListener(boolean isOpened) {
+        IOpenStateListener listener = stateListener;
+        if (listener != null) {
+            listener.openStateChanged(this, isOpened);
+        }
     }
 
     /**
-     * Checks this object for the equality with the {@code otherObject}.
-     * <p/>The equality condition is checked using the following conditions:
-     * {@code super.equals(otherObject)} and
-     * {@code isOpened} values in both objects are equals.
+     * Getter for {@code opened} field
      *
-     * @param   otherObject the object to compare with.
-     * @return  {@code true} if the objects are the same;
-     *          {@code false} otherwise.
+     * @return true, if this window is in 'opened' state, false otherwise
      */
     @Override
-    public boolean equals(Object otherObject) {
-        return super.equals(otherObject)
-                && Objects.equals(isOpened, ((OpenableWindow) otherObject).isOpened);
+    public boolean isOpened() {
+        return opened != 0;
     }
 
     /**
-     * Returns a hash code for this openable window.
-     * <p/>Based on {@code super.hashCode()} and {@code isOpened} values
+     * Returns {@code opened} field value, so {@code equals} and {@code hashCode}
+     * take the 'opened' state into account
      *
-     * @return a hash code value for this openable window object
+     * @return state flags of the window
      */
     @Override
-    public int hashCode() {
-        return Objects.hash(super.hashCode(), isOpened);
+    protected int getStateFlags() {
+        return opened;
     }
 
     /**
@@ -98,9 +135,22 @@ public class OpenableWindow extends Window implements IOpenable {
      */
     @Override
     public String toString() {
-        return "OpenableWindow[" +
-                super.toString() +
-                ", isOpened=" + isOpened +
-                ']';
+        return Rendering.toString(this);
+    }
+
+    /**
+     * Appends the representation of this {@code OpenableWindow} object, the same as
+     * {@link #toString()} returns, to the builder. The representation of
+     * {@code Window} part is appended by {@code super.render(builder)}
+     *
+     * @param builder builder to append to
+     * @return the passed builder
+     */
+    @Override
+    public StringBuilder render(StringBuilder builder) {
+        builder.append("OpenableWindow[");
+        return super.render(builder)
+                .append(", isOpened=").append(isOpened())
+                .append(']');
     }
 }
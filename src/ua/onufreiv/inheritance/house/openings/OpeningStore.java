@@ -0,0 +1,605 @@
+package ua.onufreiv.inheritance.house.openings;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class represents storage of doors and windows outside of the Java heap.
+ * <p/> Every opening is a fixed-width record in the direct buffer: identifiers of material
+ * and color in the dictionary of store and one byte with the kind of opening, its type
+ * and glass captions or direction. Records are allocated in chunks, so the store isn't
+ * limited by the size of one buffer. 'Opened' states are kept in the bitmap, one bit per
+ * opening, and are switched atomically.
+ * <p/> Openings are accessed through the {@link Cursor} flyweight, that implements
+ * {@link IOpenable} and could be moved between records without allocation; door and
+ * window objects are created on demand only. Adding of openings must not run
+ * concurrently with other operations, opening and closing could be performed from many threads.
+ * <p/> Lockable doors aren't supported, as their identifiers and keys must stay on heap.
+ * <p/> Store should be closed, when it isn't needed anymore: {@link #close()} drops the chunks
+ * at once, so their memory is released without waiting for the store object itself to become
+ * unreachable. Closed store and all its cursors throw IllegalStateException on any access.
+ * Closing must not run concurrently with other operations.
+ * <p/> Has {@link Kind} and {@link Cursor} nested classes in it.
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+public final class OpeningStore implements AutoCloseable {
+
+    /**
+     * This enum represents kinds of openings, that could be stored
+     */
+    public enum Kind {
+        DOOR, WINDOW, OPENABLE_WINDOW
+    }
+
+    /** Amount of bits of opening index, that select record within chunk */
+    private static final int CHUNK_BITS = 20;
+    /** Amount of records in one chunk */
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    /** Mask of record index within chunk */
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    /** Size of record: material and color identifiers and flags */
+    private static final int RECORD_SIZE = 2 * Integer.BYTES + 1;
+    /** Offset of color identifier in the record */
+    private static final int COLOR_OFFSET = Integer.BYTES;
+    /** Offset of flags in the record */
+    private static final int FLAGS_OFFSET = 2 * Integer.BYTES;
+
+    /** Mask of kind ordinal in flags */
+    private static final int KIND_MASK = 0x3;
+    /** Position of type ordinal in flags; 0 stands for {@code null} */
+    private static final int TYPE_SHIFT = 2;
+    /** Position of direction ordinal of window in flags; 0 stands for {@code null} */
+    private static final int DIRECTION_SHIFT = 5;
+    /** Flag of door with glass captions */
+    private static final int WITH_GLASS = 1 << 5;
+    /** Mask of enum ordinal in flags */
+    private static final int ENUM_MASK = 0x7;
+
+    /** Identifier of {@code null} string */
+    private static final int NULL_STRING = -1;
+
+    /** Chunks of records; {@code null} after the store is closed */
+    private ByteBuffer[] records;
+    /** Bitmaps of 'opened' states by chunks; {@code null} after the store is closed */
+    private AtomicLongArray[] opened;
+    /** Amount of openings */
+    private int size;
+    /** Identifiers of dictionary strings */
+    private final Map<String, Integer> stringIds;
+    /** Strings of dictionary in order of their identifiers */
+    private final List<String> strings;
+
+    /**
+     * Default constructor.
+     * <p/> Creates empty store; off-heap memory is allocated with the first opening
+     */
+    public OpeningStore() {
+        records = new ByteBuffer[0];
+        opened = new AtomicLongArray[0];
+        stringIds = new HashMap<>();
+        strings = new ArrayList<>();
+    }
+
+    /**
+     * This method return the amount of openings in the store
+     *
+     * @return amount of openings
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * This method return the amount of memory allocated outside of the Java heap
+     *
+     * @return amount of bytes
+     */
+    public long getOffHeapBytes() {
+        return records == null ? 0 : (long) records.length * CHUNK_SIZE * RECORD_SIZE;
+    }
+
+    /**
+     * Checks whether the store is closed
+     *
+     * @return true, if {@link #close()} was called, false otherwise
+     */
+    public boolean isClosed() {
+        return records == null;
+    }
+
+    /**
+     * Closes the store: drops all the chunks of records and 'opened' bitmaps and the dictionary.
+     * Cursors, that were created before, become invalid. Repeated call has no effect
+     */
+    @Override
+    public void close() {
+        records = null;
+        opened = null;
+        size = 0;
+        stringIds.clear();
+        strings.clear();
+    }
+
+    /**
+     * Adds door in the 'closed' state
+     *
+     * @param material    material of door
+     * @param color       color of door
+     * @param type        type of door's opening/closing mechanism
+     * @param isWithGlass indicates whether the door contains glass captions
+     * @return index of door in the store
+     */
+    public int addDoor(String material, String color, Door.OpeningType type, boolean isWithGlass) {
+        int flags = Kind.DOOR.ordinal() | ordinalOf(type) << TYPE_SHIFT | (isWithGlass ? WITH_GLASS : 0);
+        return append(material, color, flags);
+    }
+
+    /**
+     * Adds window in the 'closed' state
+     *
+     * @param material        material of window
+     * @param color           color of window
+     * @param type            type of window
+     * @param lookAtDirection direction that is seen through the window
+     * @param isOpenable      indicates whether the window could be opened
+     * @return index of window in the store
+     */
+    public int addWindow(String material, String color, Window.WindowType type,
+                         Direction lookAtDirection, boolean isOpenable) {
+        Kind kind = isOpenable ? Kind.OPENABLE_WINDOW : Kind.WINDOW;
+        int flags = kind.ordinal() | ordinalOf(type) << TYPE_SHIFT | ordinalOf(lookAtDirection) << DIRECTION_SHIFT;
+        return append(material, color, flags);
+    }
+
+    /**
+     * Adds door with the attributes and state of the passed door object.
+     * The object itself isn't kept
+     *
+     * @param door door for copying
+     * @return index of door in the store
+     */
+    public int addDoor(Door door) {
+        if (door == null) {
+            throw new NullPointerException("Parameter 'door' is null");
+        } else if (door instanceof LockableDoor) {
+            throw new IllegalArgumentException("Lockable doors aren't supported");
+        }
+
+        int index = addDoor(door.getMaterial(), door.getColor(), door.getType(), door.isWithGlass());
+        setOpened(index, door.isOpened());
+        return index;
+    }
+
+    /**
+     * Adds window with the attributes and state of the passed window object.
+     * The object itself isn't kept
+     *
+     * @param window window for copying
+     * @return index of window in the store
+     */
+    public int addWindow(Window window) {
+        if (window == null) {
+            throw new NullPointerException("Parameter 'window' is null");
+        }
+
+        boolean isOpenable = window instanceof OpenableWindow;
+        int index = addWindow(window.getMaterial(), window.getColor(), window.getType(),
+                window.getLookAtDirection(), isOpenable);
+        setOpened(index, isOpenable && ((OpenableWindow) window).isOpened());
+        return index;
+    }
+
+    /**
+     * Returns new cursor, that isn't positioned at any opening yet
+     *
+     * @return cursor over the store
+     */
+    public Cursor cursor() {
+        checkOpen();
+        return new Cursor();
+    }
+
+    /**
+     * Returns cursor positioned at the opening with the specified index
+     *
+     * @param index index of opening
+     * @return cursor over the store
+     */
+    public Cursor cursor(int index) {
+        return new Cursor().moveTo(index);
+    }
+
+    /**
+     * Checks the state of opening with the specified index
+     *
+     * @param index index of opening
+     * @return true, if the opening is in 'opened' state, false otherwise
+     */
+    public boolean isOpened(int index) {
+        checkIndex(index);
+        return (opened[index >>> CHUNK_BITS].get((index & CHUNK_MASK) >>> 6) & 1L << index) != 0;
+    }
+
+    /**
+     * This method return the amount of openings in the 'opened' state
+     *
+     * @return amount of opened doors and windows
+     */
+    public long getOpenedCount() {
+        checkOpen();
+        long count = 0;
+        for (AtomicLongArray bitmap : opened) {
+            for (int i = 0; i < bitmap.length(); i++) {
+                count += Long.bitCount(bitmap.get(i));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Creates door or window object with the attributes and state of the opening
+     *
+     * @param index index of opening
+     * @return new {@link Door}, {@link Window} or {@link OpenableWindow} object
+     */
+    public Object materialize(int index) {
+        Cursor cursor = cursor(index);
+        if (cursor.getKind() == Kind.DOOR) {
+            Door door = new Door(cursor.getMaterial(), cursor.getColor(), cursor.getDoorType(), cursor.isWithGlass());
+            if (cursor.isOpened()) {
+                door.open();
+            }
+            return door;
+        } else if (cursor.getKind() == Kind.OPENABLE_WINDOW) {
+            OpenableWindow window = new OpenableWindow(cursor.getMaterial(), cursor.getColor(),
+                    cursor.getWindowType(), cursor.getLookAtDirection());
+            if (cursor.isOpened()) {
+                window.open();
+            }
+            return window;
+        }
+        return new Window(cursor.getMaterial(), cursor.getColor(),
+                cursor.getWindowType(), cursor.getLookAtDirection());
+    }
+
+    /**
+     * Appends the record of opening, allocating the new chunk if necessary
+     *
+     * @param material material of opening
+     * @param color    color of opening
+     * @param flags    kind, type and glass captions or direction of opening
+     * @return index of opening
+     */
+    private int append(String material, String color, int flags) {
+        checkOpen();
+        if (size == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Store is full");
+        }
+
+        int chunk = size >>> CHUNK_BITS;
+        if (chunk == records.length) {
+            records = Arrays.copyOf(records, chunk + 1);
+            records[chunk] = ByteBuffer.allocateDirect(CHUNK_SIZE * RECORD_SIZE);
+            opened = Arrays.copyOf(opened, chunk + 1);
+            opened[chunk] = new AtomicLongArray(CHUNK_SIZE / Long.SIZE);
+        }
+
+        int offset = (size & CHUNK_MASK) * RECORD_SIZE;
+        records[chunk].putInt(offset, idOf(material))
+                .putInt(offset + COLOR_OFFSET, idOf(color))
+                .put(offset + FLAGS_OFFSET, (byte) flags);
+        return size++;
+    }
+
+    /**
+     * Atomically sets or clears the 'opened' bit of opening
+     *
+     * @param index    index of opening
+     * @param isOpened new state of opening
+     * @return true, if the state was changed by this call, false otherwise
+     */
+    private boolean setOpened(int index, boolean isOpened) {
+        AtomicLongArray bitmap = opened[index >>> CHUNK_BITS];
+        int wordIndex = (index & CHUNK_MASK) >>> 6;
+        long mask = 1L << index;
+        long current;
+        long next;
+        do {
+            current = bitmap.get(wordIndex);
+            next = isOpened ? current | mask : current & ~mask;
+            if (current == next) {
+                return false;
+            }
+        } while (!bitmap.compareAndSet(wordIndex, current, next));
+        return true;
+    }
+
+    /**
+     * Returns identifier of string in the dictionary, adding it if necessary
+     *
+     * @param string string value or {@code null}
+     * @return identifier of string
+     */
+    private int idOf(String string) {
+        if (string == null) {
+            return NULL_STRING;
+        }
+
+        Integer id = stringIds.get(string);
+        if (id == null) {
+            id = strings.size();
+            stringIds.put(string, id);
+            strings.add(string);
+        }
+        return id;
+    }
+
+    /**
+     * Returns string of dictionary with the specified identifier
+     *
+     * @param id identifier of string
+     * @return string value or {@code null}
+     */
+    private String stringOf(int id) {
+        return id == NULL_STRING ? null : strings.get(id);
+    }
+
+    /**
+     * Checks whether the store isn't closed yet
+     */
+    private void checkOpen() {
+        if (records == null) {
+            throw new IllegalStateException("Store is closed");
+        }
+    }
+
+    /**
+     * Checks whether the store isn't closed and the index is within it
+     *
+     * @param index index of opening
+     */
+    private void checkIndex(int index) {
+        checkOpen();
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+    }
+
+    /**
+     * Returns ordinal of enum value increased by one, so {@code null} is stored as 0
+     *
+     * @param value enum value or {@code null}
+     * @return stored ordinal
+     */
+    private static int ordinalOf(Enum<?> value) {
+        return value == null ? 0 : value.ordinal() + 1;
+    }
+
+    /**
+     * Returns enum value by the stored ordinal
+     *
+     * @param values  all the values of enum
+     * @param ordinal stored ordinal
+     * @param <E>     type of enum
+     * @return enum value or {@code null}
+     */
+    private static <E extends Enum<E>> E enumOf(E[] values, int ordinal) {
+        return ordinal == 0 ? null : values[ordinal - 1];
+    }
+
+    /**
+     * Returns a {@code String} object representing this {@code OpeningStore} object's value.
+     * Includes it's class name, amount of openings and amount of off-heap memory
+     *
+     * @return a string representation of fields values of this object
+     */
+    @Override
+    public String toString() {
+        return "OpeningStore[" +
+                "size=" + size +
+                ", isClosed=" + isClosed() +
+                ", offHeapBytes=" + getOffHeapBytes() +
+                ']';
+    }
+
+    /**
+     * This class represents flyweight view of one opening in the store.
+     * Cursor could be moved to the other opening with {@link #moveTo(int)},
+     * so iteration over the store doesn't create objects.
+     * Cursor itself must be used by one thread at a time. It doesn't hold the chunk
+     * of records, so the chunks of closed store aren't kept by the cursors
+     */
+    public final class Cursor implements IOpenable {
+        /** Index of opening, the cursor is positioned at */
+        private int index = -1;
+        /** Offset of opening record in the chunk */
+        private int offset;
+
+        /**
+         * Default constructor.
+         * <p/>It's private, {@link OpeningStore#cursor()} must be used instead
+         */
+        private Cursor() {
+        }
+
+        /**
+         * Positions the cursor at the opening with the specified index
+         *
+         * @param index index of opening
+         * @return this cursor
+         */
+        public Cursor moveTo(int index) {
+            checkIndex(index);
+            this.index = index;
+            offset = (index & CHUNK_MASK) * RECORD_SIZE;
+            return this;
+        }
+
+        /**
+         * Getter for {@code index} field
+         *
+         * @return index of opening, the cursor is positioned at
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Returns kind of opening
+         *
+         * @return kind of opening
+         */
+        public Kind getKind() {
+            return Kind.values()[flags() & KIND_MASK];
+        }
+
+        /**
+         * Returns material of opening
+         *
+         * @return material of opening
+         */
+        public String getMaterial() {
+            return stringOf(chunk().getInt(offset));
+        }
+
+        /**
+         * Returns color of opening
+         *
+         * @return color of opening
+         */
+        public String getColor() {
+            return stringOf(chunk().getInt(offset + COLOR_OFFSET));
+        }
+
+        /**
+         * Returns type of door's opening/closing mechanism
+         *
+         * @return type of door; {@code null} for windows
+         */
+        public Door.OpeningType getDoorType() {
+            int flags = flags();
+            return (flags & KIND_MASK) != Kind.DOOR.ordinal()
+                    ? null : enumOf(Door.OpeningType.values(), flags >>> TYPE_SHIFT & ENUM_MASK);
+        }
+
+        /**
+         * Checks whether the door contains glass captions
+         *
+         * @return true for door with glass captions, false otherwise and for windows
+         */
+        public boolean isWithGlass() {
+            int flags = flags();
+            return (flags & KIND_MASK) == Kind.DOOR.ordinal() && (flags & WITH_GLASS) != 0;
+        }
+
+        /**
+         * Returns type of window
+         *
+         * @return type of window; {@code null} for doors
+         */
+        public Window.WindowType getWindowType() {
+            int flags = flags();
+            return (flags & KIND_MASK) == Kind.DOOR.ordinal()
+                    ? null : enumOf(Window.WindowType.values(), flags >>> TYPE_SHIFT & ENUM_MASK);
+        }
+
+        /**
+         * Returns direction that is seen through the window
+         *
+         * @return direction of window; {@code null} for doors
+         */
+        public Direction getLookAtDirection() {
+            int flags = flags();
+            return (flags & KIND_MASK) == Kind.DOOR.ordinal()
+                    ? null : enumOf(Direction.values(), flags >>> DIRECTION_SHIFT & ENUM_MASK);
+        }
+
+        /**
+         * Switches the opening to the 'opened' state.
+         * <p/>If the opening is window, that couldn't be opened - IllegalStateException is thrown
+         */
+        @Override
+        public void open() {
+            checkOpenable();
+            setOpened(index, true);
+        }
+
+        /**
+         * Switches the opening to the 'closed' state.
+         * <p/>If the opening is window, that couldn't be opened - IllegalStateException is thrown
+         */
+        @Override
+        public void close() {
+            checkOpenable();
+            setOpened(index, false);
+        }
+
+        /**
+         * Checks the 'opened' bit of opening
+         *
+         * @return true, if the opening is in 'opened' state, false otherwise
+         */
+        @Override
+        public boolean isOpened() {
+            return OpeningStore.this.isOpened(index);
+        }
+
+        /**
+         * Returns flags byte of the record
+         *
+         * @return flags of opening
+         */
+        private int flags() {
+            return chunk().get(offset + FLAGS_OFFSET);
+        }
+
+        /**
+         * Returns chunk of records, that holds the opening
+         *
+         * @return chunk of records
+         */
+        private ByteBuffer chunk() {
+            checkOpen();
+            if (index < 0) {
+                throw new IllegalStateException("Cursor isn't positioned");
+            }
+            return records[index >>> CHUNK_BITS];
+        }
+
+        /**
+         * Checks whether the opening could be opened and closed
+         */
+        private void checkOpenable() {
+            if (getKind() == Kind.WINDOW) {
+                throw new IllegalStateException("Window couldn't be opened");
+            }
+        }
+
+        /**
+         * Returns a {@code String} object representing this {@code Cursor} object's value.
+         * Includes it's class name, index, kind, material, color and state of opening
+         *
+         * @return a string representation of fields values of this object
+         */
+        @Override
+        public String toString() {
+            if (index < 0 || isClosed()) {
+                return "Cursor[index=" + index + ", isClosed=" + isClosed() + ']';
+            }
+            return "Cursor[" +
+                    "index=" + index +
+                    ", kind=" + getKind() +
+                    ", material='" + getMaterial() + '\'' +
+                    ", color='" + getColor() + '\'' +
+                    ", isOpened=" + isOpened() +
+                    ']';
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package ua.onufreiv.inheritance.house.openings;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+
+/**
+ * This class contains bulk operations on collections of doors and windows.
+ * <p/> Equal openings have equal classes, identifiers of attribute sets and
+ * state flags, so they're deduplicated by a primitive key in one hashed pass
+ * without calling {@code equals}.
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+public final class Openings {
+
+    /** Position of class identifier in the deduplication key */
+    private static final int CLASS_SHIFT = 16;
+
+    /** Identifiers of opening classes, starting from 1 */
+    private static final AtomicInteger NEXT_CLASS_ID = new AtomicInteger(1);
+    /** Identifier of every opening class */
+    private static final ClassValue<Integer> CLASS_IDS = new ClassValue<Integer>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            return NEXT_CLASS_ID.getAndIncrement();
+        }
+    };
+
+    /**
+     * Private constructor, the class has static methods only
+     */
+    private Openings() {
+    }
+
+    /**
+     * Returns doors without duplicates: of every group of equal doors
+     * only the first one is kept. The order of doors is preserved
+     *
+     * @param doors doors for deduplication
+     * @param <T>   type of doors
+     * @return list of distinct doors
+     */
+    public static <T extends Door> List<T> distinctDoors(Collection<? extends T> doors) {
+        return distinct(doors, door -> door.getEqualityKey() | classKey(door.getEqualityClass()));
+    }
+
+    /**
+     * Returns windows without duplicates: of every group of equal windows
+     * only the first one is kept. The order of windows is preserved
+     *
+     * @param windows windows for deduplication
+     * @param <T>     type of windows
+     * @return list of distinct windows
+     */
+    public static <T extends Window> List<T> distinctWindows(Collection<? extends T> windows) {
+        return distinct(windows, window -> window.getEqualityKey() | classKey(window.getClass()));
+    }
+
+    /**
+     * Returns identifier of opening class shifted to its position in the deduplication key
+     *
+     * @param type class of door or window
+     * @return class part of the key
+     */
+    private static long classKey(Class<?> type) {
+        return (long) CLASS_IDS.get(type) << CLASS_SHIFT;
+    }
+
+    /**
+     * Keeps the first opening of every key
+     *
+     * @param openings openings for deduplication
+     * @param keyOf    function that forms non-zero key of opening
+     * @param <T>      type of openings
+     * @return list of distinct openings
+     */
+    private static <T> List<T> distinct(Collection<? extends T> openings, ToLongFunction<T> keyOf) {
+        if (openings == null) {
+            throw new NullPointerException("Parameter 'openings' is null");
+        }
+
+        List<T> result = new ArrayList<>();
+        LongHashSet seen = new LongHashSet();
+        for (T opening : openings) {
+            if (opening == null) {
+                throw new NullPointerException("Null element");
+            }
+            if (seen.add(keyOf.applyAsLong(opening))) {
+                result.add(opening);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * This class represents set of non-zero {@code long} keys with open addressing.
+     * Grows when it becomes half-full
+     */
+    private static final class LongHashSet {
+        /** Initial amount of slots */
+        private static final int INITIAL_CAPACITY = 64;
+
+        /** Slots of keys; zero marks free slot */
+        private long[] slots = new long[INITIAL_CAPACITY];
+        /** Amount of keys */
+        private int size;
+
+        /**
+         * Adds the key if it isn't present yet
+         *
+         * @param key non-zero key
+         * @return true if the key was added, false if it's already present
+         */
+        boolean add(long key) {
+            int index = find(slots, key);
+            if (slots[index] == key) {
+                return false;
+            }
+
+            slots[index] = key;
+            if (++size * 2 > slots.length) {
+                grow();
+            }
+            return true;
+        }
+
+        /**
+         * Doubles the amount of slots
+         */
+        private void grow() {
+            long[] newSlots = new long[slots.length * 2];
+            for (long key : slots) {
+                if (key != 0) {
+                    newSlots[find(newSlots, key)] = key;
+                }
+            }
+            slots = newSlots;
+        }
+
+        /**
+         * Returns slot, that holds the key or the free one where it should be put
+         *
+         * @param slots slots of keys
+         * @param key   non-zero key
+         * @return index of slot
+         */
+        private static int find(long[] slots, long key) {
+            int mask = slots.length - 1;
+            int index = (int) (key * 0x9E3779B97F4A7C15L >>> Integer.SIZE) & mask;
+            while (slots[index] != 0 && slots[index] != key) {
+                index = (index + 1) & mask;
+            }
+            return index;
+        }
+    }
+}
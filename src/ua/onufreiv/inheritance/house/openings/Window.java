@@ -1,6 +1,7 @@
 package ua.onufreiv.inheritance.house.openings;
 
-import java.util.Objects;
+import ua.onufreiv.inheritance.house.text.IRenderable;
+import ua.onufreiv.inheritance.house.text.Rendering;
 
 /**
  * This class represents 'window' object that couldn't be opened/closed.
@@ -8,7 +9,7 @@ import java.util.Objects;
  * @author Yurii Onufreiv
  * @version 1.0
  */
-public class Window {
+public class Window implements IRenderable {
 
     /**
      * This enum represents possible types of windows
@@ -18,17 +19,16 @@ public class Window {
     }
 
     /**
-     * Material of window
+     * Default attributes of window: "Wood", "Brown", {@code WindowType.SINGLE}, {@code Direction.NORTH}
      */
-    private String material;
+    private static final WindowAttributes DEFAULT_ATTRIBUTES =
+            WindowAttributes.of("Wood", "Brown", WindowType.SINGLE, Direction.NORTH);
+
     /**
-     * Color of window
+     * Material, color, type and direction of window; shared between
+     * windows with the same attribute values
      */
-    private String color;
-    /** Type of window */
-    private WindowType type;
-    /** Direction that is seen through this window */
-    private Direction lookAtDirection;
+    private WindowAttributes attributes;
 
     /**
      * Default constructor.
@@ -39,7 +39,7 @@ public class Window {
      * ({@code isWithGlass} = Direction.NORTH).
      */
     public Window() {
-        this("Wood", "Brown", WindowType.SINGLE, Direction.NORTH);
+        this(DEFAULT_ATTRIBUTES);
     }
 
     /**
@@ -52,10 +52,17 @@ public class Window {
      * @param lookAtDirection direction that is seen through this window
      */
     public Window(String material, String color, WindowType type, Direction lookAtDirection) {
-        this.material = material;
-        this.color = color;
-        this.type = type;
-        this.lookAtDirection = lookAtDirection;
+        this(WindowAttributes.of(material, color, type, lookAtDirection));
+    }
+
+    /**
+     * Parametrized constructor.
+     * <p/>Initializes window with the shared attribute set
+     *
+     * @param attributes attributes of window
+     */
+    Window(WindowAttributes attributes) {
+        this.attributes = attributes;
     }
 
     /**
@@ -64,7 +71,7 @@ public class Window {
      * @return {@code material} field value
      */
     public String getMaterial() {
-        return material;
+        return attributes.getMaterial();
     }
 
     /**
@@ -73,7 +80,7 @@ public class Window {
      * @return {@code color} field value
      */
     public String getColor() {
-        return color;
+        return attributes.getColor();
     }
 
     /**
@@ -82,7 +89,7 @@ public class Window {
      * @param color new color value
      */
     public void setColor(String color) {
-        this.color = color;
+        attributes = attributes.withColor(color);
     }
 
     /**
@@ -91,7 +98,7 @@ public class Window {
      * @return {@code type} field value
      */
     public WindowType getType() {
-        return type;
+        return attributes.getType();
     }
 
     /**
@@ -100,7 +107,27 @@ public class Window {
      * @return {@code lookAtDirection} field value
      */
     public Direction getLookAtDirection() {
-        return lookAtDirection;
+        return attributes.getLookAtDirection();
+    }
+
+    /**
+     * Returns state flags, that take part in the equality check.
+     * The window has no state, subclasses with some state override it
+     *
+     * @return state flags of the window
+     */
+    protected int getStateFlags() {
+        return 0;
+    }
+
+    /**
+     * Returns value, that is equal for equal windows of the same class:
+     * identifier of attribute set in the high half and state flags in the low one
+     *
+     * @return equality key of the window
+     */
+    final long getEqualityKey() {
+        return (long) attributes.getId() << Integer.SIZE | getStateFlags();
     }
 
     /**
@@ -108,8 +135,10 @@ public class Window {
      * <p/>The equality condition is checked using the following fields:
      * {@code material},
      * {@code color},
-     * {@code type} and
-     * {@code lookAtDirection}.
+     * {@code type},
+     * {@code lookAtDirection} and
+     * state flags ({@code isOpened} for openable windows).
+     * Attribute values are compared by the identifier of their canonical set
      *
      * @param otherObject the object to check with.
      * @return {@code true} if the objects are the same;
@@ -125,22 +154,18 @@ public class Window {
 
         Window other = (Window) otherObject;
 
-        return Objects.equals(lookAtDirection, other.lookAtDirection)
-                && Objects.equals(color, other.color)
-                && Objects.equals(type, other.type)
-                && Objects.equals(material, other.material);
+        return getEqualityKey() == other.getEqualityKey();
     }
 
     /**
      * Returns a hash code for this window.
-     * <p/>Based on {@code material}, {@code color}, {@code type}
-     * and {@code lookAtDirection} values
+     * <p/>Based on identifier of attribute set and state flags
      *
      * @return a hash code value for this window object
      */
     @Override
     public int hashCode() {
-        return Objects.hash(material, color, type, lookAtDirection);
+        return Long.hashCode(getEqualityKey());
     }
 
     /**
@@ -152,11 +177,23 @@ public class Window {
      */
     @Override
     public String toString() {
-        return "Window[" +
-                "material='" + material + '\'' +
-                ", color='" + color + '\'' +
-                ", type=" + type +
-                ", lookAtDirection=" + lookAtDirection +
-                ']';
+        return Rendering.toString(this);
+    }
+
+    /**
+     * Appends the representation of this {@code Window} object, the same as
+     * {@link #toString()} returns, to the builder
+     *
+     * @param builder builder to append to
+     * @return the passed builder
+     */
+    @Override
+    public StringBuilder render(StringBuilder builder) {
+        return builder.append("Window[")
+                .append("material='").append(attributes.getMaterial()).append('\'')
+                .append(", color='").append(attributes.getColor()).append('\'')
+                .append(", type=").append(attributes.getType())
+                .append(", lookAtDirection=").append(attributes.getLookAtDirection())
+                .append(']');
     }
 }
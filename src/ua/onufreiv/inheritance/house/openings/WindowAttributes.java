@@ -0,0 +1,161 @@
+package ua.onufreiv.inheritance.house.openings;
+
+import java.util.Objects;
+
+/**
+ * This class represents immutable set of {@link Window} attributes:
+ * material, color, type and direction that is seen through the window.
+ * <p/> Instances are shared flyweights: {@link #of} returns the same object
+ * for equal attribute values, so windows store only the reference and their state.
+ * Every canonical instance has its own small integer identifier, so equality
+ * of attribute sets is an identifier comparison. Canonical instances are kept in
+ * {@link AttributesInterner}, so unused ones are collected with their identifiers.
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+final class WindowAttributes {
+
+    /** Canonical instances of attribute sets */
+    private static final AttributesInterner<WindowAttributes> CANONICAL = new AttributesInterner<>();
+
+    /** Material of window */
+    private final String material;
+    /** Color of window */
+    private final String color;
+    /** Type of window */
+    private final Window.WindowType type;
+    /** Direction that is seen through this window */
+    private final Direction lookAtDirection;
+    /** Cached hash code of attribute values */
+    private final int hash;
+    /** Identifier of canonical instance; equal attribute sets have equal identifiers */
+    private final int id;
+
+    /**
+     * Parametrized constructor.
+     * <p/>It's private for making it possible to create only canonical instances
+     *
+     * @param material        material of window
+     * @param color           color of window
+     * @param type            type of window
+     * @param lookAtDirection direction that is seen through this window
+     * @param id              identifier of instance
+     */
+    private WindowAttributes(String material, String color, Window.WindowType type, Direction lookAtDirection, int id) {
+        this.id = id;
+        this.material = material;
+        this.color = color;
+        this.type = type;
+        this.lookAtDirection = lookAtDirection;
+
+        int result = Objects.hashCode(material);
+        result = 31 * result + Objects.hashCode(color);
+        result = 31 * result + Objects.hashCode(type);
+        hash = 31 * result + Objects.hashCode(lookAtDirection);
+    }
+
+    /**
+     * Returns canonical attribute set with the specified values
+     *
+     * @param material        material of window
+     * @param color           color of window
+     * @param type            type of window
+     * @param lookAtDirection direction that is seen through this window
+     * @return shared attribute set object
+     */
+    static WindowAttributes of(String material, String color, Window.WindowType type, Direction lookAtDirection) {
+        return CANONICAL.intern(new WindowAttributes(material, color, type, lookAtDirection, AttributesInterner.NO_ID),
+                id -> new WindowAttributes(material, color, type, lookAtDirection, id));
+    }
+
+    /**
+     * Returns canonical attribute set that differs from this one only in color
+     *
+     * @param color new color value
+     * @return shared attribute set object
+     */
+    WindowAttributes withColor(String color) {
+        return of(material, color, type, lookAtDirection);
+    }
+
+    /**
+     * Getter for {@code id} field
+     *
+     * @return identifier of canonical instance
+     */
+    int getId() {
+        return id;
+    }
+
+    /**
+     * Getter for {@code material} field
+     *
+     * @return {@code material} field value
+     */
+    String getMaterial() {
+        return material;
+    }
+
+    /**
+     * Getter for {@code color} field
+     *
+     * @return {@code color} field value
+     */
+    String getColor() {
+        return color;
+    }
+
+    /**
+     * Getter for {@code type} field
+     *
+     * @return {@code type} field value
+     */
+    Window.WindowType getType() {
+        return type;
+    }
+
+    /**
+     * Getter for {@code lookAtDirection} field
+     *
+     * @return {@code lookAtDirection} field value
+     */
+    Direction getLookAtDirection() {
+        return lookAtDirection;
+    }
+
+    /**
+     * Checks this object for the equality with the {@code otherObject}.
+     * <p/>The equality condition is checked using all the attribute values
+     *
+     * @param otherObject the object to check with.
+     * @return {@code true} if the objects are the same;
+     * {@code false} otherwise.
+     */
+    @Override
+    public boolean equals(Object otherObject) {
+        if (this == otherObject) return true;
+
+        if (otherObject == null) return false;
+
+        if (getClass() != otherObject.getClass()) return false;
+
+        WindowAttributes other = (WindowAttributes) otherObject;
+
+        return hash == other.hash
+                && Objects.equals(material, other.material)
+                && Objects.equals(color, other.color)
+                && type == other.type
+                && lookAtDirection == other.lookAtDirection;
+    }
+
+    /**
+     * Returns a hash code for this attribute set.
+     *
+     * @return cached hash code value
+     */
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
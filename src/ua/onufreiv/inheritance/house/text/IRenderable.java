@@ -0,0 +1,12 @@
+package ua.onufreiv.inheritance.house.text;
+
+/**
+ * This interface represents objects, that could append their textual
+ * representation to the existing buffer without creating intermediate strings
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+public interface IRenderable {
+    StringBuilder render(StringBuilder builder);
+}
@@ -0,0 +1,46 @@
+package ua.onufreiv.inheritance.house.text;
+
+import java.util.function.Supplier;
+
+/**
+ * This class represents text, that is rendered only when it's requested.
+ * <p/> Is intended to be passed as argument of log messages: logging frameworks
+ * call {@link #toString()} or {@link #get()} only if the message is actually written,
+ * so nothing is rendered for disabled log levels.
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+public final class LazyText implements Supplier<String> {
+    /** Object, that is rendered on request */
+    private final IRenderable renderable;
+
+    /**
+     * Parametrized constructor.
+     *
+     * @param renderable object, that is rendered on request
+     */
+    LazyText(IRenderable renderable) {
+        this.renderable = renderable;
+    }
+
+    /**
+     * Renders the object
+     *
+     * @return textual representation of the object
+     */
+    @Override
+    public String get() {
+        return Rendering.toString(renderable);
+    }
+
+    /**
+     * Renders the object
+     *
+     * @return textual representation of the object
+     */
+    @Override
+    public String toString() {
+        return get();
+    }
+}
@@ -0,0 +1,74 @@
+package ua.onufreiv.inheritance.house.text;
+
+/**
+ * This class contains helpers of textual rendering of {@link IRenderable} objects.
+ * <p/> Every thread reuses its own buffer, so rendering allocates only the
+ * resulting {@code String}. Nested rendering in the same thread gets a fresh buffer.
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+public final class Rendering {
+
+    /** Initial capacity of buffer */
+    private static final int INITIAL_CAPACITY = 256;
+    /** Capacity, above which the buffer isn't kept for reuse */
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    /** Buffer of every thread */
+    private static final ThreadLocal<Buffer> BUFFERS = ThreadLocal.withInitial(Buffer::new);
+
+    /**
+     * Private constructor, the class has static methods only
+     */
+    private Rendering() {
+    }
+
+    /**
+     * Renders the object with the help of reused buffer
+     *
+     * @param renderable object for rendering
+     * @return textual representation of the object
+     */
+    public static String toString(IRenderable renderable) {
+        Buffer buffer = BUFFERS.get();
+        if (buffer.isBusy) {
+            return renderable.render(new StringBuilder(INITIAL_CAPACITY)).toString();
+        }
+
+        buffer.isBusy = true;
+        try {
+            return renderable.render(buffer.builder).toString();
+        } finally {
+            if (buffer.builder.capacity() > MAX_RETAINED_CAPACITY) {
+                buffer.builder = new StringBuilder(INITIAL_CAPACITY);
+            } else {
+                buffer.builder.setLength(0);
+            }
+            buffer.isBusy = false;
+        }
+    }
+
+    /**
+     * Returns wrapper, that renders the object only when its text is requested
+     *
+     * @param renderable object for rendering
+     * @return lazy text of the object
+     */
+    public static LazyText lazy(IRenderable renderable) {
+        if (renderable == null) {
+            throw new NullPointerException("Parameter 'renderable' is null");
+        }
+        return new LazyText(renderable);
+    }
+
+    /**
+     * This class represents reusable buffer of one thread
+     */
+    private static class Buffer {
+        /** Builder of text */
+        StringBuilder builder = new StringBuilder(INITIAL_CAPACITY);
+        /** Indicates whether the builder is used by the current rendering */
+        boolean isBusy;
+    }
+}
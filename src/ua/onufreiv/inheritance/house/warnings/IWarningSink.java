@@ -0,0 +1,12 @@
+package ua.onufreiv.inheritance.house.warnings;
+
+/**
+ * This interface represents destination of warnings, that are
+ * delivered by {@link WarningChannel}
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+public interface IWarningSink {
+    void accept(OpenWindowWarning warning);
+}
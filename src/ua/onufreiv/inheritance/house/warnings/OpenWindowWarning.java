@@ -0,0 +1,120 @@
+package ua.onufreiv.inheritance.house.warnings;
+
+import ua.onufreiv.inheritance.house.House;
+import ua.onufreiv.inheritance.house.openings.OpenableWindow;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * This class represents warning about opened windows in the house,
+ * that was locked with key.
+ * <p/> The warning holds only the amount of windows, that were opened at the moment
+ * of locking, so publishing takes constant time. Positions of opened windows are
+ * copied once, when the warning is delivered by the consumer thread of {@link WarningChannel}
+ * or on the first access, and the window objects are looked up by these positions.
+ * So the positions reflect the state at the moment of delivery, which could differ
+ * from the amount of windows opened at the moment of locking.
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+public class OpenWindowWarning {
+
+    /** House that was locked */
+    private final House house;
+    /** Amount of opened windows at the moment of locking */
+    private final int openedWindowsCount;
+    /** Time of locking in milliseconds */
+    private final long timeMillis;
+    /** Positions of windows opened at the moment of delivery; {@code null} until they're copied */
+    private volatile BitSet openedPositions;
+
+    /**
+     * Parametrized constructor.
+     *
+     * @param house              house that was locked
+     * @param openedWindowsCount amount of opened windows at the moment of locking
+     */
+    public OpenWindowWarning(House house, int openedWindowsCount) {
+        this.house = house;
+        this.openedWindowsCount = openedWindowsCount;
+        this.timeMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Getter for {@code house} field
+     *
+     * @return house that was locked
+     */
+    public House getHouse() {
+        return house;
+    }
+
+    /**
+     * Getter for {@code openedWindowsCount} field
+     *
+     * @return amount of opened windows at the moment of locking
+     */
+    public int getOpenedWindowsCount() {
+        return openedWindowsCount;
+    }
+
+    /**
+     * Getter for {@code timeMillis} field
+     *
+     * @return time of locking in milliseconds
+     */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    /**
+     * Returns positions of windows opened at the moment of delivery
+     *
+     * @return copy of bit set of positions
+     */
+    public BitSet getOpenedPositions() {
+        return (BitSet) capturePositions().clone();
+    }
+
+    /**
+     * Returns windows of house that were opened at the moment of delivery.
+     * Their current state could differ
+     *
+     * @return list of windows opened at the moment of delivery
+     */
+    public List<OpenableWindow> getOpenedWindows() {
+        return house.getOpenableWindows(capturePositions());
+    }
+
+    /**
+     * Copies positions of opened windows of house, if they aren't copied yet.
+     * Is called by the consumer thread before the delivery; concurrent
+     * first calls could copy positions twice
+     *
+     * @return positions of opened windows
+     */
+    BitSet capturePositions() {
+        BitSet positions = openedPositions;
+        if (positions == null) {
+            positions = house.getOpenedWindowPositions();
+            openedPositions = positions;
+        }
+        return positions;
+    }
+
+    /**
+     * Returns a {@code String} object representing this {@code OpenWindowWarning} object's value.
+     * Includes it's class name, address of house and {@code openedWindowsCount} values
+     *
+     * @return a string representation of fields values of this object
+     */
+    @Override
+    public String toString() {
+        return "OpenWindowWarning[" +
+                "address='" + house.getAddress() + '\'' +
+                ", openedWindows=" + openedWindowsCount +
+                ']';
+    }
+}
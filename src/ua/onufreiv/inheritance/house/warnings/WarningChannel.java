@@ -0,0 +1,284 @@
+package ua.onufreiv.inheritance.house.warnings;
+
+import ua.onufreiv.inheritance.house.openings.OpenableWindow;
+
+import java.io.Closeable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class represents asynchronous channel of {@link OpenWindowWarning} events.
+ * <p/> Warnings are published into the bounded ring buffer without locking and
+ * are delivered to the {@link IWarningSink} by the background consumer thread.
+ * When the buffer is full, the warning is either dropped or the publisher waits
+ * for the free space, depending on the {@link OverflowPolicy}.
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+public class WarningChannel implements Closeable {
+
+    /**
+     * This enum represents possible behaviours of publisher, when the buffer is full
+     */
+    public enum OverflowPolicy {
+        /** The warning is dropped and counted */
+        DROP,
+        /** The publisher waits until the consumer frees some space */
+        BLOCK
+    }
+
+    /** Default capacity of the ring buffer */
+    private static final int DEFAULT_CAPACITY = 1024;
+    /** Time of consumer parking when the buffer is empty */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    /** Time of publisher or flusher parking while waiting for the consumer */
+    private static final long WAIT_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /** Cells of the ring buffer */
+    private final AtomicReferenceArray<OpenWindowWarning> cells;
+    /** Sequence numbers of cells, that show whether the cell is free or filled */
+    private final AtomicLongArray sequences;
+    /** Mask of cell index, capacity is a power of two */
+    private final int mask;
+    /** Position of the next publishing */
+    private final AtomicLong tail;
+    /** Position of the next consuming; is changed by the consumer thread only */
+    private volatile long head;
+    /** Amount of delivered warnings */
+    private volatile long delivered;
+    /** Amount of dropped warnings */
+    private final LongAdder dropped;
+
+    /** Destination of warnings */
+    private final IWarningSink sink;
+    /** Behaviour of publisher, when the buffer is full */
+    private final OverflowPolicy policy;
+    /** Background consumer */
+    private final Thread consumer;
+    /** Indicates whether the channel is closed */
+    private volatile boolean closed;
+    /** Indicates whether the consumer is parked because of empty buffer */
+    private volatile boolean idle;
+
+    /**
+     * Parametrized constructor.
+     * <p/> Creates channel with the default capacity and starts the consumer thread
+     *
+     * @param sink   destination of warnings
+     * @param policy behaviour of publisher, when the buffer is full
+     */
+    public WarningChannel(IWarningSink sink, OverflowPolicy policy) {
+        this(sink, policy, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Parametrized constructor.
+     * <p/> Creates channel and starts the consumer thread
+     *
+     * @param sink     destination of warnings
+     * @param policy   behaviour of publisher, when the buffer is full
+     * @param capacity minimal capacity of the ring buffer; is rounded up to a power of two
+     */
+    public WarningChannel(IWarningSink sink, OverflowPolicy policy, int capacity) {
+        if (sink == null || policy == null) {
+            throw new NullPointerException("Null value(-s)");
+        } else if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        size = Math.max(size, 1);
+        cells = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        mask = size - 1;
+        tail = new AtomicLong();
+        dropped = new LongAdder();
+
+        this.sink = sink;
+        this.policy = policy;
+        consumer = new Thread(this::consume, "warning-channel-consumer");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    /**
+     * Returns the shared channel, that prints warnings to the console
+     * and drops them when the buffer is full
+     *
+     * @return default channel
+     */
+    public static WarningChannel getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    /**
+     * Prints warning message to the console for every opened window of warning
+     *
+     * @param warning warning for printing
+     */
+    public static void printToConsole(OpenWindowWarning warning) {
+        for (OpenableWindow window : warning.getOpenedWindows()) {
+            System.out.printf("WARNING!!! There is opened window: %s%n", window.toString());
+        }
+    }
+
+    /**
+     * Publishes the warning. Never blocks with {@link OverflowPolicy#DROP} policy
+     *
+     * @param warning warning for publishing
+     * @return true if the warning was published, false if it was dropped
+     */
+    public boolean publish(OpenWindowWarning warning) {
+        if (closed) {
+            dropped.increment();
+            return false;
+        }
+
+        while (!offer(warning)) {
+            if (policy == OverflowPolicy.DROP || closed) {
+                dropped.increment();
+                return false;
+            }
+            LockSupport.parkNanos(WAIT_PARK_NANOS);
+        }
+
+        if (idle) {
+            LockSupport.unpark(consumer);
+        }
+        return true;
+    }
+
+    /**
+     * Waits until all the warnings published before this call are delivered
+     */
+    public void flush() {
+        long target = tail.get();
+        while (delivered < target && consumer.isAlive()) {
+            LockSupport.unpark(consumer);
+            LockSupport.parkNanos(WAIT_PARK_NANOS);
+        }
+    }
+
+    /**
+     * This method return the amount of warnings delivered to the sink
+     *
+     * @return amount of delivered warnings
+     */
+    public long getDeliveredCount() {
+        return delivered;
+    }
+
+    /**
+     * This method return the amount of warnings dropped because of full buffer
+     *
+     * @return amount of dropped warnings
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Stops accepting new warnings, delivers the published ones
+     * and stops the consumer thread
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Tries to put the warning into the ring buffer
+     *
+     * @param warning warning for putting
+     * @return true if the warning was put, false if the buffer is full
+     */
+    private boolean offer(OpenWindowWarning warning) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    cells.set(index, warning);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Takes the next warning from the ring buffer; is called by the consumer thread only
+     *
+     * @return warning or {@code null} if the buffer is empty
+     */
+    private OpenWindowWarning poll() {
+        long position = head;
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+
+        OpenWindowWarning warning = cells.get(index);
+        cells.set(index, null);
+        sequences.set(index, position + mask + 1);
+        head = position + 1;
+        return warning;
+    }
+
+    /**
+     * Main loop of the consumer thread: delivers warnings to the sink,
+     * parks when there is nothing to deliver
+     */
+    private void consume() {
+        while (true) {
+            OpenWindowWarning warning = poll();
+            if (warning != null) {
+                try {
+                    warning.capturePositions();
+                    sink.accept(warning);
+                } catch (RuntimeException e) {
+                    // faulty sink must not stop the delivery of the next warnings
+                } finally {
+                    delivered++;
+                }
+            } else if (closed && head == tail.get()) {
+                return;
+            } else {
+                idle = true;
+                if (head == tail.get()) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                idle = false;
+            }
+        }
+    }
+
+    /**
+     * Holder of the default channel, that is created on the first use
+     */
+    private static class DefaultHolder {
+        /** Default channel */
+        private static final WarningChannel INSTANCE =
+                new WarningChannel(WarningChannel::printToConsole, OverflowPolicy.DROP);
+    }
+}
@@ -0,0 +1,275 @@
+package ua.onufreiv.inheritance.house;
+
+import ua.onufreiv.inheritance.house.openings.Door;
+import ua.onufreiv.inheritance.house.openings.IOpenable;
+import ua.onufreiv.inheritance.house.openings.LockableDoor;
+import ua.onufreiv.inheritance.house.openings.OpenableWindow;
+import ua.onufreiv.inheritance.house.openings.Window;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Stress harness for the lock-free state transitions of doors, windows and houses.
+ * <p/> Every check races several threads against the same objects and verifies the
+ * invariant after all of them are finished:
+ * <p/>1. concurrent {@code lockWithKey}/{@code unlockWithKey} have exactly one winner per lock epoch
+ * <p/>2. no {@code open}/{@code close} update of {@link Door} or {@link OpenableWindow} is lost
+ * <p/>3. {@code openSomeWindow} never claims the same window twice
+ * <p/>4. the counter of opened windows equals the cardinality of opened windows bitmap
+ * <p/> Is run against the compiled sources, e.g.:
+ * <pre>
+ * javac -d out $(find src stress -name '*.java')
+ * java -cp out ua.onufreiv.inheritance.house.ConcurrencyStress [threads] [iterations]
+ * </pre>
+ * Exits with status 1 if some invariant is violated.
+ *
+ * @author Yurii Onufreiv
+ * @version 1.0
+ */
+public class ConcurrencyStress {
+
+    /** Amount of racing threads */
+    private final int threadsAmount;
+    /** Amount of iterations of every check */
+    private final int iterations;
+    /** Amount of violated invariants */
+    private final AtomicInteger failures = new AtomicInteger();
+
+    /**
+     * Parametrized constructor.
+     *
+     * @param threadsAmount amount of racing threads
+     * @param iterations    amount of iterations of every check
+     */
+    private ConcurrencyStress(int threadsAmount, int iterations) {
+        this.threadsAmount = threadsAmount;
+        this.iterations = iterations;
+    }
+
+    /**
+     * Runs all the checks
+     *
+     * @param args amount of threads and amount of iterations, both optional
+     * @throws InterruptedException if the main thread is interrupted
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int threadsAmount = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        ConcurrencyStress stress = new ConcurrencyStress(threadsAmount, iterations);
+
+        stress.checkSingleLockWinner();
+        stress.checkNoLostUpdates(new Door());
+        stress.checkNoLostUpdates(new OpenableWindow());
+        stress.checkSomeWindowClaimedOnce();
+        stress.checkOpenedWindowsCounter();
+
+        if (stress.failures.get() > 0) {
+            System.out.println("FAILED: " + stress.failures.get() + " violation(s)");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    /**
+     * In every round all the threads lock the same house, then all of them
+     * unlock it with the key of the round. Exactly one of them must succeed
+     * in both phases, and every round must start the new lock epoch
+     *
+     * @throws InterruptedException if the main thread is interrupted
+     */
+    private void checkSingleLockWinner() throws InterruptedException {
+        House.HouseBuilder builder = new House.HouseBuilder("stress", 1, 1, 1);
+        LockableDoor entryDoor = new LockableDoor();
+        builder.setEntryDoor(entryDoor);
+        House house = builder.getHouse();
+
+        AtomicReference<KeyGenerator.Key> roundKey = new AtomicReference<>();
+        AtomicInteger lockWinners = new AtomicInteger();
+        AtomicInteger unlockWinners = new AtomicInteger();
+        AtomicInteger lastEpoch = new AtomicInteger(entryDoor.getLockEpoch());
+        CyclicBarrier barrier = new CyclicBarrier(threadsAmount);
+
+        race("lock/unlock", () -> {
+            for (int i = 0; i < iterations; i++) {
+                KeyGenerator.Key key = house.lockWithKey();
+                if (key != null) {
+                    lockWinners.incrementAndGet();
+                    roundKey.set(key);
+                }
+                if (await(barrier) == 0) {
+                    check(lockWinners.getAndSet(0) == 1, "lock winners in round " + i);
+                    int epoch = entryDoor.getLockEpoch();
+                    check(epoch > lastEpoch.getAndSet(epoch), "lock epoch isn't advanced in round " + i);
+                }
+                await(barrier);
+
+                if (house.unlockWithKey(roundKey.get())) {
+                    unlockWinners.incrementAndGet();
+                }
+                if (await(barrier) == 0) {
+                    check(unlockWinners.getAndSet(0) == 1, "unlock winners in round " + i);
+                    check(!house.isLocked(), "house stays locked in round " + i);
+                }
+                await(barrier);
+            }
+        });
+    }
+
+    /**
+     * All the threads open and close the same object at random. The state
+     * listener counts the transitions, so their balance must match the final state
+     *
+     * @param openable {@link Door} or {@link OpenableWindow} object
+     * @throws InterruptedException if the main thread is interrupted
+     */
+    private void checkNoLostUpdates(IOpenable openable) throws InterruptedException {
+        AtomicInteger balance = new AtomicInteger();
+        if (openable instanceof Door) {
+            ((Door) openable).setStateListener((source, isOpened) -> balance.addAndGet(isOpened ? 1 : -1));
+        } else {
+            ((OpenableWindow) openable).setStateListener((source, isOpened) -> balance.addAndGet(isOpened ? 1 : -1));
+        }
+
+        race("open/close " + openable.getClass().getSimpleName(), () -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < iterations * 10; i++) {
+                if (random.nextBoolean()) {
+                    openable.open();
+                } else {
+                    openable.close();
+                }
+            }
+        });
+        check(balance.get() == (openable.isOpened() ? 1 : 0),
+                openable.getClass().getSimpleName() + " transitions balance " + balance.get()
+                        + ", isOpened=" + openable.isOpened());
+    }
+
+    /**
+     * All the threads open windows of the same house with {@code openSomeWindow}
+     * until it fails. The amount of successful calls must equal the amount of openable windows
+     *
+     * @throws InterruptedException if the main thread is interrupted
+     */
+    private void checkSomeWindowClaimedOnce() throws InterruptedException {
+        House.HouseBuilder builder = new House.HouseBuilder("stress", 1, 1, 1);
+        builder.setEntryDoor(new LockableDoor());
+        builder.addWindows(iterations * 2);
+        House house = builder.getHouse();
+
+        AtomicInteger claimed = new AtomicInteger();
+        race("openSomeWindow", () -> {
+            while (house.openSomeWindow()) {
+                claimed.incrementAndGet();
+            }
+        });
+        check(claimed.get() == iterations, "claimed windows " + claimed.get() + " of " + iterations);
+        check(house.getOpenedWindowsCount() == iterations,
+                "opened windows counter " + house.getOpenedWindowsCount() + " of " + iterations);
+    }
+
+    /**
+     * All the threads open and close windows of the same house at random. Afterwards
+     * the counter, the bitmap and the windows themselves must agree
+     *
+     * @throws InterruptedException if the main thread is interrupted
+     */
+    private void checkOpenedWindowsCounter() throws InterruptedException {
+        House.HouseBuilder builder = new House.HouseBuilder("stress", 1, 1, 1);
+        builder.setEntryDoor(new LockableDoor());
+        builder.addWindows(256);
+        House house = builder.getHouse();
+
+        List<OpenableWindow> windows = new ArrayList<>();
+        for (Window window : house.findWindows(null, null)) {
+            if (window instanceof OpenableWindow) {
+                windows.add((OpenableWindow) window);
+            }
+        }
+
+        race("opened windows counter", () -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < iterations * 10; i++) {
+                OpenableWindow window = windows.get(random.nextInt(windows.size()));
+                if (random.nextBoolean()) {
+                    window.open();
+                } else {
+                    window.close();
+                }
+            }
+        });
+
+        int actual = 0;
+        for (OpenableWindow window : windows) {
+            actual += window.isOpened() ? 1 : 0;
+        }
+        int bitmapCardinality = house.getOpenedWindows().size();
+        check(house.getOpenedWindowsCount() == bitmapCardinality,
+                "counter " + house.getOpenedWindowsCount() + ", bitmap " + bitmapCardinality);
+        check(bitmapCardinality == actual, "bitmap " + bitmapCardinality + ", windows " + actual);
+    }
+
+    /**
+     * Runs the task in all the threads at once and waits for them
+     *
+     * @param name name of check
+     * @param task task of every thread
+     * @throws InterruptedException if the main thread is interrupted
+     */
+    private void race(String name, Runnable task) throws InterruptedException {
+        CyclicBarrier start = new CyclicBarrier(threadsAmount);
+        Thread[] threads = new Thread[threadsAmount];
+        for (int i = 0; i < threadsAmount; i++) {
+            threads[i] = new Thread(() -> {
+                await(start);
+                task.run();
+            }, name + "-" + i);
+            threads[i].setUncaughtExceptionHandler((thread, e) -> {
+                failures.incrementAndGet();
+                System.out.println("FAIL " + thread.getName() + ": " + e);
+            });
+        }
+
+        long startTime = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        System.out.println(name + ": " + (System.nanoTime() - startTime) / 1_000_000 + " ms");
+    }
+
+    /**
+     * Records violation of invariant, if the condition is false
+     *
+     * @param condition checked invariant
+     * @param message   description of violation
+     */
+    private void check(boolean condition, String message) {
+        if (!condition) {
+            failures.incrementAndGet();
+            System.out.println("FAIL " + message);
+        }
+    }
+
+    /**
+     * Waits on the barrier, wrapping checked exceptions
+     *
+     * @param barrier barrier of threads
+     * @return arrival index of the current thread, 0 for the last one
+     */
+    private static int await(CyclicBarrier barrier) {
+        try {
+            return barrier.await();
+        } catch (InterruptedException | BrokenBarrierException e) {
+            throw new IllegalStateException("Barrier is broken", e);
+        }
+    }
+}